@@ -0,0 +1,67 @@
+package org.connectedsystems.benchmarks;
+
+import com.google.gson.Gson;
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.GsonFactory;
+import org.connectedsystems.datamodels.ObservationResource;
+import org.connectedsystems.net.APIResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a page of observations into an {@link APIResponse}, from the response body to the list of items,
+ * eagerly or lazily when only the item count or the first item is needed,
+ * and with only the ID and phenomenon time selected, skipping the results.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class APIResponseBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int pageSize;
+
+    @Param({Fixtures.SCALAR_RECORD, Fixtures.NESTED_ARRAYS})
+    public String schema;
+
+    private Gson gson;
+    private Gson projectedGson;
+    private String responseBody;
+
+    @Setup
+    public void setUp() {
+        DataComponent resultSchema = Fixtures.schema(schema);
+        gson = GsonFactory.createGson(resultSchema);
+        projectedGson = GsonFactory.createGson(resultSchema, Set.of("id", "phenomenonTime"));
+        responseBody = Fixtures.observationPage(resultSchema, pageSize);
+    }
+
+    @Benchmark
+    public APIResponse<ObservationResource> parsePage() {
+        return new APIResponse<>(ObservationResource.class, 200, "OK", responseBody, Map.of(), gson);
+    }
+
+    @Benchmark
+    public APIResponse<ObservationResource> parsePageProjected() {
+        return new APIResponse<>(ObservationResource.class, 200, "OK", responseBody, Map.of(), projectedGson);
+    }
+
+    @Benchmark
+    public int countItemsLazily() {
+        return new APIResponse<>(ObservationResource.class, 200, "OK", responseBody, Map.of(), gson, true).getItems().size();
+    }
+
+    @Benchmark
+    public ObservationResource firstItemLazily() {
+        return new APIResponse<>(ObservationResource.class, 200, "OK", responseBody, Map.of(), gson, true).getItems().get(0);
+    }
+}
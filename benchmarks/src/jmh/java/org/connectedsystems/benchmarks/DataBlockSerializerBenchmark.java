@@ -0,0 +1,49 @@
+package org.connectedsystems.benchmarks;
+
+import net.opengis.swe.v20.DataBlock;
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.serialization.DataBlockSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing a single observation result with {@link DataBlockSerializer}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DataBlockSerializerBenchmark {
+    @Param({Fixtures.SCALAR_RECORD, Fixtures.VECTOR, Fixtures.NESTED_ARRAYS})
+    public String schema;
+
+    private DataBlockSerializer serializer;
+    private DataBlock dataBlock;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        DataComponent resultSchema = Fixtures.schema(schema);
+        serializer = new DataBlockSerializer(resultSchema);
+        dataBlock = Fixtures.sampleBlock(resultSchema, 1);
+        json = serializer.toJson(dataBlock);
+    }
+
+    @Benchmark
+    public DataBlock read() throws IOException {
+        return serializer.fromJson(json);
+    }
+
+    @Benchmark
+    public String write() {
+        return serializer.toJson(dataBlock);
+    }
+}
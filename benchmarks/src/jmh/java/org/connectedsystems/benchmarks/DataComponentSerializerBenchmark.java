@@ -0,0 +1,52 @@
+package org.connectedsystems.benchmarks;
+
+import com.google.gson.Gson;
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.GsonFactory;
+import org.connectedsystems.serialization.DataComponentSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and writing result schemas with {@link DataComponentSerializer}, as done for every datastream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DataComponentSerializerBenchmark {
+    @Param({Fixtures.SCALAR_RECORD, Fixtures.VECTOR, Fixtures.NESTED_ARRAYS})
+    public String schema;
+
+    private final Gson gson = GsonFactory.gson;
+    private String json;
+    private DataComponent dataComponent;
+
+    @Setup
+    public void setUp() {
+        json = Fixtures.schemaJson(schema);
+        dataComponent = gson.fromJson(json, DataComponent.class);
+    }
+
+    @Benchmark
+    public DataComponent read() {
+        return gson.fromJson(json, DataComponent.class);
+    }
+
+    @Benchmark
+    public String write() {
+        return gson.toJson(dataComponent, DataComponent.class);
+    }
+
+    @Benchmark
+    public DataComponent roundTrip() {
+        return gson.fromJson(gson.toJson(dataComponent, DataComponent.class), DataComponent.class);
+    }
+}
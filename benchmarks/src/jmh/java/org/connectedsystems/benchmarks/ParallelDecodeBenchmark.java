@@ -0,0 +1,54 @@
+package org.connectedsystems.benchmarks;
+
+import com.google.gson.Gson;
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.GsonFactory;
+import org.connectedsystems.datamodels.ObservationResource;
+import org.connectedsystems.net.APIResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a page of observations on the calling thread or in parallel on the common fork-join pool,
+ * to find the page size from which parallel decoding pays off, i.e., the threshold to pass to
+ * {@link org.connectedsystems.ConnectedSystemsAPI#setParallelDecodingThreshold(int)} on the machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParallelDecodeBenchmark {
+    @Param({"50", "100", "250", "500", "1000", "2500", "10000"})
+    public int pageSize;
+
+    @Param({Fixtures.SCALAR_RECORD, Fixtures.NESTED_ARRAYS})
+    public String schema;
+
+    private Gson gson;
+    private String responseBody;
+
+    @Setup
+    public void setUp() {
+        DataComponent resultSchema = Fixtures.schema(schema);
+        gson = GsonFactory.createGson(resultSchema);
+        responseBody = Fixtures.observationPage(resultSchema, pageSize);
+    }
+
+    @Benchmark
+    public APIResponse<ObservationResource> sequential() {
+        return new APIResponse<>(ObservationResource.class, 200, "OK", responseBody, Map.of(), gson, false, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public APIResponse<ObservationResource> parallel() {
+        return new APIResponse<>(ObservationResource.class, 200, "OK", responseBody, Map.of(), gson, false, 1);
+    }
+}
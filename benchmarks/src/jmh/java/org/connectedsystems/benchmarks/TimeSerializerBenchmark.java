@@ -0,0 +1,88 @@
+package org.connectedsystems.benchmarks;
+
+import com.google.gson.Gson;
+import org.connectedsystems.GsonFactory;
+import org.connectedsystems.serialization.InstantSerializer;
+import org.connectedsystems.serialization.Rfc3339;
+import org.connectedsystems.serialization.TimeExtentSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.vast.util.TimeExtent;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing timestamps with {@link InstantSerializer} and {@link TimeExtentSerializer},
+ * and parsing and formatting them with {@link Rfc3339} compared with the JDK.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TimeSerializerBenchmark {
+    private final Gson gson = GsonFactory.gson;
+    private Instant instant;
+    private String instantJson;
+    private String timestamp;
+    private TimeExtent timeExtent;
+    private String timeExtentJson;
+
+    @Setup
+    public void setUp() {
+        instant = Fixtures.START_TIME.plusMillis(123_456_789);
+        instantJson = gson.toJson(instant);
+        timestamp = instant.toString();
+        timeExtentJson = "[\"2024-01-01T00:00:00Z\", \"2024-12-31T23:59:59.999Z\"]";
+        timeExtent = gson.fromJson(timeExtentJson, TimeExtent.class);
+    }
+
+    @Benchmark
+    public Instant readInstant() {
+        return gson.fromJson(instantJson, Instant.class);
+    }
+
+    @Benchmark
+    public String writeInstant() {
+        return gson.toJson(instant);
+    }
+
+    @Benchmark
+    public TimeExtent readTimeExtent() {
+        return gson.fromJson(timeExtentJson, TimeExtent.class);
+    }
+
+    @Benchmark
+    public String writeTimeExtent() {
+        return gson.toJson(timeExtent, TimeExtent.class);
+    }
+
+    @Benchmark
+    public long parseEpochNanos() {
+        return Rfc3339.parseEpochNanos(timestamp);
+    }
+
+    @Benchmark
+    public Instant parseInstant() {
+        return Rfc3339.parseInstant(timestamp);
+    }
+
+    @Benchmark
+    public Instant parseInstantJdk() {
+        return Instant.parse(timestamp);
+    }
+
+    @Benchmark
+    public String formatInstant() {
+        return Rfc3339.format(instant);
+    }
+
+    @Benchmark
+    public String formatInstantJdk() {
+        return instant.toString();
+    }
+}
@@ -0,0 +1,163 @@
+package org.connectedsystems.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import net.opengis.swe.v20.DataBlock;
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.GsonFactory;
+import org.connectedsystems.datamodels.ObservationResource;
+
+import java.time.Instant;
+
+/**
+ * Representative result schemas and payloads shared by the benchmarks, the mock server, and the load driver.
+ */
+public final class Fixtures {
+    public static final String SCALAR_RECORD = "scalarRecord";
+    public static final String VECTOR = "vector";
+    public static final String NESTED_ARRAYS = "nestedArrays";
+
+    public static final Instant START_TIME = Instant.parse("2024-01-01T00:00:00Z");
+
+    private static final String TIME_FIELD = """
+            {
+              "type": "Time",
+              "name": "time",
+              "definition": "http://www.opengis.net/def/property/OGC/0/SamplingTime",
+              "referenceFrame": "http://www.opengis.net/def/trs/BIPM/0/UTC",
+              "uom": {"href": "http://www.opengis.net/def/uom/ISO-8601/0/Gregorian"}
+            }""";
+
+    /**
+     * A weather station: a flat record of scalar measurements.
+     */
+    private static final String SCALAR_RECORD_SCHEMA = """
+            {
+              "type": "DataRecord",
+              "name": "weather",
+              "fields": [
+                %s,
+                {"type": "Quantity", "name": "temperature", "definition": "http://mmisw.org/ont/cf/parameter/air_temperature", "uom": {"code": "Cel"}},
+                {"type": "Quantity", "name": "pressure", "definition": "http://mmisw.org/ont/cf/parameter/air_pressure", "uom": {"code": "hPa"}},
+                {"type": "Quantity", "name": "humidity", "definition": "http://mmisw.org/ont/cf/parameter/relative_humidity", "uom": {"code": "%%"}},
+                {"type": "Quantity", "name": "windSpeed", "definition": "http://mmisw.org/ont/cf/parameter/wind_speed", "uom": {"code": "m/s"}},
+                {"type": "Quantity", "name": "windDirection", "definition": "http://mmisw.org/ont/cf/parameter/wind_from_direction", "uom": {"code": "deg"}}
+              ]
+            }""".formatted(TIME_FIELD);
+
+    /**
+     * A GPS: a location vector.
+     */
+    private static final String VECTOR_SCHEMA = """
+            {
+              "type": "DataRecord",
+              "name": "gps",
+              "fields": [
+                %s,
+                {
+                  "type": "Vector",
+                  "name": "location",
+                  "definition": "http://www.opengis.net/def/property/OGC/0/SensorLocation",
+                  "referenceFrame": "http://www.opengis.net/def/crs/EPSG/0/4979",
+                  "coordinates": [
+                    {"type": "Quantity", "name": "lat", "definition": "http://sensorml.com/ont/swe/property/GeodeticLatitude", "axisID": "Lat", "uom": {"code": "deg"}},
+                    {"type": "Quantity", "name": "lon", "definition": "http://sensorml.com/ont/swe/property/Longitude", "axisID": "Lon", "uom": {"code": "deg"}},
+                    {"type": "Quantity", "name": "alt", "definition": "http://sensorml.com/ont/swe/property/HeightAboveEllipsoid", "axisID": "h", "uom": {"code": "m"}}
+                  ]
+                }
+              ]
+            }""".formatted(TIME_FIELD);
+
+    /**
+     * A profiler: an array of depth samples, each with an array of spectral intensities.
+     */
+    private static final String NESTED_ARRAYS_SCHEMA = """
+            {
+              "type": "DataRecord",
+              "name": "profile",
+              "fields": [
+                %s,
+                {
+                  "type": "DataArray",
+                  "name": "samples",
+                  "elementCount": {"type": "Count", "value": 16},
+                  "elementType": {
+                    "type": "DataRecord",
+                    "name": "sample",
+                    "fields": [
+                      {"type": "Quantity", "name": "depth", "definition": "http://mmisw.org/ont/cf/parameter/depth", "uom": {"code": "m"}},
+                      {
+                        "type": "DataArray",
+                        "name": "spectrum",
+                        "elementCount": {"type": "Count", "value": 8},
+                        "elementType": {"type": "Quantity", "name": "intensity", "definition": "http://mmisw.org/ont/cf/parameter/radiance", "uom": {"code": "W.m-2.sr-1"}}
+                      }
+                    ]
+                  }
+                }
+              ]
+            }""".formatted(TIME_FIELD);
+
+    private Fixtures() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Get the JSON encoding of a result schema.
+     *
+     * @param name One of {@link #SCALAR_RECORD}, {@link #VECTOR}, or {@link #NESTED_ARRAYS}.
+     */
+    public static String schemaJson(String name) {
+        return switch (name) {
+            case SCALAR_RECORD -> SCALAR_RECORD_SCHEMA;
+            case VECTOR -> VECTOR_SCHEMA;
+            case NESTED_ARRAYS -> NESTED_ARRAYS_SCHEMA;
+            default -> throw new IllegalArgumentException("Unknown schema: " + name);
+        };
+    }
+
+    /**
+     * Parse a result schema the way the client does when it reads a datastream.
+     */
+    public static DataComponent schema(String name) {
+        return GsonFactory.gson.fromJson(schemaJson(name), DataComponent.class);
+    }
+
+    /**
+     * Create a data block of the given schema filled with distinct values.
+     */
+    public static DataBlock sampleBlock(DataComponent schema, int seed) {
+        DataBlock dataBlock = schema.createDataBlock();
+        for (int i = 0; i < dataBlock.getAtomCount(); i++) {
+            dataBlock.setDoubleValue(i, seed + i * 0.25);
+        }
+        return dataBlock;
+    }
+
+    /**
+     * Create a page of observations as returned by the observations endpoints.
+     *
+     * @param schema   The result schema of the observations.
+     * @param pageSize The number of observations in the page.
+     * @return The JSON response body.
+     */
+    public static String observationPage(DataComponent schema, int pageSize) {
+        Gson gson = GsonFactory.createGson(schema);
+        JsonArray items = new JsonArray();
+        for (int i = 0; i < pageSize; i++) {
+            ObservationResource observation = new ObservationResource.Builder()
+                    .setId("obs" + i)
+                    .setDataStreamId("ds1")
+                    .setPhenomenonTime(START_TIME.plusSeconds(i))
+                    .setResultTime(START_TIME.plusSeconds(i))
+                    .setResult(sampleBlock(schema, i))
+                    .build();
+            items.add(gson.toJsonTree(observation));
+        }
+
+        JsonObject page = new JsonObject();
+        page.add("items", items);
+        return gson.toJson(page);
+    }
+}
@@ -0,0 +1,221 @@
+package org.connectedsystems.benchmarks.alloc;
+
+import com.google.gson.Gson;
+import net.opengis.swe.v20.DataBlock;
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.GsonFactory;
+import org.connectedsystems.benchmarks.Fixtures;
+import org.connectedsystems.benchmarks.load.LoadDriver;
+import org.connectedsystems.datamodels.ObservationResource;
+import org.connectedsystems.net.APIResponse;
+import org.connectedsystems.serialization.DataBlockSerializer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks the bytes allocated per observation on the decode and encode paths of the client against explicit budgets,
+ * so allocation regressions fail the build rather than show up as GC pressure in production.
+ * <p>
+ * Each workload is run on the current thread, first to warm up the JIT, then for several measured rounds;
+ * the bytes allocated by the thread are read from {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}
+ * and the lowest round is kept, to discount one-off allocations such as class loading and deoptimization.
+ * Budgets are per observation and have some headroom over the measured values;
+ * when a change legitimately allocates more or less, update the budget along with it.
+ * <p>
+ * The check runs as part of the tests of the benchmarks, see {@link #run()}.
+ * Run on its own, it exits with status 1 if any workload exceeds its budget. Options are given as key=value arguments:
+ * <ul>
+ *     <li>pageSize: the number of observations in a decoded page (default: 1000)</li>
+ *     <li>warmup: the number of warm-up runs of each workload (default: 200)</li>
+ *     <li>rounds: the number of measured rounds of each workload (default: 5)</li>
+ *     <li>runs: the number of runs of each workload per measured round (default: 100)</li>
+ * </ul>
+ */
+public class AllocationBudgetCheck {
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    public static final int DEFAULT_WARMUP_RUNS = 200;
+    public static final int DEFAULT_ROUNDS = 5;
+    public static final int DEFAULT_RUNS_PER_ROUND = 100;
+
+    private static final String[] SCHEMAS = {Fixtures.SCALAR_RECORD, Fixtures.VECTOR, Fixtures.NESTED_ARRAYS};
+
+    /**
+     * Keeps the results of the workloads reachable, so that the JIT cannot elide their allocations.
+     */
+    private static volatile Object sink;
+
+    private final int pageSize;
+    private final int warmupRuns;
+    private final int rounds;
+    private final int runsPerRound;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    public AllocationBudgetCheck() {
+        this(DEFAULT_PAGE_SIZE, DEFAULT_WARMUP_RUNS, DEFAULT_ROUNDS, DEFAULT_RUNS_PER_ROUND);
+    }
+
+    public AllocationBudgetCheck(int pageSize, int warmupRuns, int rounds, int runsPerRound) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean)
+                || !bean.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("This JVM does not report the memory allocated by threads");
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+        this.threadMXBean = bean;
+        this.pageSize = pageSize;
+        this.warmupRuns = warmupRuns;
+        this.rounds = rounds;
+        this.runsPerRound = runsPerRound;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = LoadDriver.parseOptions(args);
+        AllocationBudgetCheck check = new AllocationBudgetCheck(
+                Integer.parseInt(options.getOrDefault("pageSize", String.valueOf(DEFAULT_PAGE_SIZE))),
+                Integer.parseInt(options.getOrDefault("warmup", String.valueOf(DEFAULT_WARMUP_RUNS))),
+                Integer.parseInt(options.getOrDefault("rounds", String.valueOf(DEFAULT_ROUNDS))),
+                Integer.parseInt(options.getOrDefault("runs", String.valueOf(DEFAULT_RUNS_PER_ROUND))));
+
+        long failures = check.run().stream().filter(result -> !result.isWithinBudget()).count();
+        if (failures > 0) {
+            System.out.printf("%d workload(s) over their allocation budget%n", failures);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Measure every workload and print its allocation next to its budget.
+     *
+     * @return The measured allocation of each workload, in order.
+     */
+    public List<Result> run() throws IOException {
+        List<Result> results = new ArrayList<>();
+        for (Budget budget : budgets()) {
+            Result result = new Result(budget.name(), measure(budget.workload()), budget.bytesPerObservation());
+            System.out.println(result);
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * The workloads and their budgets, in bytes allocated per observation.
+     */
+    List<Budget> budgets() {
+        List<Budget> budgets = new ArrayList<>();
+        for (String schema : SCHEMAS) {
+            boolean nested = schema.equals(Fixtures.NESTED_ARRAYS);
+            budgets.add(new Budget("decodePage/" + schema, nested ? 16384 : 4096, decodePage(schema)));
+            budgets.add(new Budget("decodeResult/" + schema, nested ? 8192 : 1024, decodeResult(schema)));
+            budgets.add(new Budget("encodeObservation/" + schema, nested ? 65536 : 32768, encodeObservation(schema)));
+        }
+        return budgets;
+    }
+
+    /**
+     * Decoding a page of observations into an {@link APIResponse}, as the observations endpoints do.
+     * The page is decoded sequentially whatever its size, since the allocations of the fork-join workers
+     * of parallel decoding would not be counted against the current thread.
+     */
+    private Workload decodePage(String schema) {
+        DataComponent resultSchema = Fixtures.schema(schema);
+        Gson gson = GsonFactory.createGson(resultSchema);
+        String responseBody = Fixtures.observationPage(resultSchema, pageSize);
+        return () -> {
+            sink = new APIResponse<>(ObservationResource.class, 200, "OK", responseBody, Map.of(), gson,
+                    false, Integer.MAX_VALUE);
+            return pageSize;
+        };
+    }
+
+    /**
+     * Decoding the result of a single observation with {@link DataBlockSerializer}.
+     */
+    private static Workload decodeResult(String schema) {
+        DataComponent resultSchema = Fixtures.schema(schema);
+        DataBlockSerializer serializer = new DataBlockSerializer(resultSchema);
+        String json = serializer.toJson(Fixtures.sampleBlock(resultSchema, 1));
+        return () -> {
+            sink = serializer.fromJson(json);
+            return 1;
+        };
+    }
+
+    /**
+     * Encoding the request body of {@link org.connectedsystems.ObservationsAPI#createObservation}, the way it does.
+     */
+    private static Workload encodeObservation(String schema) {
+        DataComponent resultSchema = Fixtures.schema(schema);
+        DataBlock result = Fixtures.sampleBlock(resultSchema, 1);
+        ObservationResource observation = new ObservationResource.Builder()
+                .setPhenomenonTime(Fixtures.START_TIME)
+                .setResultTime(Fixtures.START_TIME)
+                .setResult(result)
+                .build();
+        return () -> {
+            sink = GsonFactory.createGson(resultSchema).toJson(observation);
+            return 1;
+        };
+    }
+
+    /**
+     * Measure the bytes allocated per observation by a workload on the current thread.
+     */
+    double measure(Workload workload) throws IOException {
+        for (int i = 0; i < warmupRuns; i++) {
+            workload.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        double lowest = Double.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long observations = 0;
+            long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < runsPerRound; i++) {
+                observations += workload.run();
+            }
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+            lowest = Math.min(lowest, (double) allocated / observations);
+        }
+        sink = null;
+        return lowest;
+    }
+
+    /**
+     * The measured allocation of a workload.
+     *
+     * @param name                The name of the workload, e.g., "decodePage/scalarRecord".
+     * @param bytesPerObservation The bytes allocated per observation.
+     * @param budget              The most the workload may allocate per observation.
+     */
+    public record Result(String name, double bytesPerObservation, long budget) {
+        public boolean isWithinBudget() {
+            return bytesPerObservation <= budget;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-32s %10.0f B/observation   budget %8d B   %s",
+                    name, bytesPerObservation, budget, isWithinBudget() ? "OK" : "OVER BUDGET");
+        }
+    }
+
+    /**
+     * A workload and the most it may allocate per observation.
+     */
+    record Budget(String name, long bytesPerObservation, Workload workload) {
+    }
+
+    @FunctionalInterface
+    interface Workload {
+        /**
+         * Run the workload once.
+         *
+         * @return The number of observations decoded or encoded.
+         */
+        long run() throws IOException;
+    }
+}
@@ -0,0 +1,143 @@
+package org.connectedsystems.benchmarks.generator;
+
+import net.opengis.swe.v20.DataBlock;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * How the values of a scalar component of a result schema evolve from one observation to the next.
+ * <p>
+ * A distribution creates one {@link Sampler} per value of the data block, so that, e.g.,
+ * every element of an array follows its own random walk.
+ */
+@FunctionalInterface
+public interface Distribution {
+    /**
+     * Create the sampler of a single value of the data block.
+     *
+     * @param random The random number generator to use, owned by the {@link ObservationGenerator}.
+     * @return The sampler.
+     */
+    Sampler create(SplittableRandom random);
+
+    /**
+     * Writes the successive values of a single atom of a data block.
+     * Samplers are called from a single thread and must not allocate.
+     */
+    @FunctionalInterface
+    interface Sampler {
+        /**
+         * Write the next value.
+         *
+         * @param dataBlock   The data block to fill.
+         * @param index       The index of the value in the data block.
+         * @param timeSeconds The time of the observation, in seconds since the epoch.
+         */
+        void next(DataBlock dataBlock, int index, double timeSeconds);
+    }
+
+    /**
+     * A random walk with normally distributed steps, reflected at the bounds.
+     *
+     * @param start The first value.
+     * @param step  The standard deviation of a step.
+     * @param min   The lowest value.
+     * @param max   The highest value.
+     */
+    static Distribution randomWalk(double start, double step, double min, double max) {
+        if (!(min <= start && start <= max)) {
+            throw new IllegalArgumentException("start must be between min and max");
+        }
+        return random -> new Sampler() {
+            private double value = start;
+
+            @Override
+            public void next(DataBlock dataBlock, int index, double timeSeconds) {
+                value += random.nextGaussian() * step;
+                if (value > max) value = Math.max(min, 2 * max - value);
+                if (value < min) value = Math.min(max, 2 * min - value);
+                dataBlock.setDoubleValue(index, value);
+            }
+        };
+    }
+
+    /**
+     * A sine wave of the observation time, e.g., a daily temperature cycle, with normally distributed noise.
+     * Each value gets a random phase, so the elements of an array are not in sync.
+     *
+     * @param mean      The mean value.
+     * @param amplitude The amplitude of the wave.
+     * @param period    The period of the wave.
+     * @param noise     The standard deviation of the noise, 0 for none.
+     */
+    static Distribution sine(double mean, double amplitude, Duration period, double noise) {
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        double angularFrequency = 2 * Math.PI / (period.toNanos() / 1e9);
+        return random -> {
+            double phase = random.nextDouble() * 2 * Math.PI;
+            return (dataBlock, index, timeSeconds) -> dataBlock.setDoubleValue(index,
+                    mean + amplitude * Math.sin(angularFrequency * timeSeconds + phase) + (noise > 0 ? random.nextGaussian() * noise : 0));
+        };
+    }
+
+    /**
+     * A choice among a fixed set of values, e.g., the tokens of a category.
+     *
+     * @param values  The values to choose from.
+     * @param weights The relative frequency of each value, or null for equally frequent values.
+     */
+    static Distribution categorical(List<String> values, double[] weights) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("values cannot be empty");
+        }
+        if (weights != null && weights.length != values.size()) {
+            throw new IllegalArgumentException("There must be one weight per value");
+        }
+
+        String[] choices = values.toArray(new String[0]);
+        double[] cumulative = new double[choices.length];
+        double total = 0;
+        for (int i = 0; i < choices.length; i++) {
+            double weight = weights != null ? weights[i] : 1;
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("Weights cannot be negative");
+            }
+            total += weight;
+            cumulative[i] = total;
+        }
+        if (!(total > 0)) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+        double totalWeight = total;
+
+        return random -> (dataBlock, index, timeSeconds) -> {
+            double pick = random.nextDouble() * totalWeight;
+            int i = 0;
+            while (i < choices.length - 1 && pick >= cumulative[i]) i++;
+            dataBlock.setStringValue(index, choices[i]);
+        };
+    }
+
+    /**
+     * A boolean that is true with the given probability.
+     *
+     * @param probability The probability of true, between 0 and 1.
+     */
+    static Distribution bernoulli(double probability) {
+        if (!(probability >= 0 && probability <= 1)) {
+            throw new IllegalArgumentException("probability must be between 0 and 1");
+        }
+        return random -> (dataBlock, index, timeSeconds) -> dataBlock.setBooleanValue(index, random.nextDouble() < probability);
+    }
+
+    /**
+     * The time of the observation, including its jitter, as used for time stamps.
+     */
+    static Distribution timestamp() {
+        return random -> (dataBlock, index, timeSeconds) -> dataBlock.setDoubleValue(index, timeSeconds);
+    }
+}
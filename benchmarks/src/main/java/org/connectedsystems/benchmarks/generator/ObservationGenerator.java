@@ -0,0 +1,251 @@
+package org.connectedsystems.benchmarks.generator;
+
+import net.opengis.swe.v20.Boolean;
+import net.opengis.swe.v20.Category;
+import net.opengis.swe.v20.Count;
+import net.opengis.swe.v20.DataArray;
+import net.opengis.swe.v20.DataBlock;
+import net.opengis.swe.v20.DataChoice;
+import net.opengis.swe.v20.DataComponent;
+import net.opengis.swe.v20.ScalarComponent;
+import net.opengis.swe.v20.Text;
+import net.opengis.swe.v20.Time;
+import org.connectedsystems.datamodels.ObservationResource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a stream of realistic observation results for a result schema, e.g., from
+ * {@link org.connectedsystems.datamodels.ObservationSchema#getResultSchema()}, to drive ingestion benchmarks without sensors.
+ * <p>
+ * Observations are sampled at a fixed period from a start time, each with a random jitter,
+ * and every scalar value of the result follows a {@link Distribution}. Unless set by component name, the distribution is:
+ * <ul>
+ *     <li>Time: the time of the observation</li>
+ *     <li>Quantity: a random walk between -1000 and 1000</li>
+ *     <li>Count: a random walk between 0 and 1000, truncated to integers</li>
+ *     <li>Boolean: true one time out of two</li>
+ *     <li>Category: one of its allowed tokens, or of a few generic tokens if it has none</li>
+ *     <li>Text: one of a few fixed strings</li>
+ * </ul>
+ * {@link #next(DataBlock)} fills a data block in place without allocating, so a single block can be reused
+ * to produce results as fast as a benchmark can consume them. Results are reproducible for a given seed.
+ * A generator is not thread-safe; use one per thread, with different seeds.
+ * Fixed-size arrays are supported, variable-size arrays and choices are not.
+ */
+public class ObservationGenerator {
+    private static final List<String> DEFAULT_TOKENS = List.of("low", "medium", "high", "critical");
+    private static final List<String> DEFAULT_TEXTS = List.of("nominal", "degraded", "maintenance", "offline");
+
+    private final DataComponent resultSchema;
+    private final Distribution.Sampler[] samplers;
+    private final SplittableRandom random;
+    private final double startSeconds;
+    private final double periodSeconds;
+    private final double jitterSeconds;
+    private long count;
+    private double timeSeconds;
+
+    private ObservationGenerator(Builder builder) {
+        this.resultSchema = builder.resultSchema;
+        this.random = new SplittableRandom(builder.seed);
+        this.startSeconds = builder.startTime.getEpochSecond() + builder.startTime.getNano() / 1e9;
+        this.periodSeconds = builder.samplingPeriod.toNanos() / 1e9;
+        this.jitterSeconds = builder.timeJitter.toNanos() / 1e9;
+
+        List<Distribution.Sampler> samplers = new ArrayList<>();
+        addSamplers(resultSchema, builder.distributions, samplers);
+        this.samplers = samplers.toArray(new Distribution.Sampler[0]);
+
+        int atomCount = resultSchema.createDataBlock().getAtomCount();
+        if (atomCount != this.samplers.length) {
+            throw new IllegalArgumentException("Result schema has " + atomCount + " values, but "
+                    + this.samplers.length + " could be generated from its components");
+        }
+    }
+
+    /**
+     * Walk the schema in the order of the values of its data blocks, creating a sampler for each.
+     */
+    private void addSamplers(DataComponent component, Map<String, Distribution> distributions, List<Distribution.Sampler> samplers) {
+        if (component instanceof DataArray array) {
+            if (array.isVariableSize()) {
+                throw new IllegalArgumentException("Variable-size array " + array.getName() + " is not supported");
+            }
+            for (int i = 0; i < array.getComputedSize(); i++) {
+                addSamplers(array.getElementType(), distributions, samplers);
+            }
+        } else if (component instanceof DataChoice) {
+            throw new IllegalArgumentException("Choice " + component.getName() + " is not supported");
+        } else if (component instanceof ScalarComponent scalar) {
+            Distribution distribution = distributions.get(scalar.getName());
+            samplers.add((distribution != null ? distribution : defaultDistribution(scalar)).create(random));
+        } else {
+            for (int i = 0; i < component.getComponentCount(); i++) {
+                addSamplers(component.getComponent(i), distributions, samplers);
+            }
+        }
+    }
+
+    private static Distribution defaultDistribution(ScalarComponent scalar) {
+        if (scalar instanceof Time) {
+            return Distribution.timestamp();
+        } else if (scalar instanceof Count) {
+            return Distribution.randomWalk(500, 5, 0, 1000);
+        } else if (scalar instanceof Boolean) {
+            return Distribution.bernoulli(0.5);
+        } else if (scalar instanceof Category category) {
+            boolean hasTokens = category.getConstraint() != null
+                    && category.getConstraint().getValueList() != null
+                    && !category.getConstraint().getValueList().isEmpty();
+            return Distribution.categorical(hasTokens ? category.getConstraint().getValueList() : DEFAULT_TOKENS, null);
+        } else if (scalar instanceof Text) {
+            return Distribution.categorical(DEFAULT_TEXTS, null);
+        } else {
+            return Distribution.randomWalk(0, 1, -1000, 1000);
+        }
+    }
+
+    /**
+     * Generate the next observation result into the given data block.
+     *
+     * @param dataBlock A data block of the result schema, e.g., from a previous call.
+     * @return The data block.
+     */
+    public DataBlock next(DataBlock dataBlock) {
+        timeSeconds = startSeconds + count * periodSeconds;
+        if (jitterSeconds > 0) {
+            timeSeconds += (random.nextDouble() * 2 - 1) * jitterSeconds;
+        }
+        count++;
+
+        for (int i = 0; i < samplers.length; i++) {
+            samplers[i].next(dataBlock, i, timeSeconds);
+        }
+        return dataBlock;
+    }
+
+    /**
+     * Generate the next observation result into a new data block.
+     */
+    public DataBlock next() {
+        return next(resultSchema.createDataBlock());
+    }
+
+    /**
+     * Generate the next observation, with the result time equal to the phenomenon time.
+     */
+    public ObservationResource nextObservation() {
+        DataBlock result = next();
+        Instant time = getTime();
+        return new ObservationResource.Builder()
+                .setPhenomenonTime(time)
+                .setResultTime(time)
+                .setResult(result)
+                .build();
+    }
+
+    /**
+     * The time of the last generated observation, in seconds since the epoch.
+     */
+    public double getTimeSeconds() {
+        return timeSeconds;
+    }
+
+    /**
+     * The time of the last generated observation.
+     */
+    public Instant getTime() {
+        long seconds = (long) Math.floor(timeSeconds);
+        return Instant.ofEpochSecond(seconds, Math.round((timeSeconds - seconds) * 1e9));
+    }
+
+    /**
+     * The number of observations generated so far.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public DataComponent getResultSchema() {
+        return resultSchema;
+    }
+
+    /**
+     * Builder class for constructing ObservationGenerator objects.
+     */
+    public static class Builder {
+        private final DataComponent resultSchema;
+        private final Map<String, Distribution> distributions = new HashMap<>();
+        private Instant startTime = Instant.now();
+        private Duration samplingPeriod = Duration.ofSeconds(1);
+        private Duration timeJitter = Duration.ZERO;
+        private long seed = 42;
+
+        /**
+         * @param resultSchema The schema of the observation results.
+         */
+        public Builder(DataComponent resultSchema) {
+            if (resultSchema == null) {
+                throw new IllegalArgumentException("resultSchema cannot be null");
+            }
+            this.resultSchema = resultSchema;
+        }
+
+        /**
+         * Set the time of the first observation (default: now).
+         */
+        public Builder setStartTime(Instant startTime) {
+            this.startTime = startTime;
+            return this;
+        }
+
+        /**
+         * Set the time between two observations, i.e., the inverse of the sampling rate (default: 1 second).
+         */
+        public Builder setSamplingPeriod(Duration samplingPeriod) {
+            if (samplingPeriod.isNegative() || samplingPeriod.isZero()) {
+                throw new IllegalArgumentException("samplingPeriod must be positive");
+            }
+            this.samplingPeriod = samplingPeriod;
+            return this;
+        }
+
+        /**
+         * Set the largest offset of an observation time from its period, drawn uniformly in both directions (default: none).
+         */
+        public Builder setTimeJitter(Duration timeJitter) {
+            if (timeJitter.isNegative()) {
+                throw new IllegalArgumentException("timeJitter cannot be negative");
+            }
+            this.timeJitter = timeJitter;
+            return this;
+        }
+
+        /**
+         * Set the seed of the random values (default: 42).
+         */
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Set the distribution of the scalar components with the given name, instead of the default of their type.
+         */
+        public Builder setDistribution(String componentName, Distribution distribution) {
+            distributions.put(componentName, distribution);
+            return this;
+        }
+
+        public ObservationGenerator build() {
+            return new ObservationGenerator(this);
+        }
+    }
+}
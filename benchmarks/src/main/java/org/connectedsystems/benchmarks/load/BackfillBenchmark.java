@@ -0,0 +1,122 @@
+package org.connectedsystems.benchmarks.load;
+
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.ConnectedSystemsAPI;
+import org.connectedsystems.benchmarks.Fixtures;
+import org.connectedsystems.benchmarks.server.MockConnectedSystemsServer;
+import org.connectedsystems.datamodels.ObservationResource;
+import org.connectedsystems.net.APIResponse;
+import org.connectedsystems.net.PagedResponse;
+import org.connectedsystems.util.ObservationsOfDataStreamQueryBuilder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to read every observation of a datastream page by page, as a backfill job does,
+ * with and without transferring the next pages while the current one is decoded and processed.
+ * <p>
+ * Each configuration reads the whole datastream from a {@link MockConnectedSystemsServer} with
+ * {@link org.connectedsystems.ObservationsAPI#getAllObservationsOfDataStream(String, DataComponent, ObservationsOfDataStreamQueryBuilder, int)},
+ * prefetching 0 pages (fetch, then decode and process, one page after the other), then 1, 2, and 4 pages.
+ * Options are given as key=value arguments:
+ * <ul>
+ *     <li>observations: the number of observations of the datastream (default: 100000)</li>
+ *     <li>pageSize: the number of observations per page (default: 1000)</li>
+ *     <li>schema: the result schema, scalarRecord, vector, or nestedArrays (default: scalarRecord)</li>
+ *     <li>latency, jitter: the server processing time of each page, in milliseconds (default: 20 and 5)</li>
+ *     <li>work: the processing time of each observation by the consumer, in microseconds (default: 10)</li>
+ *     <li>runs: the number of measured reads of each configuration, after one unmeasured read (default: 3)</li>
+ * </ul>
+ */
+public class BackfillBenchmark {
+    private static final int[] PREFETCH_PAGES = {0, 1, 2, 4};
+
+    private final Map<String, String> options;
+
+    public BackfillBenchmark(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new BackfillBenchmark(LoadDriver.parseOptions(args)).run();
+    }
+
+    public void run() throws Exception {
+        int observations = intOption("observations", 100_000);
+        int pageSize = intOption("pageSize", 1000);
+        long workNanos = TimeUnit.MICROSECONDS.toNanos(intOption("work", 10));
+        int runs = intOption("runs", 3);
+        DataComponent resultSchema = Fixtures.schema(options.getOrDefault("schema", Fixtures.SCALAR_RECORD));
+
+        try (MockConnectedSystemsServer server = new MockConnectedSystemsServer.Builder()
+                .setResultSchema(resultSchema)
+                .setDefaultPageSize(pageSize)
+                .setObservationsPerDataStream(observations)
+                .setLatency(Duration.ofMillis(intOption("latency", 20)), Duration.ofMillis(intOption("jitter", 5)))
+                .build()
+                .start();
+             ConnectedSystemsAPI api = new ConnectedSystemsAPI(server.getApiRoot(), "user", "password")) {
+            String dataStreamId = server.getDataStreamId(0);
+            DataComponent schema = api.getDataStreamsAPI().getObservationSchema(dataStreamId).getItem().getResultSchema();
+            ObservationsOfDataStreamQueryBuilder query = new ObservationsOfDataStreamQueryBuilder();
+            query.limit(pageSize);
+
+            System.out.printf("Backfill of %d observations in pages of %d, %s schema%n",
+                    observations, pageSize, options.getOrDefault("schema", Fixtures.SCALAR_RECORD));
+            for (int prefetchPages : PREFETCH_PAGES) {
+                backfill(api, dataStreamId, schema, query, prefetchPages, workNanos);
+                long best = Long.MAX_VALUE;
+                long count = 0;
+                for (int i = 0; i < runs; i++) {
+                    long start = System.nanoTime();
+                    count = backfill(api, dataStreamId, schema, query, prefetchPages, workNanos);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                System.out.printf("prefetch %d pages: %8.1f ms   %10.0f obs/s   (%d observations)%n",
+                        prefetchPages, best / 1e6, count / (best / 1e9), count);
+            }
+        }
+    }
+
+    /**
+     * Read all the observations of the datastream, spending the given time on each of them.
+     *
+     * @return The number of observations read.
+     */
+    private static long backfill(ConnectedSystemsAPI api, String dataStreamId, DataComponent schema,
+                                 ObservationsOfDataStreamQueryBuilder query, int prefetchPages, long workNanos) {
+        long count = 0;
+        try (PagedResponse<ObservationResource> pages = api.getObservationsAPI().getAllObservationsOfDataStream(dataStreamId, schema, query, prefetchPages)) {
+            for (APIResponse<ObservationResource> page : pages) {
+                if (!page.isSuccessful()) {
+                    throw new IllegalStateException("Page failed with " + page.getResponseCode());
+                }
+                for (ObservationResource observation : page.getItems()) {
+                    if (observation.getResult() == null) {
+                        throw new IllegalStateException("Observation without a result: " + observation.getId());
+                    }
+                    work(workNanos);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Simulate the processing of an observation, e.g., writing it to a database.
+     */
+    private static void work(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private int intOption(String key, int defaultValue) {
+        String value = options.get(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -0,0 +1,211 @@
+package org.connectedsystems.benchmarks.load;
+
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.ConnectedSystemsAPI;
+import org.connectedsystems.benchmarks.Fixtures;
+import org.connectedsystems.benchmarks.generator.ObservationGenerator;
+import org.connectedsystems.benchmarks.server.MockConnectedSystemsServer;
+import org.connectedsystems.metrics.Histogram;
+import org.connectedsystems.metrics.InMemoryRequestMetrics;
+import org.connectedsystems.net.APIResponse;
+import org.connectedsystems.util.ObservationsOfDataStreamQueryBuilder;
+import org.connectedsystems.util.ObservationsQueryBuilder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the real client stack against a {@link MockConnectedSystemsServer} and reports throughput and latency percentiles.
+ * <p>
+ * Each scenario is run by a fixed number of threads that send requests back to back (closed loop),
+ * which measures the throughput the client can sustain; see {@link OpenLoopBenchmark} for latencies under a given load.
+ * Options are given as key=value arguments:
+ * <ul>
+ *     <li>threads: the number of threads sending requests (default: 16)</li>
+ *     <li>duration: the measured time of each scenario, in seconds (default: 20)</li>
+ *     <li>warmup: the unmeasured time before each scenario, in seconds (default: 5)</li>
+ *     <li>schema: the result schema, scalarRecord, vector, or nestedArrays (default: scalarRecord)</li>
+ *     <li>pageSize: the number of observations per page (default: 100)</li>
+ *     <li>latency, jitter: the server processing time, in milliseconds (default: 2 and 3)</li>
+ *     <li>errorRate: the fraction of requests the server fails (default: 0)</li>
+ *     <li>maxConcurrent: the number of requests the server processes at once before throttling (default: unlimited)</li>
+ * </ul>
+ */
+public class LoadDriver {
+    private final Map<String, String> options;
+
+    public LoadDriver(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadDriver(parseOptions(args)).run();
+    }
+
+    public void run() throws Exception {
+        int threads = intOption("threads", 16);
+        Duration duration = Duration.ofSeconds(intOption("duration", 20));
+        Duration warmup = Duration.ofSeconds(intOption("warmup", 5));
+        int pageSize = intOption("pageSize", 100);
+        DataComponent resultSchema = Fixtures.schema(options.getOrDefault("schema", Fixtures.SCALAR_RECORD));
+
+        try (MockConnectedSystemsServer server = new MockConnectedSystemsServer.Builder()
+                .setResultSchema(resultSchema)
+                .setDefaultPageSize(pageSize)
+                .setLatency(Duration.ofMillis(intOption("latency", 2)), Duration.ofMillis(intOption("jitter", 3)))
+                .setErrorRate(Double.parseDouble(options.getOrDefault("errorRate", "0")))
+                .setMaxConcurrentRequests(intOption("maxConcurrent", 0))
+                .build()
+                .start();
+             ConnectedSystemsAPI api = new ConnectedSystemsAPI(server.getApiRoot(), "user", "password")) {
+            InMemoryRequestMetrics metrics = new InMemoryRequestMetrics();
+            api.setMetricsListener(metrics);
+
+            List<Scenario> scenarios = scenarios(api, server, pageSize);
+            System.out.printf("Load test against %s: %d threads, %s per scenario, %s schema%n",
+                    server.getApiRoot(), threads, duration, options.getOrDefault("schema", Fixtures.SCALAR_RECORD));
+            for (Scenario scenario : scenarios) {
+                run(scenario, threads, warmup);
+                metrics.reset();
+                Result result = run(scenario, threads, duration);
+                System.out.println(result);
+            }
+            System.out.printf("Server: %d requests, %d throttled, %d failed%n",
+                    server.getRequestCount(), server.getThrottledCount(), server.getErrorCount());
+            System.out.println("Client metrics of the last scenario:");
+            System.out.print(metrics);
+        }
+    }
+
+    /**
+     * The operations of the client exercised by the load test.
+     */
+    static List<Scenario> scenarios(ConnectedSystemsAPI api, MockConnectedSystemsServer server, int pageSize) throws IOException {
+        DataComponent resultSchema = api.getDataStreamsAPI().getObservationSchema(server.getDataStreamId(0)).getItem().getResultSchema();
+        ObservationsOfDataStreamQueryBuilder query = new ObservationsOfDataStreamQueryBuilder();
+        query.limit(pageSize);
+        AtomicLong seeds = new AtomicLong();
+
+        List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(new Scenario("getSystems", () -> api.getSystemsAPI().getSystems()));
+        scenarios.add(new Scenario("getDataStreams", () -> api.getDataStreamsAPI().getDataStreams()));
+        scenarios.add(new Scenario("getObservationSchema", () -> api.getDataStreamsAPI().getObservationSchema(randomDataStream(server))));
+        scenarios.add(new Scenario("getObservationsOfDataStream", () ->
+                api.getObservationsAPI().getObservationsOfDataStream(randomDataStream(server), resultSchema, query)));
+        ObservationsQueryBuilder observationsQuery = new ObservationsQueryBuilder();
+        observationsQuery.limit(pageSize);
+        scenarios.add(new Scenario("getObservationsOfDataStreams", () ->
+                api.getObservationsAPI().getObservationsOfDataStreams(observationsQuery)));
+        // Generators are not thread-safe, each thread gets its own with a different seed
+        ThreadLocal<ObservationGenerator> generators = ThreadLocal.withInitial(() -> new ObservationGenerator.Builder(resultSchema)
+                .setSeed(seeds.incrementAndGet())
+                .setTimeJitter(Duration.ofMillis(100))
+                .build());
+        scenarios.add(new Scenario("createObservation", () ->
+                api.getObservationsAPI().createObservation(randomDataStream(server), generators.get().nextObservation(), resultSchema)));
+        return scenarios;
+    }
+
+    private static String randomDataStream(MockConnectedSystemsServer server) {
+        return server.getDataStreamId(ThreadLocalRandom.current().nextInt(server.getDataStreamCount()));
+    }
+
+    /**
+     * Run a scenario on the given number of threads, each sending requests back to back until the time is up.
+     */
+    static Result run(Scenario scenario, int threads, Duration duration) throws Exception {
+        Histogram latencies = new Histogram();
+        AtomicLong errors = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        long requestStart = System.nanoTime();
+                        try {
+                            if (!scenario.operation().run().isSuccessful()) errors.incrementAndGet();
+                        } catch (IOException | RuntimeException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.record(System.nanoTime() - requestStart);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Result(scenario.name(), latencies, errors.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * Parse the key=value arguments of a benchmark.
+     */
+    public static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private int intOption(String key, int defaultValue) {
+        String value = options.get(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    /**
+     * A client operation to put under load.
+     */
+    record Scenario(String name, Operation operation) {
+    }
+
+    @FunctionalInterface
+    interface Operation {
+        APIResponse<?> run() throws IOException;
+    }
+
+    /**
+     * The throughput and latencies of a scenario.
+     */
+    record Result(String name, Histogram latencies, long errors, long elapsedNanos) {
+        double throughput() {
+            return latencies.getCount() / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %10.1f req/s   p50 %8.2f ms   p99 %8.2f ms   p99.9 %8.2f ms   max %8.2f ms   errors %d",
+                    name, throughput(),
+                    millis(latencies.getValueAtPercentile(50)),
+                    millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMax()),
+                    errors);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
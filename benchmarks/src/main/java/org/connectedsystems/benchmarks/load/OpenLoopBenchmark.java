@@ -0,0 +1,245 @@
+package org.connectedsystems.benchmarks.load;
+
+import net.opengis.swe.v20.DataComponent;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.connectedsystems.ConnectedSystemsAPI;
+import org.connectedsystems.benchmarks.Fixtures;
+import org.connectedsystems.benchmarks.server.MockConnectedSystemsServer;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures the latency of the client under a fixed request rate (open loop), without coordinated omission.
+ * <p>
+ * Requests are scheduled at fixed intervals, whether or not earlier requests have completed,
+ * and their latency is measured from the time they were scheduled to start rather than the time they actually started.
+ * A closed-loop benchmark, where each thread waits for a response before sending the next request,
+ * sends fewer requests when the client or server slows down and so never records the queueing delay
+ * that real callers would see; this benchmark does.
+ * Latencies are recorded into HdrHistograms, both from the scheduled start (what callers see)
+ * and from the actual start (service time), so the two can be compared.
+ * <p>
+ * Options are given as key=value arguments, in addition to the server options of {@link LoadDriver}:
+ * <ul>
+ *     <li>rate: the number of requests per second (default: 200)</li>
+ *     <li>duration: the measured time, in seconds (default: 60)</li>
+ *     <li>warmup: the unmeasured time before the measurement, at the same rate, in seconds (default: 10)</li>
+ *     <li>mix: the request mix, "catalog" (read-heavy), "ingestion" (write-heavy),
+ *     or a list of weighted scenarios, e.g., "createObservation:80,getObservationsOfDataStream:20" (default: catalog)</li>
+ *     <li>hgrm: a file to write the full percentile distribution of the latencies to, for HdrHistogram plotters</li>
+ * </ul>
+ */
+public class OpenLoopBenchmark {
+    /**
+     * Browsing the catalog: mostly listing resources and reading observations.
+     */
+    public static final String CATALOG_MIX = "getSystems:25,getDataStreams:25,getObservationSchema:20,getObservationsOfDataStream:30";
+    /**
+     * Ingesting sensor data: mostly creating observations, with a few reads to check on them.
+     */
+    public static final String INGESTION_MIX = "createObservation:90,getObservationsOfDataStream:10";
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, String> options;
+
+    public OpenLoopBenchmark(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new OpenLoopBenchmark(LoadDriver.parseOptions(args)).run();
+    }
+
+    public void run() throws Exception {
+        int rate = intOption("rate", 200);
+        Duration duration = Duration.ofSeconds(intOption("duration", 60));
+        Duration warmup = Duration.ofSeconds(intOption("warmup", 10));
+        int pageSize = intOption("pageSize", 100);
+        String mixSpec = switch (options.getOrDefault("mix", "catalog")) {
+            case "catalog" -> CATALOG_MIX;
+            case "ingestion" -> INGESTION_MIX;
+            default -> options.get("mix");
+        };
+        DataComponent resultSchema = Fixtures.schema(options.getOrDefault("schema", Fixtures.SCALAR_RECORD));
+
+        try (MockConnectedSystemsServer server = new MockConnectedSystemsServer.Builder()
+                .setResultSchema(resultSchema)
+                .setDefaultPageSize(pageSize)
+                .setLatency(Duration.ofMillis(intOption("latency", 2)), Duration.ofMillis(intOption("jitter", 3)))
+                .setErrorRate(Double.parseDouble(options.getOrDefault("errorRate", "0")))
+                .setMaxConcurrentRequests(intOption("maxConcurrent", 0))
+                .build()
+                .start();
+             ConnectedSystemsAPI api = new ConnectedSystemsAPI(server.getApiRoot(), "user", "password")) {
+            RequestMix mix = RequestMix.parse(mixSpec, LoadDriver.scenarios(api, server, pageSize));
+
+            System.out.printf("Open-loop benchmark against %s: %d req/s for %s, mix %s%n", server.getApiRoot(), rate, duration, mixSpec);
+            run(mix, rate, warmup);
+            Results results = run(mix, rate, duration);
+            results.print(System.out);
+
+            String hgrm = options.get("hgrm");
+            if (hgrm != null) {
+                try (PrintStream out = new PrintStream(new FileOutputStream(hgrm))) {
+                    results.total.outputPercentileDistribution(out, 1e6);
+                }
+            }
+        }
+    }
+
+    /**
+     * Send requests of the given mix at a fixed rate for the given time, and wait for all of them to complete.
+     */
+    static Results run(RequestMix mix, int rate, Duration duration) throws InterruptedException {
+        Results results = new Results(mix);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long count = duration.toNanos() / intervalNanos;
+        // Never queue requests in the load generator itself, that would hide the delay we want to measure
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "open-loop-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CountDownLatch completed = new CountDownLatch((int) count);
+
+        long start = System.nanoTime();
+        try {
+            for (long i = 0; i < count; i++) {
+                long intendedStart = start + i * intervalNanos;
+                long delay;
+                while ((delay = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+
+                LoadDriver.Scenario scenario = mix.next();
+                executor.execute(() -> {
+                    try {
+                        long actualStart = System.nanoTime();
+                        boolean success;
+                        try {
+                            success = scenario.operation().run().isSuccessful();
+                        } catch (IOException | RuntimeException e) {
+                            success = false;
+                        }
+                        long end = System.nanoTime();
+                        results.record(scenario.name(), end - intendedStart, end - actualStart, success);
+                    } finally {
+                        completed.countDown();
+                    }
+                });
+            }
+            completed.await();
+        } finally {
+            executor.shutdownNow();
+        }
+        results.elapsedNanos = System.nanoTime() - start;
+        return results;
+    }
+
+    private int intOption(String key, int defaultValue) {
+        String value = options.get(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    /**
+     * A weighted random choice of scenarios.
+     */
+    static class RequestMix {
+        private final List<LoadDriver.Scenario> scenarios = new ArrayList<>();
+        private final List<Integer> cumulativeWeights = new ArrayList<>();
+        private int totalWeight;
+
+        /**
+         * Parse a list of weighted scenarios, e.g., "getSystems:25,getDataStreams:75".
+         */
+        static RequestMix parse(String spec, List<LoadDriver.Scenario> available) {
+            RequestMix mix = new RequestMix();
+            for (String entry : spec.split(",")) {
+                String[] parts = entry.trim().split(":");
+                String name = parts[0];
+                int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+                LoadDriver.Scenario scenario = available.stream()
+                        .filter(candidate -> candidate.name().equals(name))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown scenario: " + name));
+                if (weight <= 0) {
+                    throw new IllegalArgumentException("Weight of " + name + " must be positive");
+                }
+                mix.totalWeight += weight;
+                mix.scenarios.add(scenario);
+                mix.cumulativeWeights.add(mix.totalWeight);
+            }
+            return mix;
+        }
+
+        LoadDriver.Scenario next() {
+            int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+            for (int i = 0; i < scenarios.size(); i++) {
+                if (pick < cumulativeWeights.get(i)) return scenarios.get(i);
+            }
+            throw new IllegalStateException("Unreachable");
+        }
+    }
+
+    /**
+     * The latencies of a run, per scenario and in total.
+     */
+    static class Results {
+        private final Histogram total = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final Histogram totalServiceTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final Map<String, Histogram> byScenario = new LinkedHashMap<>();
+        private final AtomicLong errors = new AtomicLong();
+        private long elapsedNanos;
+
+        Results(RequestMix mix) {
+            for (LoadDriver.Scenario scenario : mix.scenarios) {
+                byScenario.put(scenario.name(), new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+            }
+        }
+
+        void record(String scenario, long latencyNanos, long serviceTimeNanos, boolean success) {
+            total.recordValue(latencyNanos);
+            totalServiceTime.recordValue(serviceTimeNanos);
+            byScenario.get(scenario).recordValue(latencyNanos);
+            if (!success) errors.incrementAndGet();
+        }
+
+        void print(PrintStream out) {
+            out.printf("%d requests in %.1f s (%.1f req/s), %d errors%n",
+                    total.getTotalCount(), elapsedNanos / 1e9, total.getTotalCount() / (elapsedNanos / 1e9), errors.get());
+            out.println(format("latency (from scheduled start)", total));
+            out.println(format("service time (from actual start)", totalServiceTime));
+            byScenario.forEach((name, histogram) -> out.println(format(name, histogram)));
+        }
+
+        private static String format(String name, Histogram histogram) {
+            return String.format("%-34s n=%-8d p50 %8.2f ms   p99 %8.2f ms   p99.9 %8.2f ms   p99.99 %8.2f ms   max %8.2f ms",
+                    name, histogram.getTotalCount(),
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getValueAtPercentile(99.99)),
+                    millis(histogram.getMaxValue()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+}
@@ -0,0 +1,546 @@
+package org.connectedsystems.benchmarks.server;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.GsonFactory;
+import org.connectedsystems.benchmarks.Fixtures;
+import org.connectedsystems.datamodels.DataStreamResource;
+import org.connectedsystems.datamodels.FeatureType;
+import org.connectedsystems.datamodels.ObservationSchema;
+import org.connectedsystems.datamodels.Properties;
+import org.connectedsystems.datamodels.SystemResource;
+import org.connectedsystems.serialization.DataBlockSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An embeddable Connected Systems API server serving synthetic data, for load testing the client on a single machine.
+ * <p>
+ * It implements the systems, subsystems, datastreams, schema, and observations endpoints used by the client,
+ * with a fixed catalog of systems and datastreams that all share the same result schema.
+ * Observations are generated on the fly from that schema; writes are accepted and discarded.
+ * Lists are paged with the limit and offset parameters, and link to their next page while there are more items.
+ * Latency, errors, and throttling can be injected to reproduce a slow or overloaded server:
+ * <pre>{@code
+ * try (MockConnectedSystemsServer server = new MockConnectedSystemsServer.Builder()
+ *         .setResultSchema(schema)
+ *         .setLatency(Duration.ofMillis(5), Duration.ofMillis(10))
+ *         .setErrorRate(0.01)
+ *         .build()
+ *         .start()) {
+ *     ConnectedSystemsAPI api = new ConnectedSystemsAPI(server.getApiRoot(), "user", "password");
+ *     ...
+ * }
+ * }</pre>
+ */
+public class MockConnectedSystemsServer implements AutoCloseable {
+    private static final String API_PATH = "/api";
+    private static final String EMPTY_PAGE = "{\"items\":[]}";
+    private static final String OBS_FORMAT = "application/om+json";
+    /**
+     * Number of distinct results served, cycled through by the observations.
+     */
+    private static final int RESULT_VARIANTS = 256;
+
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final int systemCount;
+    private final int dataStreamsPerSystem;
+    private final int defaultPageSize;
+    private final int observationsPerDataStream;
+    private final long latencyNanos;
+    private final long latencyJitterNanos;
+    private final double errorRate;
+    private final Semaphore permits;
+    private final String[] systems;
+    private final String[] dataStreams;
+    private final String schema;
+    private final String[] results;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+
+    private MockConnectedSystemsServer(Builder builder) throws IOException {
+        this.systemCount = builder.systemCount;
+        this.dataStreamsPerSystem = builder.dataStreamsPerSystem;
+        this.defaultPageSize = builder.defaultPageSize;
+        this.observationsPerDataStream = builder.observationsPerDataStream;
+        this.latencyNanos = builder.latency.toNanos();
+        this.latencyJitterNanos = builder.latencyJitter.toNanos();
+        this.errorRate = builder.errorRate;
+        this.permits = builder.maxConcurrentRequests > 0 ? new Semaphore(builder.maxConcurrentRequests) : null;
+
+        DataComponent resultSchema = builder.resultSchema != null ? builder.resultSchema : Fixtures.schema(Fixtures.SCALAR_RECORD);
+        Gson gson = GsonFactory.gson;
+        systems = new String[systemCount];
+        dataStreams = new String[systemCount * dataStreamsPerSystem];
+        for (int i = 0; i < systemCount; i++) {
+            systems[i] = gson.toJson(new SystemResource.Builder()
+                    .setId(systemId(i))
+                    .setProperties(new Properties.Builder()
+                            .setFeatureType(FeatureType.SENSOR)
+                            .setUid("urn:mock:sensor:" + i)
+                            .setName("Mock Sensor " + i)
+                            .build())
+                    .build());
+            for (int j = 0; j < dataStreamsPerSystem; j++) {
+                int index = i * dataStreamsPerSystem + j;
+                dataStreams[index] = gson.toJson(new DataStreamResource.Builder()
+                        .setId(dataStreamId(index))
+                        .setName("Mock Sensor " + i + " - " + resultSchema.getName() + " " + j)
+                        .setOutputName(resultSchema.getName() + j)
+                        .setFormats(List.of(OBS_FORMAT))
+                        .setLive(true)
+                        .build());
+            }
+        }
+        schema = gson.toJson(new ObservationSchema.Builder()
+                .setObsFormat(OBS_FORMAT)
+                .setResultSchema(resultSchema)
+                .build());
+
+        DataBlockSerializer resultSerializer = new DataBlockSerializer(resultSchema);
+        results = new String[RESULT_VARIANTS];
+        for (int i = 0; i < RESULT_VARIANTS; i++) {
+            results[i] = resultSerializer.toJson(Fixtures.sampleBlock(resultSchema, i));
+        }
+
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mock-connected-systems-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), builder.backlog);
+        httpServer.setExecutor(executor);
+        httpServer.createContext(API_PATH, this::handle);
+    }
+
+    /**
+     * Start serving requests.
+     *
+     * @return This server, for method chaining.
+     */
+    public MockConnectedSystemsServer start() {
+        httpServer.start();
+        return this;
+    }
+
+    /**
+     * Stop the server, waiting at most a second for requests in progress to complete.
+     */
+    @Override
+    public void close() {
+        httpServer.stop(1);
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return The API root to give to the client, e.g., "http://127.0.0.1:54321/api".
+     */
+    public String getApiRoot() {
+        InetSocketAddress address = httpServer.getAddress();
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort() + API_PATH;
+    }
+
+    /**
+     * @return The ID of a datastream served by this server.
+     */
+    public String getDataStreamId(int index) {
+        return dataStreamId(index);
+    }
+
+    /**
+     * @return The number of datastreams served by this server.
+     */
+    public int getDataStreamCount() {
+        return dataStreams.length;
+    }
+
+    /**
+     * @return The number of requests received, including throttled and failed ones.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return The number of requests rejected with 429 because too many requests were in progress.
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * @return The number of requests failed on purpose with 503.
+     */
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * @return The number of resources created with POST requests.
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try (exchange) {
+            drain(exchange.getRequestBody());
+            if (permits != null && !permits.tryAcquire()) {
+                throttledCount.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 429, "{\"error\":\"Too many requests\"}");
+                return;
+            }
+            try {
+                injectLatency();
+                if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    errorCount.incrementAndGet();
+                    send(exchange, 503, "{\"error\":\"Injected failure\"}");
+                    return;
+                }
+                route(exchange);
+            } finally {
+                if (permits != null) permits.release();
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring(API_PATH.length());
+        String[] segments = path.startsWith("/") ? path.substring(1).split("/") : path.split("/");
+        String query = exchange.getRequestURI().getRawQuery();
+        int limit = parseParameter(query, "limit");
+        Page page = new Page(path, Math.max(0, parseParameter(query, "offset")), limit > 0 ? limit : defaultPageSize);
+
+        switch (exchange.getRequestMethod()) {
+            case "GET" -> get(exchange, segments, page);
+            case "POST" -> post(exchange, segments);
+            case "PUT", "DELETE" -> send(exchange, 204, "");
+            default -> send(exchange, 405, "");
+        }
+    }
+
+    private void get(HttpExchange exchange, String[] segments, Page page) throws IOException {
+        String collection = segments[0];
+        if (segments.length == 1) {
+            switch (collection) {
+                case "systems" -> send(exchange, 200, page(systems, 0, systems.length, page));
+                case "datastreams" -> send(exchange, 200, page(dataStreams, 0, dataStreams.length, page));
+                case "observations" -> send(exchange, 200, observations(null, page));
+                default -> send(exchange, 404, "");
+            }
+        } else if (segments.length == 2) {
+            switch (collection) {
+                case "systems" -> sendItem(exchange, systems, indexOf(segments[1], "sys"));
+                case "datastreams" -> sendItem(exchange, dataStreams, indexOf(segments[1], "ds"));
+                case "observations" -> send(exchange, 200, observation(segments[1]));
+                default -> send(exchange, 404, "");
+            }
+        } else if (segments.length == 3) {
+            String subCollection = segments[2];
+            if (collection.equals("systems") && subCollection.equals("subsystems")) {
+                send(exchange, 200, EMPTY_PAGE);
+            } else if (collection.equals("systems") && subCollection.equals("datastreams")) {
+                int system = indexOf(segments[1], "sys");
+                if (system < 0 || system >= systemCount) {
+                    send(exchange, 404, "");
+                } else {
+                    int start = system * dataStreamsPerSystem;
+                    send(exchange, 200, page(dataStreams, start, start + dataStreamsPerSystem, page));
+                }
+            } else if (collection.equals("datastreams") && subCollection.equals("schema")) {
+                send(exchange, 200, schema);
+            } else if (collection.equals("datastreams") && subCollection.equals("observations")) {
+                send(exchange, 200, observations(segments[1], page));
+            } else {
+                send(exchange, 404, "");
+            }
+        } else {
+            send(exchange, 404, "");
+        }
+    }
+
+    private void post(HttpExchange exchange, String[] segments) throws IOException {
+        String collection = segments[segments.length - 1];
+        String prefix = switch (collection) {
+            case "systems", "subsystems" -> "sys";
+            case "datastreams" -> "ds";
+            case "observations" -> "obs";
+            default -> null;
+        };
+        if (prefix == null) {
+            send(exchange, 404, "");
+            return;
+        }
+
+        long id = createdCount.incrementAndGet();
+        String resourcePath = collection.equals("subsystems") ? "systems" : collection;
+        exchange.getResponseHeaders().set("Location", API_PATH + "/" + resourcePath + "/" + prefix + "-new-" + id);
+        send(exchange, 201, "");
+    }
+
+    /**
+     * Get a page of the observations of a datastream, or, if the datastream ID is null,
+     * of the generic observations endpoint, where consecutive observations come from consecutive datastreams.
+     */
+    private String observations(String dataStreamId, Page page) {
+        int count = Math.max(0, Math.min(page.size(), observationsPerDataStream - page.offset()));
+        StringBuilder out = new StringBuilder(count * (results[0].length() + 160) + 200);
+        out.append("{\"items\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) out.append(',');
+            int index = page.offset() + i;
+            appendObservation(out, dataStreamId != null ? dataStreamId : dataStreamId(index % dataStreams.length), index);
+        }
+        out.append(']');
+        appendNextLink(out, page, page.offset() + count < observationsPerDataStream);
+        return out.append('}').toString();
+    }
+
+    /**
+     * Get a single observation by ID, where IDs are made of the datastream ID and the index of the observation.
+     */
+    private String observation(String observationId) {
+        int separator = observationId.lastIndexOf('-');
+        int index = separator > 0 ? indexOf(observationId.substring(separator + 1), "") : -1;
+        StringBuilder observation = new StringBuilder();
+        appendObservation(observation, index >= 0 ? observationId.substring(0, separator) : dataStreamId(0), Math.max(0, index));
+        return observation.toString();
+    }
+
+    private void appendObservation(StringBuilder out, String dataStreamId, int index) {
+        String time = Fixtures.START_TIME.plusSeconds(index).toString();
+        out.append("{\"id\":\"").append(dataStreamId).append('-').append(index)
+                .append("\",\"datastream@id\":\"").append(dataStreamId)
+                .append("\",\"phenomenonTime\":\"").append(time)
+                .append("\",\"resultTime\":\"").append(time)
+                .append("\",\"result\":").append(results[index % RESULT_VARIANTS])
+                .append('}');
+    }
+
+    private String page(String[] items, int start, int end, Page page) {
+        int from = Math.min(end, start + page.offset());
+        int count = Math.min(end - from, page.size());
+        StringBuilder out = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) out.append(',');
+            out.append(items[from + i]);
+        }
+        out.append(']');
+        appendNextLink(out, page, from + count < end);
+        return out.append('}').toString();
+    }
+
+    private void appendNextLink(StringBuilder out, Page page, boolean hasNext) {
+        if (!hasNext) return;
+        out.append(",\"links\":[{\"rel\":\"next\",\"href\":\"").append(API_PATH).append(page.path())
+                .append("?offset=").append(page.offset() + page.size())
+                .append("&limit=").append(page.size())
+                .append("\"}]");
+    }
+
+    private void sendItem(HttpExchange exchange, String[] items, int index) throws IOException {
+        if (index < 0 || index >= items.length) {
+            send(exchange, 404, "");
+        } else {
+            send(exchange, 200, items[index]);
+        }
+    }
+
+    private void injectLatency() {
+        long delay = latencyNanos;
+        if (latencyJitterNanos > 0) {
+            delay += ThreadLocalRandom.current().nextLong(latencyJitterNanos + 1);
+        }
+        if (delay <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int responseCode, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(responseCode, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (in.read(buffer) >= 0) {
+            // Discard the request body
+        }
+    }
+
+    private static int parseParameter(String query, String name) {
+        if (query == null) return -1;
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith(name + "=")) {
+                try {
+                    return Integer.parseInt(parameter.substring(name.length() + 1));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(String id, String prefix) {
+        if (!id.startsWith(prefix)) return -1;
+        try {
+            return Integer.parseInt(id.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String systemId(int index) {
+        return "sys" + index;
+    }
+
+    private static String dataStreamId(int index) {
+        return "ds" + index;
+    }
+
+    /**
+     * The page of a list requested by the client.
+     *
+     * @param path   The path of the list, relative to the API root.
+     * @param offset The index of the first item of the page.
+     * @param size   The maximum number of items in the page.
+     */
+    private record Page(String path, int offset, int size) {
+    }
+
+    /**
+     * Builder for {@link MockConnectedSystemsServer}.
+     */
+    public static class Builder {
+        private int port;
+        private int backlog = 1024;
+        private DataComponent resultSchema;
+        private int systemCount = 10;
+        private int dataStreamsPerSystem = 2;
+        private int defaultPageSize = 100;
+        private int observationsPerDataStream = 1_000_000;
+        private Duration latency = Duration.ZERO;
+        private Duration latencyJitter = Duration.ZERO;
+        private double errorRate;
+        private int maxConcurrentRequests;
+
+        /**
+         * The port to listen on, or 0 (the default) to pick a free one.
+         */
+        public Builder setPort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * The result schema of all datastreams. Default: a record of scalar weather measurements.
+         */
+        public Builder setResultSchema(DataComponent resultSchema) {
+            this.resultSchema = resultSchema;
+            return this;
+        }
+
+        /**
+         * The number of systems served. Default: 10
+         */
+        public Builder setSystemCount(int systemCount) {
+            if (systemCount < 1) throw new IllegalArgumentException("systemCount must be at least 1");
+            this.systemCount = systemCount;
+            return this;
+        }
+
+        /**
+         * The number of datastreams of each system. Default: 2
+         */
+        public Builder setDataStreamsPerSystem(int dataStreamsPerSystem) {
+            if (dataStreamsPerSystem < 1) throw new IllegalArgumentException("dataStreamsPerSystem must be at least 1");
+            this.dataStreamsPerSystem = dataStreamsPerSystem;
+            return this;
+        }
+
+        /**
+         * The number of items returned when the request has no limit parameter. Default: 100
+         */
+        public Builder setDefaultPageSize(int defaultPageSize) {
+            if (defaultPageSize < 1) throw new IllegalArgumentException("defaultPageSize must be at least 1");
+            this.defaultPageSize = defaultPageSize;
+            return this;
+        }
+
+        /**
+         * The number of observations of each datastream, after which the observations are not paged further.
+         * Default: 1,000,000
+         */
+        public Builder setObservationsPerDataStream(int observationsPerDataStream) {
+            if (observationsPerDataStream < 0) throw new IllegalArgumentException("observationsPerDataStream must not be negative");
+            this.observationsPerDataStream = observationsPerDataStream;
+            return this;
+        }
+
+        /**
+         * The time the server takes to process each request: the base latency plus a uniformly distributed jitter.
+         * Default: no latency
+         */
+        public Builder setLatency(Duration latency, Duration jitter) {
+            if (latency == null || latency.isNegative() || jitter == null || jitter.isNegative()) {
+                throw new IllegalArgumentException("latency and jitter must not be null or negative");
+            }
+            this.latency = latency;
+            this.latencyJitter = jitter;
+            return this;
+        }
+
+        /**
+         * The fraction of requests that fail with 503 Service Unavailable, between 0 and 1. Default: 0
+         */
+        public Builder setErrorRate(double errorRate) {
+            if (errorRate < 0 || errorRate > 1) throw new IllegalArgumentException("errorRate must be between 0 and 1");
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * The number of requests processed at once; further requests are rejected with 429 Too Many Requests.
+         * Default: 0, i.e., unlimited
+         */
+        public Builder setMaxConcurrentRequests(int maxConcurrentRequests) {
+            if (maxConcurrentRequests < 0) throw new IllegalArgumentException("maxConcurrentRequests must not be negative");
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        public MockConnectedSystemsServer build() throws IOException {
+            return new MockConnectedSystemsServer(this);
+        }
+    }
+}
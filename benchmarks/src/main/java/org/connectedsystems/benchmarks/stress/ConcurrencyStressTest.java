@@ -0,0 +1,225 @@
+package org.connectedsystems.benchmarks.stress;
+
+import com.google.gson.Gson;
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.ConnectedSystemsAPI;
+import org.connectedsystems.GsonFactory;
+import org.connectedsystems.benchmarks.Fixtures;
+import org.connectedsystems.benchmarks.generator.ObservationGenerator;
+import org.connectedsystems.benchmarks.load.LoadDriver;
+import org.connectedsystems.benchmarks.server.MockConnectedSystemsServer;
+import org.connectedsystems.datamodels.ObservationResource;
+import org.connectedsystems.net.APIResponse;
+import org.connectedsystems.serialization.DataBlockSerializer;
+import org.connectedsystems.util.ObservationsOfDataStreamQueryBuilder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hammers a single shared {@link ConnectedSystemsAPI}, schema, and Gson instance from hundreds of threads at once,
+ * and checks that every response is decoded exactly as it is when the client is used from a single thread.
+ * <p>
+ * The threads are released together and pick operations at random: listing systems, reading datastream schemas,
+ * reading pages of observations, creating observations, and round-tripping observations through the shared Gson.
+ * Decoded observations are compared with a reference decoded before the test, so a data block or schema
+ * corrupted by another thread shows up as a mismatch. After the run, the request count of the shared
+ * {@link org.connectedsystems.metrics.ThroughputMeter} must match the calls made and the requests the server received.
+ * <p>
+ * The test runs, for a shorter duration, as part of the tests of the benchmarks, see {@link #run()}.
+ * Run on its own, it exits with status 1 on any mismatch or failed call. Options are given as key=value arguments:
+ * <ul>
+ *     <li>threads: the number of threads sharing the client (default: 200)</li>
+ *     <li>duration: the time to run, in seconds (default: 15)</li>
+ *     <li>schema: the result schema, scalarRecord, vector, or nestedArrays (default: nestedArrays)</li>
+ *     <li>pageSize: the number of observations per page (default: 20)</li>
+ * </ul>
+ */
+public class ConcurrencyStressTest {
+    private static final int MAX_REPORTED_FAILURES = 20;
+
+    private final int threads;
+    private final Duration duration;
+    private final int pageSize;
+    private final DataComponent resultSchema;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final Queue<String> failures = new ConcurrentLinkedQueue<>();
+
+    public ConcurrencyStressTest(int threads, Duration duration, int pageSize, DataComponent resultSchema) {
+        this.threads = threads;
+        this.duration = duration;
+        this.pageSize = pageSize;
+        this.resultSchema = resultSchema;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadDriver.parseOptions(args);
+        ConcurrencyStressTest test = new ConcurrencyStressTest(
+                Integer.parseInt(options.getOrDefault("threads", "200")),
+                Duration.ofSeconds(Integer.parseInt(options.getOrDefault("duration", "15"))),
+                Integer.parseInt(options.getOrDefault("pageSize", "20")),
+                Fixtures.schema(options.getOrDefault("schema", Fixtures.NESTED_ARRAYS)));
+        System.exit(test.run() ? 0 : 1);
+    }
+
+    /**
+     * Run the test.
+     *
+     * @return True if no thread saw a failure or mismatch.
+     */
+    public boolean run() throws Exception {
+        try (MockConnectedSystemsServer server = new MockConnectedSystemsServer.Builder()
+                .setResultSchema(resultSchema)
+                .setDefaultPageSize(pageSize)
+                .setLatency(Duration.ofMillis(1), Duration.ofMillis(2))
+                .build()
+                .start();
+             ConnectedSystemsAPI api = new ConnectedSystemsAPI(server.getApiRoot(), "user", "password")) {
+            Reference reference = new Reference(api, server);
+            Gson sharedGson = GsonFactory.createGson(resultSchema);
+            long requestsBefore = server.getRequestCount();
+            long meterBefore = api.getThroughputMeter().getTotalRequests();
+
+            System.out.printf("Stress test: %d threads sharing one client for %s%n", threads, duration);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            long end = System.nanoTime() + duration.toNanos();
+            for (int i = 0; i < threads; i++) {
+                long seed = i;
+                Thread worker = new Thread(() -> work(api, server, reference, sharedGson, seed, start, end), "stress-" + i);
+                worker.start();
+                workers.add(worker);
+            }
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+
+            long serverRequests = server.getRequestCount() - requestsBefore;
+            long meterRequests = api.getThroughputMeter().getTotalRequests() - meterBefore;
+            if (meterRequests != calls.get()) {
+                fail("Throughput meter counted " + meterRequests + " requests for " + calls.get() + " calls");
+            }
+            if (serverRequests != calls.get()) {
+                fail("Server received " + serverRequests + " requests for " + calls.get() + " calls");
+            }
+
+            System.out.printf("%d calls, %d checks, %d failures%n", calls.get(), checks.get(), failureCount.get());
+            failures.forEach(System.out::println);
+            return failureCount.get() == 0;
+        }
+    }
+
+    /**
+     * @return The first failures and mismatches seen by the threads, in the order they were seen.
+     */
+    public List<String> getFailures() {
+        return List.copyOf(failures);
+    }
+
+    private void work(ConnectedSystemsAPI api, MockConnectedSystemsServer server, Reference reference, Gson sharedGson,
+                      long seed, CountDownLatch start, long end) {
+        SplittableRandom random = new SplittableRandom(seed);
+        ObservationGenerator generator = new ObservationGenerator.Builder(resultSchema).setSeed(seed).build();
+        // Verifies with its own serializer and schema copy, so that a shared one cannot hide its own corruption
+        DataBlockSerializer verifier = new DataBlockSerializer(resultSchema.copy());
+        ObservationsOfDataStreamQueryBuilder query = new ObservationsOfDataStreamQueryBuilder();
+        query.limit(pageSize);
+
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            return;
+        }
+
+        while (System.nanoTime() < end) {
+            String dataStreamId = server.getDataStreamId(random.nextInt(server.getDataStreamCount()));
+            try {
+                switch (random.nextInt(5)) {
+                    case 0 -> {
+                        APIResponse<?> response = call(api.getSystemsAPI().getSystems());
+                        check(response.getItems().size() == reference.systemCount,
+                                "getSystems returned " + response.getItems().size() + " systems");
+                    }
+                    case 1 -> {
+                        var response = call(api.getDataStreamsAPI().getObservationSchema(dataStreamId));
+                        String schema = GsonFactory.gson.toJson(response.getItem().getResultSchema());
+                        check(schema.equals(reference.schemaJson), "getObservationSchema returned a different schema");
+                    }
+                    case 2 -> {
+                        var response = call(api.getObservationsAPI().getObservationsOfDataStream(dataStreamId, resultSchema, query));
+                        check(response.getItems().size() == pageSize, "Page has " + response.getItems().size() + " observations");
+                        for (ObservationResource observation : response.getItems()) {
+                            String expected = reference.results.get(observation.getId().substring(dataStreamId.length()));
+                            String actual = verifier.toJson(observation.getResult());
+                            check(actual.equals(expected), "Observation " + observation.getId() + " decoded as " + actual);
+                        }
+                    }
+                    case 3 -> call(api.getObservationsAPI().createObservation(dataStreamId, generator.nextObservation(), resultSchema));
+                    default -> {
+                        String json = sharedGson.toJson(generator.nextObservation());
+                        String roundTrip = sharedGson.toJson(sharedGson.fromJson(json, ObservationResource.class));
+                        check(roundTrip.equals(json), "Observation changed in a round trip through the shared Gson");
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(Thread.currentThread().getName() + ": " + e);
+            }
+        }
+    }
+
+    private <T> APIResponse<T> call(APIResponse<T> response) {
+        calls.incrementAndGet();
+        check(response.isSuccessful(), "Request failed with " + response.getResponseCode());
+        return response;
+    }
+
+    private void check(boolean condition, String message) {
+        checks.incrementAndGet();
+        if (!condition) fail(Thread.currentThread().getName() + ": " + message);
+    }
+
+    private void fail(String message) {
+        if (failureCount.incrementAndGet() <= MAX_REPORTED_FAILURES) {
+            failures.add(message);
+        }
+    }
+
+    /**
+     * The responses of the server as decoded by a single thread, before the test.
+     */
+    private class Reference {
+        private final int systemCount;
+        private final String schemaJson;
+        /**
+         * The encoded results of the first page of observations, by observation ID without the datastream ID,
+         * which is the same for all datastreams.
+         */
+        private final Map<String, String> results = new HashMap<>();
+
+        Reference(ConnectedSystemsAPI api, MockConnectedSystemsServer server) throws IOException {
+            String dataStreamId = server.getDataStreamId(0);
+            systemCount = api.getSystemsAPI().getSystems().getItems().size();
+            schemaJson = GsonFactory.gson.toJson(api.getDataStreamsAPI().getObservationSchema(dataStreamId).getItem().getResultSchema());
+
+            ObservationsOfDataStreamQueryBuilder query = new ObservationsOfDataStreamQueryBuilder();
+            query.limit(pageSize);
+            DataBlockSerializer serializer = new DataBlockSerializer(resultSchema.copy());
+            for (ObservationResource observation : api.getObservationsAPI().getObservationsOfDataStream(dataStreamId, resultSchema, query).getItems()) {
+                results.put(observation.getId().substring(dataStreamId.length()), serializer.toJson(observation.getResult()));
+            }
+        }
+    }
+}
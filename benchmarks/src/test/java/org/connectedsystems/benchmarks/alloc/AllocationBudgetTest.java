@@ -0,0 +1,19 @@
+package org.connectedsystems.benchmarks.alloc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AllocationBudgetTest {
+    @Test
+    void decodeAndEncodePathsStayWithinTheirAllocationBudgets() throws IOException {
+        List<AllocationBudgetCheck.Result> overBudget = new AllocationBudgetCheck().run().stream()
+                .filter(result -> !result.isWithinBudget())
+                .toList();
+
+        assertTrue(overBudget.isEmpty(), "Over their allocation budget: " + overBudget);
+    }
+}
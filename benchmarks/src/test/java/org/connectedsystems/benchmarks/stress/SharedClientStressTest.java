@@ -0,0 +1,17 @@
+package org.connectedsystems.benchmarks.stress;
+
+import org.connectedsystems.benchmarks.Fixtures;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedClientStressTest {
+    @Test
+    void hundredsOfThreadsShareOneClient() throws Exception {
+        ConcurrencyStressTest test = new ConcurrencyStressTest(200, Duration.ofSeconds(5), 20, Fixtures.schema(Fixtures.NESTED_ARRAYS));
+
+        assertTrue(test.run(), "Failures: " + test.getFailures());
+    }
+}
@@ -1,17 +1,90 @@
 package org.connectedsystems;
 
+import com.google.gson.Gson;
+import org.connectedsystems.datamodels.Link;
+import org.connectedsystems.management.ConnectedSystemsAPIMonitor;
+import org.connectedsystems.metrics.RequestMetricsListener;
+import org.connectedsystems.metrics.ThroughputMeter;
+import org.connectedsystems.net.APIRequest;
+import org.connectedsystems.net.APIResponse;
+import org.connectedsystems.net.ConcurrencyLimiter;
+import org.connectedsystems.net.HedgingPolicy;
+import org.connectedsystems.net.HttpConnectionFactory;
+import org.connectedsystems.net.PagedResponse;
+import org.connectedsystems.net.ReplicaSet;
+import org.connectedsystems.net.RequestTimeouts;
+import org.connectedsystems.util.ObservationsQueryBuilder;
+import org.connectedsystems.util.QueryStringBuilder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Class representing the Connected Systems API.
  * Using the various API classes, you can interact with a server that implements the Connected Systems API.
+ * <p>
+ * This class and its {@link SystemsAPI}, {@link DataStreamsAPI}, and {@link ObservationsAPI} facades are thread-safe:
+ * a single instance is meant to be shared by all the threads of an application talking to the same server,
+ * so that they share its concurrency limiter, executor, and metrics.
+ * Every call builds and executes its own {@link APIRequest}, and the settings changed through setters,
+ * e.g., {@link #setRequestTimeouts(RequestTimeouts)}, apply to the calls that start after the change.
+ * <p>
+ * Unless an executor is given to the constructor, each instance runs its asynchronous requests on its own pool of
+ * at most {@link #DEFAULT_MAX_THREADS} daemon threads, which exit when idle; {@link #close()} shuts the pool down.
  */
-public class ConnectedSystemsAPI {
+public class ConnectedSystemsAPI implements AutoCloseable {
+    /**
+     * The maximum number of threads of the executor created by the constructors that take none.
+     * When all of them are busy, a request submitted to the executor runs on the submitting thread instead.
+     */
+    public static final int DEFAULT_MAX_THREADS = 64;
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+    private static final AtomicInteger instanceCount = new AtomicInteger();
+
     protected final String apiRoot;
+    protected final ReplicaSet replicaSet;
     protected final String authorizationToken;
     protected final SystemsAPI systemsAPI;
     protected final DataStreamsAPI dataStreamsAPI;
     protected final ObservationsAPI observationsAPI;
+    protected final ResultSchemaCache resultSchemaCache;
+    protected final ConcurrencyLimiter concurrencyLimiter;
+    protected final ExecutorService executor;
+    /**
+     * True if the executor was created by this object, which shuts it down on {@link #close()}.
+     */
+    private final boolean ownsExecutor;
+    protected final ThroughputMeter throughputMeter;
+    protected volatile HedgingPolicy hedgingPolicy;
+    protected volatile RequestTimeouts requestTimeouts = RequestTimeouts.NONE;
+    protected volatile RequestMetricsListener metricsListener = RequestMetricsListener.NONE;
+    private volatile RequestMetricsListener requestListener;
+    protected volatile HttpConnectionFactory connectionFactory = HttpConnectionFactory.DEFAULT;
+    protected volatile boolean lazyDecoding;
+    protected volatile int parallelDecodingThreshold = APIResponse.DEFAULT_PARALLEL_DECODING_THRESHOLD;
+    protected volatile ForkJoinPool decodingPool;
+    protected volatile int maxQueryLength = QueryStringBuilder.DEFAULT_MAX_QUERY_LENGTH;
+    private ObjectName mBeanName;
 
     /**
      * Constructs a ConnectedSystemsAPI object with the given API root and authentication token.
@@ -20,11 +93,85 @@ public class ConnectedSystemsAPI {
      * @param authenticationToken The authentication token to use for API requests.
      */
     public ConnectedSystemsAPI(String apiRoot, String authenticationToken) {
+        this(apiRoot, null, authenticationToken, null);
+    }
+
+    /**
+     * Constructs a ConnectedSystemsAPI object running its asynchronous requests on the given executor,
+     * e.g., to share a single pool between the clients of several servers.
+     *
+     * @param apiRoot             The root URL of the API, e.g., "localhost:8181/sensorhub/api".
+     * @param authenticationToken The authentication token to use for API requests.
+     * @param executor            The executor, which is not shut down by {@link #close()}.
+     * @throws IllegalArgumentException if the executor is null.
+     */
+    public ConnectedSystemsAPI(String apiRoot, String authenticationToken, ExecutorService executor) {
+        this(apiRoot, null, authenticationToken, requireExecutor(executor));
+    }
+
+    /**
+     * Constructs a ConnectedSystemsAPI object that spreads its requests over several replicas of the same server.
+     * Reads go to the least loaded healthy replica and fail over to another one if it does not answer;
+     * writes go to the primary, i.e., the first API root, unless {@link ReplicaSet#setPinWritesToPrimary(boolean)} is disabled.
+     *
+     * @param apiRoots            The root URLs of the replicas, primary first, e.g., "localhost:8181/sensorhub/api".
+     * @param authenticationToken The authentication token to use for API requests, shared by all replicas.
+     * @throws IllegalArgumentException if the list is null, empty, or contains a null or empty root.
+     */
+    public ConnectedSystemsAPI(List<String> apiRoots, String authenticationToken) {
+        this(new ReplicaSet(apiRoots), authenticationToken, null);
+    }
+
+    /**
+     * Constructs a ConnectedSystemsAPI object that spreads its requests over several replicas of the same server,
+     * running its asynchronous requests on the given executor.
+     *
+     * @param apiRoots            The root URLs of the replicas, primary first, e.g., "localhost:8181/sensorhub/api".
+     * @param authenticationToken The authentication token to use for API requests, shared by all replicas.
+     * @param executor            The executor, which is not shut down by {@link #close()}.
+     * @throws IllegalArgumentException if the list is null, empty, or contains a null or empty root, or if the executor is null.
+     * @see #ConnectedSystemsAPI(List, String)
+     */
+    public ConnectedSystemsAPI(List<String> apiRoots, String authenticationToken, ExecutorService executor) {
+        this(new ReplicaSet(apiRoots), authenticationToken, requireExecutor(executor));
+    }
+
+    /**
+     * Constructs a ConnectedSystemsAPI object that spreads its requests over several replicas of the same server.
+     * The username and password are Base64-encoded to create the authentication token.
+     *
+     * @param apiRoots The root URLs of the replicas, primary first, e.g., "localhost:8181/sensorhub/api".
+     * @param username The username for authentication.
+     * @param password The password for authentication.
+     * @throws IllegalArgumentException if the list is null, empty, or contains a null or empty root.
+     * @see #ConnectedSystemsAPI(List, String)
+     */
+    public ConnectedSystemsAPI(List<String> apiRoots, String username, String password) {
+        this(apiRoots, Base64.getEncoder().encodeToString((username + ":" + password).getBytes()));
+    }
+
+    private ConnectedSystemsAPI(ReplicaSet replicaSet, String authenticationToken, ExecutorService executor) {
+        this(replicaSet.getPrimary().getApiRoot(), replicaSet, authenticationToken, executor);
+    }
+
+    /**
+     * @param executor The executor, or null to create one owned by this object.
+     */
+    private ConnectedSystemsAPI(String apiRoot, ReplicaSet replicaSet, String authenticationToken, ExecutorService executor) {
         this.apiRoot = apiRoot;
+        this.replicaSet = replicaSet;
         this.authorizationToken = authenticationToken;
+        this.concurrencyLimiter = new ConcurrencyLimiter();
+        // Concurrency is only limited on request, so that upgrading the client does not cap the throughput of existing applications
+        this.concurrencyLimiter.setEnabled(false);
+        this.ownsExecutor = executor == null;
+        this.executor = executor != null ? executor : newExecutor();
+        this.throughputMeter = new ThroughputMeter();
+        this.requestListener = throughputMeter;
         this.systemsAPI = new SystemsAPI(this);
         this.dataStreamsAPI = new DataStreamsAPI(this);
         this.observationsAPI = new ObservationsAPI(this);
+        this.resultSchemaCache = new ResultSchemaCache(dataStreamsAPI, executor);
     }
 
     /**
@@ -39,10 +186,441 @@ public class ConnectedSystemsAPI {
         this(apiRoot, Base64.getEncoder().encodeToString((username + ":" + password).getBytes()));
     }
 
+    /**
+     * Constructs a ConnectedSystemsAPI object that sends requests to the same server as the given one,
+     * sharing its concurrency limiter, executor, and result schema cache, but with its own timeouts.
+     *
+     * @param parent          The ConnectedSystemsAPI to derive from.
+     * @param requestTimeouts The timeouts to apply to requests made through the new object.
+     */
+    protected ConnectedSystemsAPI(ConnectedSystemsAPI parent, RequestTimeouts requestTimeouts) {
+        this.apiRoot = parent.apiRoot;
+        this.replicaSet = parent.replicaSet;
+        this.authorizationToken = parent.authorizationToken;
+        this.concurrencyLimiter = parent.concurrencyLimiter;
+        this.executor = parent.executor;
+        this.ownsExecutor = false;
+        this.throughputMeter = parent.throughputMeter;
+        this.hedgingPolicy = parent.hedgingPolicy;
+        this.metricsListener = parent.metricsListener;
+        this.requestListener = parent.requestListener;
+        this.connectionFactory = parent.connectionFactory;
+        this.lazyDecoding = parent.lazyDecoding;
+        this.parallelDecodingThreshold = parent.parallelDecodingThreshold;
+        this.decodingPool = parent.decodingPool;
+        this.maxQueryLength = parent.maxQueryLength;
+        this.requestTimeouts = requestTimeouts;
+        this.systemsAPI = new SystemsAPI(this);
+        this.dataStreamsAPI = new DataStreamsAPI(this);
+        this.observationsAPI = new ObservationsAPI(this);
+        this.resultSchemaCache = parent.resultSchemaCache;
+    }
+
+    /**
+     * Get the root URL of the API, or of the primary replica if this object was constructed with several API roots.
+     */
     public String getApiRoot() {
         return apiRoot;
     }
 
+    /**
+     * Get the {@link ReplicaSet} requests are spread over,
+     * or null if this object was constructed with a single API root.
+     */
+    public ReplicaSet getReplicaSet() {
+        return replicaSet;
+    }
+
+    /**
+     * Get the {@link ConcurrencyLimiter} shared by all requests made through this Connected Systems API.
+     * It can be used to read the current limit and queueing delay, or to tune the bounds of the limit.
+     * <p>
+     * The limiter counts the requests in flight but does not limit them unless enabled,
+     * e.g., with {@code api.getConcurrencyLimiter().setEnabled(true)}; it then starts at
+     * {@link ConcurrencyLimiter#DEFAULT_INITIAL_LIMIT} requests in flight and adapts to the latency of the server.
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Get the executor that runs requests off the calling thread, e.g., hedged requests,
+     * either the one given to the constructor or one owned by this object.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    /**
+     * Enable hedging of GET requests: if a response is slow to arrive, a duplicate request is sent
+     * and whichever answers first is used.
+     *
+     * @param hedgingPolicy The policy that decides when to hedge, or null to disable hedging (the default).
+     */
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    public RequestTimeouts getRequestTimeouts() {
+        return requestTimeouts;
+    }
+
+    /**
+     * Set the default connect, read, and total timeouts of requests made through this Connected Systems API.
+     * By default, requests have no timeouts, as with {@link java.net.HttpURLConnection}.
+     *
+     * @param requestTimeouts The timeouts to apply, e.g., {@link RequestTimeouts#RECOMMENDED}, or {@link RequestTimeouts#NONE} (default).
+     */
+    public void setRequestTimeouts(RequestTimeouts requestTimeouts) {
+        if (requestTimeouts == null) {
+            throw new IllegalArgumentException("requestTimeouts cannot be null, use RequestTimeouts.NONE instead");
+        }
+        this.requestTimeouts = requestTimeouts;
+    }
+
+    public RequestMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Set the listener that receives the latency, size, and decoding time of every request
+     * made through this Connected Systems API, e.g., an {@link org.connectedsystems.metrics.InMemoryRequestMetrics}.
+     *
+     * @param metricsListener The listener to use, or {@link RequestMetricsListener#NONE} to not report any metrics (the default).
+     */
+    public void setMetricsListener(RequestMetricsListener metricsListener) {
+        if (metricsListener == null) {
+            throw new IllegalArgumentException("metricsListener cannot be null, use RequestMetricsListener.NONE instead");
+        }
+        this.metricsListener = metricsListener;
+        this.requestListener = metricsListener == RequestMetricsListener.NONE ? throughputMeter : throughputMeter.andThen(metricsListener);
+    }
+
+    public HttpConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    /**
+     * Set the factory that opens the connections of requests made through this Connected Systems API,
+     * e.g., a {@link org.connectedsystems.replay.RecordingConnectionFactory} to record the exchanges with the server,
+     * or a {@link org.connectedsystems.replay.ReplayConnectionFactory} to replay them without a server.
+     *
+     * @param connectionFactory The factory to use, or {@link HttpConnectionFactory#DEFAULT} to connect to the server (the default).
+     */
+    public void setConnectionFactory(HttpConnectionFactory connectionFactory) {
+        if (connectionFactory == null) {
+            throw new IllegalArgumentException("connectionFactory cannot be null, use HttpConnectionFactory.DEFAULT instead");
+        }
+        this.connectionFactory = connectionFactory;
+    }
+
+    public boolean isLazyDecoding() {
+        return lazyDecoding;
+    }
+
+    /**
+     * Set whether the items of responses are deserialized on their first access rather than all at once,
+     * e.g., to page through lists of systems only to find a few IDs (default: false).
+     *
+     * @param lazyDecoding True to deserialize items lazily, see {@link APIResponse#getItems()}.
+     */
+    public void setLazyDecoding(boolean lazyDecoding) {
+        this.lazyDecoding = lazyDecoding;
+    }
+
+    public int getParallelDecodingThreshold() {
+        return parallelDecodingThreshold;
+    }
+
+    /**
+     * Set the number of items from which the items of a response are deserialized in parallel,
+     * e.g., for pages of thousands of observations, on the pool set by {@link #setDecodingPool(ForkJoinPool)}.
+     * By default, items are always deserialized on the calling thread; measure with the ParallelDecodeBenchmark
+     * of the benchmarks before choosing a threshold, since it depends on the machine and the result schemas.
+     * <p>
+     * Each thread that decodes observation results keeps its own copy of their result schema,
+     * so decoding on a small dedicated pool also bounds the number of copies.
+     *
+     * @param parallelDecodingThreshold The threshold (default: {@link APIResponse#DEFAULT_PARALLEL_DECODING_THRESHOLD}, i.e., never),
+     *                                  or {@link Integer#MAX_VALUE} to always deserialize on the calling thread.
+     */
+    public void setParallelDecodingThreshold(int parallelDecodingThreshold) {
+        if (parallelDecodingThreshold < 1) {
+            throw new IllegalArgumentException("parallelDecodingThreshold must be positive");
+        }
+        this.parallelDecodingThreshold = parallelDecodingThreshold;
+    }
+
+    public ForkJoinPool getDecodingPool() {
+        return decodingPool;
+    }
+
+    /**
+     * Set the fork-join pool the items of a response are deserialized on in parallel,
+     * see {@link #setParallelDecodingThreshold(int)}. The pool is not shut down by {@link #close()}.
+     *
+     * @param decodingPool The pool, or null for the common fork-join pool (default: null).
+     */
+    public void setDecodingPool(ForkJoinPool decodingPool) {
+        this.decodingPool = decodingPool;
+    }
+
+    public int getMaxQueryLength() {
+        return maxQueryLength;
+    }
+
+    /**
+     * Set the maximum length of the query string of list requests, e.g., filtering systems or observations by ID.
+     * A query with a list of values too long to fit is split into several requests, each with a part of the list,
+     * which are sent concurrently and whose items are merged into a single response, without duplicates.
+     * Each of them follows its next links until it has as many items as the limit of the query, or all of them if there is none,
+     * and the merged items are truncated to the limit.
+     *
+     * @param maxQueryLength The maximum length (default: {@link QueryStringBuilder#DEFAULT_MAX_QUERY_LENGTH}),
+     *                       or {@link Integer#MAX_VALUE} to never split queries.
+     */
+    public void setMaxQueryLength(int maxQueryLength) {
+        if (maxQueryLength < 1) {
+            throw new IllegalArgumentException("maxQueryLength must be positive");
+        }
+        this.maxQueryLength = maxQueryLength;
+    }
+
+    /**
+     * Get the cache of the result schemas of datastreams, used to deserialize observations of several datastreams at once,
+     * e.g., with {@link ObservationsAPI#getObservationsOfDataStreams(ObservationsQueryBuilder)}.
+     * It is shared with the views derived from this object.
+     */
+    public ResultSchemaCache getResultSchemaCache() {
+        return resultSchemaCache;
+    }
+
+    /**
+     * Get the request and byte rates of this Connected Systems API, shared with the views derived from it.
+     */
+    public ThroughputMeter getThroughputMeter() {
+        return throughputMeter;
+    }
+
+    /**
+     * Register an MXBean exposing the load, throughput, and concurrency limits of this client
+     * with the platform MBean server, e.g., to watch and tune it from a JMX console.
+     * The bean is named "org.connectedsystems:type=ConnectedSystemsAPI,name=&lt;API root&gt;,id=&lt;n&gt;".
+     *
+     * @return The name the bean was registered under.
+     * @throws JMException if the bean could not be registered.
+     * @see ConnectedSystemsAPIMonitor
+     */
+    public synchronized ObjectName registerMBean() throws JMException {
+        if (mBeanName == null) {
+            ObjectName name = new ObjectName("org.connectedsystems:type=ConnectedSystemsAPI,name=" + ObjectName.quote(apiRoot)
+                    + ",id=" + instanceCount.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new ConnectedSystemsAPIMonitor(this), name);
+            mBeanName = name;
+        }
+        return mBeanName;
+    }
+
+    /**
+     * Unregister the MXBean registered by {@link #registerMBean()}, if any.
+     *
+     * @throws JMException if the bean could not be unregistered.
+     */
+    public synchronized void unregisterMBean() throws JMException {
+        if (mBeanName == null) return;
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        if (mBeanServer.isRegistered(mBeanName)) {
+            mBeanServer.unregisterMBean(mBeanName);
+        }
+        mBeanName = null;
+    }
+
+    /**
+     * Release the resources of this Connected Systems API: unregister its MXBean, if any,
+     * and shut down its executor if it created it, letting the requests in progress complete.
+     * Asynchronous requests started afterward fail with a {@link java.util.concurrent.RejectedExecutionException}.
+     * Closing a view created with {@link #withRequestTimeouts(RequestTimeouts)} does nothing, as its resources belong to its parent.
+     *
+     * @throws IllegalStateException if the MXBean could not be unregistered; the executor is still shut down.
+     */
+    @Override
+    public void close() {
+        try {
+            unregisterMBean();
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister the MXBean " + mBeanName, e);
+        } finally {
+            if (ownsExecutor) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Get a view of this Connected Systems API that applies different timeouts to its requests,
+     * for example a tight deadline for a single call:
+     * <pre>{@code
+     * api.withRequestTimeouts(api.getRequestTimeouts().withDeadline(Duration.ofSeconds(2)))
+     *         .getSystemsAPI()
+     *         .getSystems();
+     * }</pre>
+     * The view shares the concurrency limiter, executor, and result schema cache of this object,
+     * and uses the hedging policy, metrics listener, connection factory, decoding mode, and maximum query length set at the time it is created.
+     *
+     * @param requestTimeouts The timeouts to apply to requests made through the view.
+     * @return A new ConnectedSystemsAPI object.
+     */
+    public ConnectedSystemsAPI withRequestTimeouts(RequestTimeouts requestTimeouts) {
+        if (requestTimeouts == null) {
+            throw new IllegalArgumentException("requestTimeouts cannot be null, use RequestTimeouts.NONE instead");
+        }
+        return new ConnectedSystemsAPI(this, requestTimeouts);
+    }
+
+    /**
+     * Create a request builder preconfigured with the settings shared by all requests to this server,
+     * i.e., the API root or replicas, the authorization token, the concurrency limiter, the hedging policy, the timeouts,
+     * the metrics listener, the connection factory, and the decoding mode.
+     *
+     * @return A new {@link APIRequest.APIRequestBuilder}.
+     */
+    protected APIRequest.APIRequestBuilder newRequestBuilder() {
+        return new APIRequest.APIRequestBuilder()
+                .setApiRoot(apiRoot)
+                .setReplicaSet(replicaSet)
+                .setAuthorizationToken(authorizationToken)
+                .setConcurrencyLimiter(concurrencyLimiter)
+                .setHedgingPolicy(hedgingPolicy)
+                .setExecutor(executor)
+                .setRequestTimeouts(requestTimeouts)
+                .setMetricsListener(requestListener)
+                .setConnectionFactory(connectionFactory)
+                .setLazyDecoding(lazyDecoding)
+                .setParallelDecodingThreshold(parallelDecodingThreshold)
+                .setDecodingPool(decodingPool);
+    }
+
+    /**
+     * Build a request and execute it on the executor, see {@link APIRequest#executeAsync(Class, Gson)}.
+     * Cancelling the returned future aborts the request, whether it is waiting for a concurrency slot or already sent.
+     *
+     * @param requestBuilder The builder of the request.
+     * @param clazz          The class type to deserialize the response into, or {@link Void}.
+     * @param gson           The Gson object to use for deserialization.
+     * @return A future completed with the response, or exceptionally with the {@link IOException} that occurred,
+     * including one thrown while building the request.
+     */
+    protected <T> CompletableFuture<APIResponse<T>> executeAsync(APIRequest.APIRequestBuilder requestBuilder, Class<T> clazz, Gson gson) {
+        try {
+            return requestBuilder.build().executeAsync(clazz, gson);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Execute a list query, split into several requests if its query string is longer than the maximum query length.
+     * <p>
+     * The requests are sent concurrently on the executor. Each of them follows its next links until it has as many items
+     * as the limit of the query, or all of them if there is no limit, and the items of all the pages are merged,
+     * deduplicated unless the requests cannot return the same item, and truncated to the limit,
+     * see {@link APIResponse#merge(List, Function, int)}.
+     * If a request fails or is unsuccessful, the others are cancelled and its error is thrown, or its response returned.
+     * A query that is not split is sent as a single request, whose next link is left to the caller.
+     *
+     * @param queryParams The query parameters.
+     * @param listQuery   Builds a request with the given parameters, i.e., one of the requests or the next page of one.
+     * @param execution   Executes a request and reads its response.
+     * @param itemKey     The key identifying duplicate items, e.g., their ID.
+     * @return The response of the single request, or the merged responses.
+     * @throws IOException if any of the requests fails.
+     */
+    protected <T> APIResponse<T> executeListQuery(QueryStringBuilder queryParams, ListQuery listQuery,
+                                                  APIRequest.Execution<APIResponse<T>> execution, Function<? super T, ?> itemKey) throws IOException {
+        List<Map<String, String>> chunks = queryParams.getChunkedParameters(maxQueryLength);
+        if (chunks.size() == 1) {
+            return execution.execute(listQuery.newRequest(chunks.get(0)));
+        }
+
+        CompletableFuture<APIResponse<T>> future = executeChunks(queryParams, chunks, listQuery, execution, itemKey);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the parts of a list query");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) throw ioException;
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Execute a list query on the executor, split into several requests as {@link #executeListQuery} does.
+     * Cancelling the returned future aborts all the requests in progress.
+     *
+     * @param queryParams The query parameters.
+     * @param listQuery   Builds a request with the given parameters, i.e., one of the requests or the next page of one.
+     * @param execution   Executes a request and reads its response.
+     * @param itemKey     The key identifying duplicate items, e.g., their ID.
+     * @return A future completed with the response of the single request, or the merged responses,
+     * or exceptionally with the {@link IOException} that occurred.
+     */
+    protected <T> CompletableFuture<APIResponse<T>> executeListQueryAsync(QueryStringBuilder queryParams, ListQuery listQuery,
+                                                                          APIRequest.Execution<APIResponse<T>> execution, Function<? super T, ?> itemKey) {
+        List<Map<String, String>> chunks = queryParams.getChunkedParameters(maxQueryLength);
+        if (chunks.size() == 1) {
+            try {
+                return listQuery.newRequest(chunks.get(0)).executeAsync(execution);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return executeChunks(queryParams, chunks, listQuery, execution, itemKey);
+    }
+
+    /**
+     * Start the requests of the parts of a split list query, and merge their pages once all of them are fetched.
+     */
+    private <T> CompletableFuture<APIResponse<T>> executeChunks(QueryStringBuilder queryParams, List<Map<String, String>> chunks, ListQuery listQuery,
+                                                               APIRequest.Execution<APIResponse<T>> execution, Function<? super T, ?> itemKey) {
+        Integer limit = queryParams.getLimit();
+        int maxItems = limit != null && limit >= 0 ? limit : Integer.MAX_VALUE;
+        Function<? super T, ?> mergeKey = queryParams.hasDisjointChunks(maxQueryLength) ? null : itemKey;
+        // Also completed early with the first unsuccessful response, or exceptionally with the first error, of any part
+        CompletableFuture<APIResponse<T>> result = new CompletableFuture<>();
+        List<ListQueryPart<T>> parts = new ArrayList<>(chunks.size());
+        for (Map<String, String> chunk : chunks) {
+            parts.add(new ListQueryPart<>(listQuery, execution, maxItems, result));
+        }
+        // However the result completes, including when the caller cancels it, the parts still in progress are aborted
+        result.whenComplete((response, e) -> parts.forEach(ListQueryPart::cancel));
+
+        CompletableFuture.allOf(parts.stream().map(part -> part.pages).toArray(CompletableFuture<?>[]::new))
+                .thenRun(() -> {
+                    try {
+                        List<APIResponse<T>> responses = new ArrayList<>();
+                        for (ListQueryPart<T> part : parts) {
+                            responses.addAll(part.pages.join());
+                        }
+                        result.complete(APIResponse.merge(responses, mergeKey, maxItems));
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+        for (int i = 0; i < chunks.size(); i++) {
+            parts.get(i).fetch(chunks.get(i));
+        }
+        return result;
+    }
+
     /**
      * Get the {@link SystemsAPI} object for this Connected Systems API.
      * The SystemsAPI object provides methods for interacting with the systems endpoint of the API,
@@ -64,4 +642,136 @@ public class ConnectedSystemsAPI {
     public ObservationsAPI getObservationsAPI() {
         return observationsAPI;
     }
-}
\ No newline at end of file
+
+    /**
+     * Builds the request of a list query with a set of query parameters.
+     */
+    @FunctionalInterface
+    protected interface ListQuery {
+        APIRequest newRequest(Map<String, String> queryParams) throws IOException;
+    }
+
+    /**
+     * The pages of one of the requests a list query was split into, fetched one after the other by following their next links.
+     *
+     * @param <T> The type of the items in the pages.
+     */
+    private static class ListQueryPart<T> {
+        private final ListQuery listQuery;
+        private final APIRequest.Execution<APIResponse<T>> execution;
+        private final int maxItems;
+        /**
+         * The result of the whole query, completed with the first unsuccessful page or error of any part.
+         */
+        private final CompletableFuture<APIResponse<T>> failure;
+        /**
+         * Completed with the pages once there are enough items or no next page, or after an unsuccessful page.
+         */
+        private final CompletableFuture<List<APIResponse<T>>> pages = new CompletableFuture<>();
+        private final List<APIResponse<T>> fetched = new ArrayList<>();
+        private int items;
+        private volatile CompletableFuture<APIResponse<T>> inFlight;
+
+        ListQueryPart(ListQuery listQuery, APIRequest.Execution<APIResponse<T>> execution, int maxItems,
+                      CompletableFuture<APIResponse<T>> failure) {
+            this.listQuery = listQuery;
+            this.execution = execution;
+            this.maxItems = maxItems;
+            this.failure = failure;
+        }
+
+        /**
+         * Start fetching a page, on the executor of the requests.
+         */
+        void fetch(Map<String, String> queryParams) {
+            CompletableFuture<APIResponse<T>> page;
+            try {
+                page = listQuery.newRequest(queryParams).executeAsync(execution);
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+                return;
+            }
+            inFlight = page;
+            // The part may have been cancelled while the request was being built
+            if (pages.isCancelled()) {
+                page.cancel(true);
+            }
+            page.whenComplete(this::onFetched);
+        }
+
+        /**
+         * Abort the page being fetched, if any, and stop following the next links.
+         */
+        void cancel() {
+            pages.cancel(true);
+            CompletableFuture<APIResponse<T>> page = inFlight;
+            if (page != null) {
+                page.cancel(true);
+            }
+        }
+
+        private void onFetched(APIResponse<T> response, Throwable e) {
+            if (e != null) {
+                fail(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                return;
+            }
+            try {
+                fetched.add(response);
+                if (!response.isSuccessful()) {
+                    failure.complete(response);
+                    pages.complete(fetched);
+                    return;
+                }
+                items += response.getItems().size();
+                Link next = items < maxItems ? response.getNextLink() : null;
+                if (next == null || pages.isDone()) {
+                    pages.complete(fetched);
+                } else {
+                    fetch(PagedResponse.parseQuery(next.getHref().getRawQuery()));
+                }
+            } catch (RuntimeException error) {
+                fail(error);
+            }
+        }
+
+        private void fail(Throwable e) {
+            failure.completeExceptionally(e);
+            pages.completeExceptionally(e);
+        }
+    }
+
+    private static ExecutorService requireExecutor(ExecutorService executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        return executor;
+    }
+
+    /**
+     * Create the executor of a client that was given none: bounded, without a queue, so that a task submitted
+     * while all threads are busy runs on the submitting thread rather than waiting behind tasks that may be waiting for it.
+     */
+    private static ExecutorService newExecutor() {
+        return new ThreadPoolExecutor(0, DEFAULT_MAX_THREADS, IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new DaemonThreadFactory(), (task, pool) -> {
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("The ConnectedSystemsAPI is closed");
+            }
+            task.run();
+        });
+    }
+
+    /**
+     * Creates daemon threads, so that an unused client never keeps the JVM alive.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private static final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "connected-systems-api-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.connectedsystems.util.DataStreamsQueryBuilder;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.connectedsystems.GsonFactory.gson;
 
@@ -32,21 +33,25 @@ public class DataStreamsAPI {
 
     /**
      * List all {@link DataStreamResource} available from this server endpoint.
+     * If the lists of IDs, systems, or features of interest make the URL too long, the query is sent in several parts
+     * whose datastreams are merged without duplicates, see {@link ConnectedSystemsAPI#setMaxQueryLength(int)}.
      *
      * @param queryParams The query parameters to filter the results.
      * @return {@link APIResponse} containing a list of {@link DataStreamResource}.
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<DataStreamResource> getDataStreams(DataStreamsQueryBuilder queryParams) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        var gson = GsonFactory.createGson(queryParams.getSelectedProperties());
+        return connectedSystemsAPI.executeListQuery(queryParams, this::newDataStreamsRequest,
+                request -> request.execute(DataStreamResource.class, gson), DataStreamResource::getId);
+    }
+
+    private APIRequest newDataStreamsRequest(Map<String, String> parameters) throws IOException {
+        return connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.GET)
-                .setQueryParams(queryParams.getParameters())
+                .setQueryParams(parameters)
                 .build();
-
-        return apiRequest.execute(DataStreamResource.class);
     }
 
     /**
@@ -69,17 +74,44 @@ public class DataStreamsAPI {
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<DataStreamResource> getDataStreamsOfSystem(String systemId, DataStreamsQueryBuilder queryParams) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
-                .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
-                .setResourceId(systemId)
-                .setSubResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
-                .setRequestMethod(HttpRequestMethod.GET)
-                .setQueryParams(queryParams.getParameters())
-                .build();
+        var gson = GsonFactory.createGson(queryParams.getSelectedProperties());
+        return connectedSystemsAPI.executeListQuery(queryParams, parameters -> connectedSystemsAPI.newRequestBuilder()
+                        .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
+                        .setResourceId(systemId)
+                        .setSubResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
+                        .setRequestMethod(HttpRequestMethod.GET)
+                        .setQueryParams(parameters)
+                        .build(),
+                request -> request.execute(DataStreamResource.class, gson), DataStreamResource::getId);
+    }
 
-        return apiRequest.execute(DataStreamResource.class);
+    /**
+     * List all {@link DataStreamResource} available from this server endpoint, without blocking the calling thread.
+     * The requests run on the executor of the {@link ConnectedSystemsAPI}, and cancelling the returned future aborts them.
+     * A long list of values is split over several requests as in {@link #getDataStreams(DataStreamsQueryBuilder)}.
+     *
+     * @param queryParams The query parameters to filter the results.
+     * @return A future completed with the {@link APIResponse} containing a list of {@link DataStreamResource},
+     * or exceptionally with the {@link IOException} that occurred.
+     */
+    public CompletableFuture<APIResponse<DataStreamResource>> getDataStreamsAsync(DataStreamsQueryBuilder queryParams) {
+        var gson = GsonFactory.createGson(queryParams.getSelectedProperties());
+        return connectedSystemsAPI.executeListQueryAsync(queryParams, this::newDataStreamsRequest,
+                request -> request.execute(DataStreamResource.class, gson), DataStreamResource::getId);
+    }
+
+    /**
+     * Get a specific {@link DataStreamResource} by its ID, without blocking the calling thread.
+     *
+     * @param dataStreamId The ID of the data stream to retrieve.
+     * @return A future completed with the {@link APIResponse} containing the {@link DataStreamResource},
+     * or exceptionally with the {@link IOException} that occurred. Cancelling it aborts the request.
+     */
+    public CompletableFuture<APIResponse<DataStreamResource>> getDataStreamAsync(String dataStreamId) {
+        return connectedSystemsAPI.executeAsync(connectedSystemsAPI.newRequestBuilder()
+                .setResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
+                .setResourceId(dataStreamId)
+                .setRequestMethod(HttpRequestMethod.GET), DataStreamResource.class, gson);
     }
 
     /**
@@ -90,11 +122,9 @@ public class DataStreamsAPI {
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<DataStreamResource> getDataStream(String dataStreamId) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
                 .setResourceId(dataStreamId)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.GET)
                 .build();
 
@@ -110,12 +140,10 @@ public class DataStreamsAPI {
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<Void> createDataStream(String systemId, DataStreamResource dataStreamResource) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
                 .setResourceId(systemId)
                 .setSubResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.POST)
                 .setBody(gson.toJson(dataStreamResource))
                 .build();
@@ -133,11 +161,9 @@ public class DataStreamsAPI {
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<Void> updateDataStream(String dataStreamId, DataStreamResource dataStreamResource) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
                 .setResourceId(dataStreamId)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.PUT)
                 .setBody(gson.toJson(dataStreamResource))
                 .build();
@@ -165,11 +191,9 @@ public class DataStreamsAPI {
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<Void> deleteDataStream(String dataStreamId, boolean cascade) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
                 .setResourceId(dataStreamId)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.DELETE)
                 .setQueryParams(Map.of("cascade", String.valueOf(cascade)))
                 .build();
@@ -185,15 +209,29 @@ public class DataStreamsAPI {
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<ObservationSchema> getObservationSchema(String dataStreamId) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
                 .setResourceId(dataStreamId)
                 .setSubResourcePath(Endpoint.DATA_STREAM_SCHEMA)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.GET)
                 .build();
 
         return apiRequest.execute(ObservationSchema.class);
     }
+
+    /**
+     * Get the schema of the observations of a datastream, without blocking the calling thread.
+     *
+     * @param dataStreamId The ID of the datastream.
+     * @return A future completed with the {@link APIResponse} containing the {@link ObservationSchema},
+     * or exceptionally with the {@link IOException} that occurred. Cancelling it aborts the request.
+     * @see #getObservationSchema(String)
+     */
+    public CompletableFuture<APIResponse<ObservationSchema>> getObservationSchemaAsync(String dataStreamId) {
+        return connectedSystemsAPI.executeAsync(connectedSystemsAPI.newRequestBuilder()
+                .setResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
+                .setResourceId(dataStreamId)
+                .setSubResourcePath(Endpoint.DATA_STREAM_SCHEMA)
+                .setRequestMethod(HttpRequestMethod.GET), ObservationSchema.class, gson);
+    }
 }
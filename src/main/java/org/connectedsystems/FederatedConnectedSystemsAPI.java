@@ -0,0 +1,138 @@
+package org.connectedsystems;
+
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.datamodels.DataStreamResource;
+import org.connectedsystems.datamodels.ObservationResource;
+import org.connectedsystems.datamodels.SystemResource;
+import org.connectedsystems.net.APIResponse;
+import org.connectedsystems.net.FederatedResponse;
+import org.connectedsystems.util.DataStreamsQueryBuilder;
+import org.connectedsystems.util.ObservationsQueryBuilder;
+import org.connectedsystems.util.SystemsQueryBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs the same query against several Connected Systems API servers concurrently, e.g., one server per region.
+ * <p>
+ * Each server is queried on the executor of its own {@link ConnectedSystemsAPI},
+ * so the total latency is that of the slowest server rather than the sum of all of them.
+ * The servers may share a single executor, see {@link ConnectedSystemsAPI#ConnectedSystemsAPI(String, String, java.util.concurrent.ExecutorService)};
+ * they remain owned by the caller, who closes them.
+ * <p>
+ * To keep a straggler from holding up the whole query, set a deadline with {@link #setServerDeadline(Duration)}:
+ * a server that has not answered by then is reported as failed and its requests are aborted.
+ * The requests still in progress can also be aborted at any time with {@link FederatedResponse#cancel()}.
+ */
+public class FederatedConnectedSystemsAPI {
+    private static final Comparator<ObservationResource> PHENOMENON_TIME_ORDER =
+            Comparator.comparing(ObservationResource::getPhenomenonTime, Comparator.nullsLast(Comparator.<Instant>naturalOrder()));
+
+    private final Map<String, ConnectedSystemsAPI> servers;
+    private volatile Duration serverDeadline;
+
+    /**
+     * Constructs a FederatedConnectedSystemsAPI object over the given servers.
+     *
+     * @param servers The servers to query, by name. The names are used to tag the items of each server.
+     * @throws IllegalArgumentException if no servers are given.
+     */
+    public FederatedConnectedSystemsAPI(Map<String, ConnectedSystemsAPI> servers) {
+        if (servers == null || servers.isEmpty()) {
+            throw new IllegalArgumentException("At least one server is required");
+        }
+        this.servers = Collections.unmodifiableMap(new LinkedHashMap<>(servers));
+    }
+
+    /**
+     * @return The servers queried by this object, by name.
+     */
+    public Map<String, ConnectedSystemsAPI> getServers() {
+        return servers;
+    }
+
+    public Duration getServerDeadline() {
+        return serverDeadline;
+    }
+
+    /**
+     * Set the time each server has to answer a query, including all the pages and parts of the query.
+     * A server that has not answered in time fails with a {@link java.util.concurrent.TimeoutException},
+     * reported by {@link FederatedResponse#getErrors()}, and its requests in progress are aborted.
+     *
+     * @param serverDeadline The deadline, or null to wait for every server however long it takes (default: null).
+     * @throws IllegalArgumentException if the deadline is not positive.
+     */
+    public void setServerDeadline(Duration serverDeadline) {
+        if (serverDeadline != null && (serverDeadline.isNegative() || serverDeadline.isZero())) {
+            throw new IllegalArgumentException("serverDeadline must be positive");
+        }
+        this.serverDeadline = serverDeadline;
+    }
+
+    /**
+     * List all {@link SystemResource} matching the query on every server.
+     * Items are yielded as soon as the server they come from has answered.
+     *
+     * @param queryParams The query parameters to filter the results.
+     * @return {@link FederatedResponse} containing the {@link SystemResource} objects of all servers.
+     */
+    public FederatedResponse<SystemResource> getSystems(SystemsQueryBuilder queryParams) {
+        return query(server -> server.getSystemsAPI().getSystemsAsync(queryParams), null);
+    }
+
+    /**
+     * List all {@link DataStreamResource} matching the query on every server.
+     * Items are yielded as soon as the server they come from has answered.
+     *
+     * @param queryParams The query parameters to filter the results.
+     * @return {@link FederatedResponse} containing the {@link DataStreamResource} objects of all servers.
+     */
+    public FederatedResponse<DataStreamResource> getDataStreams(DataStreamsQueryBuilder queryParams) {
+        return query(server -> server.getDataStreamsAPI().getDataStreamsAsync(queryParams), null);
+    }
+
+    /**
+     * List all {@link ObservationResource} matching the query on every server, merged by phenomenon time.
+     * Observations without a phenomenon time come last.
+     *
+     * @param queryParams  The query parameters to filter the results.
+     * @param resultSchema The schema of the observation result, shared by all selected observations,
+     *                     see {@link ObservationsAPI#getObservations(ObservationsQueryBuilder, DataComponent)}.
+     * @return {@link FederatedResponse} containing the {@link ObservationResource} objects of all servers.
+     */
+    public FederatedResponse<ObservationResource> getObservations(ObservationsQueryBuilder queryParams, DataComponent resultSchema) {
+        return query(server -> server.getObservationsAPI().getObservationsAsync(queryParams, resultSchema), PHENOMENON_TIME_ORDER);
+    }
+
+    private <T> FederatedResponse<T> query(Function<ConnectedSystemsAPI, CompletableFuture<APIResponse<T>>> serverQuery, Comparator<T> order) {
+        Duration deadline = serverDeadline;
+        Map<String, CompletableFuture<APIResponse<T>>> responses = new LinkedHashMap<>();
+        servers.forEach((name, server) -> {
+            CompletableFuture<APIResponse<T>> pending = serverQuery.apply(server);
+            CompletableFuture<APIResponse<T>> response = new CompletableFuture<>();
+            pending.whenComplete((result, error) -> {
+                if (error != null) {
+                    response.completeExceptionally(error);
+                } else {
+                    response.complete(result);
+                }
+            });
+            // Only cancelling the pending query aborts its requests, so a cancelled or late response cancels it
+            response.whenComplete((result, error) -> pending.cancel(true));
+            if (deadline != null) {
+                response.orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            responses.put(name, response);
+        });
+        return new FederatedResponse<>(responses, order);
+    }
+}
@@ -1,27 +1,45 @@
 package org.connectedsystems;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import net.opengis.swe.v20.DataComponent;
 import net.opengis.swe.v20.DataRecord;
+import org.connectedsystems.datamodels.DatamodelTypeAdapterFactory;
 import org.connectedsystems.datamodels.FeatureType;
 import org.connectedsystems.serialization.*;
 import org.vast.util.TimeExtent;
 
 import java.time.Instant;
+import java.util.Set;
 
+/**
+ * Creates the Gson instances used to serialize the resources of the API.
+ * <p>
+ * Gson instances and all the type adapters registered here are thread-safe:
+ * {@link #gson} and the instances returned by the {@code createGson} methods can be shared by any number of threads.
+ * <p>
+ * Schemas parsed by these instances are new instances owned by the caller; they are not interned, see {@link SchemaRegistry}.
+ * The schemas passed to the {@code createGson} methods are copied, so later changes to them do not affect the returned instances.
+ */
 public class GsonFactory {
+    /**
+     * Shared Gson instance for resources that do not contain observation results.
+     */
     public static final Gson gson;
 
+    private static final int MAX_CACHED_GSONS = 256;
+    private static final Cache<SchemaFingerprint, Gson> gsonBySchema = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_GSONS)
+            .build();
+    private static final Cache<ProjectionKey, Gson> gsonByProjection = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_GSONS)
+            .build();
+    private static final CacheStatistics gsonStatistics = new CacheStatistics();
+
     static {
-        gson = new GsonBuilder()
-                .registerTypeAdapter(FeatureType.class, new FeatureTypeSerializer())
-                .registerTypeAdapter(TimeExtent.class, new TimeExtentSerializer())
-                .registerTypeAdapter(DataComponent.class, new DataComponentSerializer())
-                .registerTypeAdapter(DataRecord.class, new DataRecordSerializer())
-                .registerTypeAdapter(Instant.class, new InstantSerializer())
-                .setPrettyPrinting()
-                .create();
+        gson = newGson(null, null);
     }
 
     private GsonFactory() {
@@ -30,19 +48,93 @@ public class GsonFactory {
 
     /**
      * Used for serialization of DataBlock objects, which require a schema to be deserialized.
+     * <p>
+     * Instances are cached by {@link SchemaFingerprint}, so all equal schemas share the same instance.
      *
      * @param resultSchema The schema to use for deserialization of DataBlock objects.
      * @return A Gson instance with the necessary TypeAdapters registered.
      */
     public static Gson createGson(DataComponent resultSchema) {
-        return new GsonBuilder()
+        SchemaFingerprint fingerprint = SchemaRegistry.DEFAULT.fingerprint(resultSchema);
+        return SchemaRegistry.lookup(gsonBySchema, "gson", fingerprint, key -> newGson(resultSchema, null), gsonStatistics);
+    }
+
+    /**
+     * Used for deserialization of a selection of the properties of observations,
+     * e.g., those requested from the server with a {@code select} query parameter.
+     * Properties that are not selected are skipped without being deserialized.
+     * <p>
+     * Instances are cached by {@link SchemaFingerprint} and selection.
+     *
+     * @param resultSchema       The schema to use for deserialization of DataBlock objects.
+     * @param selectedProperties The names of the properties to deserialize, or null to deserialize all of them.
+     * @return A Gson instance with the necessary TypeAdapters registered.
+     */
+    public static Gson createGson(DataComponent resultSchema, Set<String> selectedProperties) {
+        if (selectedProperties == null) {
+            return createGson(resultSchema);
+        }
+        ProjectionKey projection = new ProjectionKey(SchemaRegistry.DEFAULT.fingerprint(resultSchema), Set.copyOf(selectedProperties));
+        return SchemaRegistry.lookup(gsonByProjection, "gson", projection, key -> newGson(resultSchema, key.properties()), gsonStatistics);
+    }
+
+    /**
+     * Used for deserialization of a selection of the properties of resources that do not contain observation results,
+     * e.g., datastreams.
+     *
+     * @param selectedProperties The names of the properties to deserialize, or null to deserialize all of them.
+     * @return {@link #gson} if all properties are selected, or else a Gson instance skipping the other properties.
+     * @see #createGson(DataComponent, Set)
+     */
+    public static Gson createGson(Set<String> selectedProperties) {
+        if (selectedProperties == null) {
+            return gson;
+        }
+        ProjectionKey projection = new ProjectionKey(null, Set.copyOf(selectedProperties));
+        return SchemaRegistry.lookup(gsonByProjection, "gson", projection, key -> newGson(null, key.properties()), gsonStatistics);
+    }
+
+    /**
+     * @return The number of Gson instances cached by schema or by selection of properties.
+     */
+    public static long getCacheSize() {
+        return gsonBySchema.size() + gsonByProjection.size();
+    }
+
+    /**
+     * @return The hit and miss counts of the {@code createGson} methods taking a schema or a selection of properties.
+     */
+    public static CacheStatistics getCacheStatistics() {
+        return gsonStatistics;
+    }
+
+    private static Gson newGson(DataComponent resultSchema, Set<String> selectedProperties) {
+        GsonBuilder builder = new GsonBuilder()
                 .registerTypeAdapter(FeatureType.class, new FeatureTypeSerializer())
                 .registerTypeAdapter(TimeExtent.class, new TimeExtentSerializer())
                 .registerTypeAdapter(DataComponent.class, new DataComponentSerializer())
                 .registerTypeAdapter(DataRecord.class, new DataRecordSerializer())
                 .registerTypeAdapter(Instant.class, new InstantSerializer())
-                .registerTypeAdapterFactory(new DataBlockTypeAdapterFactory(resultSchema))
+                .registerTypeAdapterFactory(new DatamodelTypeAdapterFactory(selectedProperties));
+        if (resultSchema != null) {
+            // The instance is cached and shared, so it must not depend on a schema the caller may still modify
+            builder.registerTypeAdapterFactory(new DataBlockTypeAdapterFactory(resultSchema.copy()));
+        }
+        return builder
                 .setPrettyPrinting()
                 .create();
     }
+
+    /**
+     * The key of a Gson instance deserializing a selection of properties.
+     *
+     * @param schema     The fingerprint of the result schema, or null if there is none.
+     * @param properties The selected properties.
+     */
+    private record ProjectionKey(SchemaFingerprint schema, Set<String> properties) {
+        @Override
+        public String toString() {
+            return schema + " " + properties;
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package org.connectedsystems;
 
+import com.google.gson.Gson;
 import net.opengis.swe.v20.DataComponent;
 import org.connectedsystems.datamodels.ObservationResource;
 import org.connectedsystems.datamodels.ObservationSchema;
@@ -7,12 +8,23 @@ import org.connectedsystems.net.APIRequest;
 import org.connectedsystems.net.APIResponse;
 import org.connectedsystems.net.Endpoint;
 import org.connectedsystems.net.HttpRequestMethod;
+import org.connectedsystems.net.PagedResponse;
 import org.connectedsystems.util.ObservationsOfDataStreamQueryBuilder;
 import org.connectedsystems.util.ObservationsQueryBuilder;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class ObservationsAPI {
+    private static final String SELECT = "select";
+    private static final String RESULT = "result";
+    private static final String DATA_STREAM_ID = "datastream@id";
+
     private final ConnectedSystemsAPI connectedSystemsAPI;
 
     public ObservationsAPI(ConnectedSystemsAPI connectedSystemsAPI) {
@@ -37,23 +49,137 @@ public class ObservationsAPI {
      * <p>
      * Note: This method does not deserialize the observations; it only returns the raw JSON response.
      * Use {@link #getObservationsOfDataStream(String, DataComponent, ObservationsOfDataStreamQueryBuilder)} to deserialize the observations.
+     * <p>
+     * As the raw responses of several requests cannot be merged, a query too long for a single URL is rejected rather than split,
+     * see {@link ConnectedSystemsAPI#setMaxQueryLength(int)}; use {@link #getObservationsOfDataStreams(ObservationsQueryBuilder)} for long lists of values.
      *
      * @param queryParams {@link ObservationsQueryBuilder} containing the query parameters.
      * @return {@link APIResponse} containing the list of observations.
-     * @throws IOException if an error occurs while making the API request.
+     * @throws IOException              if an error occurs while making the API request.
+     * @throws IllegalArgumentException if the query would need to be split into several requests.
      */
     public APIResponse<Void> getObservations(ObservationsQueryBuilder queryParams) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        List<Map<String, String>> chunks = queryParams.getChunkedParameters(connectedSystemsAPI.getMaxQueryLength());
+        if (chunks.size() > 1) {
+            throw new IllegalArgumentException("The query is too long for a single request and the raw responses of several cannot be merged");
+        }
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.OBSERVATIONS_COLLECTION)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.GET)
-                .setQueryParams(queryParams.getParameters())
+                .setQueryParams(chunks.get(0))
                 .build();
 
         return apiRequest.execute(Void.class);
     }
 
+    /**
+     * List all {@link ObservationResource} available from this server endpoint,
+     * deserializing the result of every observation with the same schema.
+     * <p>
+     * Only use this method when all observations selected by the query share the given result schema,
+     * e.g., when filtering on data streams that all derive from the same system output.
+     *
+     * <p>
+     * If the lists of datastreams, systems, or other filters make the URL too long, the query is sent in several parts,
+     * concurrently, and their observations are merged in the order of the parts, see {@link ConnectedSystemsAPI#setMaxQueryLength(int)}.
+     * The limit then applies to the merged observations; without a limit, all the pages of each part are fetched.
+     *
+     * @param queryParams  {@link ObservationsQueryBuilder} containing the query parameters.
+     * @param resultSchema the schema of the observation result, shared by all selected observations.
+     * @return {@link APIResponse} containing the list of {@link ObservationResource}.
+     * @throws IOException if an error occurs while making the API request.
+     */
+    public APIResponse<ObservationResource> getObservations(ObservationsQueryBuilder queryParams, DataComponent resultSchema) throws IOException {
+        var gson = GsonFactory.createGson(resultSchema, queryParams.getSelectedProperties());
+        return connectedSystemsAPI.executeListQuery(queryParams, this::newObservationsRequest,
+                request -> request.execute(ObservationResource.class, gson), ObservationResource::getId);
+    }
+
+    /**
+     * List all {@link ObservationResource} available from this server endpoint without blocking the calling thread,
+     * deserializing the result of every observation with the same schema.
+     * The requests run on the executor of the {@link ConnectedSystemsAPI}; cancelling the returned future aborts them.
+     * A long query is split over several requests as in the blocking variant.
+     *
+     * @param queryParams  {@link ObservationsQueryBuilder} containing the query parameters.
+     * @param resultSchema the schema of the observation result, shared by all selected observations.
+     * @return A future completed with the {@link APIResponse} containing the list of {@link ObservationResource},
+     * or exceptionally with the {@link IOException} that occurred.
+     * @see #getObservations(ObservationsQueryBuilder, DataComponent)
+     */
+    public CompletableFuture<APIResponse<ObservationResource>> getObservationsAsync(ObservationsQueryBuilder queryParams, DataComponent resultSchema) {
+        var gson = GsonFactory.createGson(resultSchema, queryParams.getSelectedProperties());
+        return connectedSystemsAPI.executeListQueryAsync(queryParams, this::newObservationsRequest,
+                request -> request.execute(ObservationResource.class, gson), ObservationResource::getId);
+    }
+
+    private APIRequest newObservationsRequest(Map<String, String> parameters) throws IOException {
+        return connectedSystemsAPI.newRequestBuilder()
+                .setResourcePath(Endpoint.OBSERVATIONS_COLLECTION)
+                .setRequestMethod(HttpRequestMethod.GET)
+                .setQueryParams(parameters)
+                .build();
+    }
+
+    /**
+     * List all {@link ObservationResource} available from this server endpoint,
+     * deserializing the result of each observation with the result schema of its own datastream.
+     * <p>
+     * The datastreams of the observations are found from their {@code datastream@id} property once the page is read,
+     * and the result schemas not yet in the {@link ResultSchemaCache} of the API are fetched concurrently before
+     * any observation is deserialized, so a page mixing many datastreams costs one round trip per unknown schema,
+     * all in parallel, rather than one after the other.
+     * If the query selects the result but not {@code datastream@id}, the latter is added to the selection.
+     * Long lists of values are split over several requests as in {@link #getObservations(ObservationsQueryBuilder, DataComponent)}.
+     *
+     * @param queryParams {@link ObservationsQueryBuilder} containing the query parameters.
+     * @return {@link APIResponse} containing the list of {@link ObservationResource}.
+     * @throws IOException if an error occurs while making the API request or fetching the result schemas.
+     */
+    public APIResponse<ObservationResource> getObservationsOfDataStreams(ObservationsQueryBuilder queryParams) throws IOException {
+        Set<String> selected = queryParams.getSelectedProperties();
+        if (selected != null && !selects(selected, RESULT)) {
+            // Without results, the observations of all datastreams are deserialized alike
+            var gson = GsonFactory.createGson(selected);
+            return connectedSystemsAPI.executeListQuery(queryParams, parameters -> connectedSystemsAPI.newRequestBuilder()
+                            .setResourcePath(Endpoint.OBSERVATIONS_COLLECTION)
+                            .setRequestMethod(HttpRequestMethod.GET)
+                            .setQueryParams(parameters)
+                            .build(),
+                    request -> request.execute(ObservationResource.class, gson), ObservationResource::getId);
+        }
+
+        ResultSchemaCache resultSchemaCache = connectedSystemsAPI.getResultSchemaCache();
+        return connectedSystemsAPI.executeListQuery(queryParams, parameters -> {
+            // The selection of a next link already includes the datastream ID if it was added to the first page
+            String select = parameters.get(SELECT);
+            if (select != null && !selects(Set.of(select.split(",")), DATA_STREAM_ID)) {
+                parameters = new LinkedHashMap<>(parameters);
+                parameters.put(SELECT, select + "," + DATA_STREAM_ID);
+            }
+            return connectedSystemsAPI.newRequestBuilder()
+                    .setResourcePath(Endpoint.OBSERVATIONS_COLLECTION)
+                    .setRequestMethod(HttpRequestMethod.GET)
+                    .setQueryParams(parameters)
+                    .build();
+        }, request -> request.execute(ObservationResource.class, DATA_STREAM_ID, dataStreamIds -> {
+            Map<String, Gson> gsons = new HashMap<>();
+            resultSchemaCache.getAll(dataStreamIds).forEach((dataStreamId, resultSchema) ->
+                    gsons.put(dataStreamId, GsonFactory.createGson(resultSchema, selected)));
+            return gsons;
+        }), ObservationResource::getId);
+    }
+
+    /**
+     * @return True if the selection includes the given top-level property, or one of its nested properties.
+     */
+    private static boolean selects(Set<String> selected, String property) {
+        for (String name : selected) {
+            if (name.equals(property) || name.startsWith(property + ".")) return true;
+        }
+        return false;
+    }
+
     /**
      * List all {@link ObservationResource} available from a specific datastream.
      *
@@ -76,22 +202,93 @@ public class ObservationsAPI {
      *                     This is used to deserialize the result field of the observation.
      *                     Typically, this comes from {@link ObservationSchema#getResultSchema()} of the datastream.
      * @param queryParams  {@link ObservationsOfDataStreamQueryBuilder} containing the query parameters.
+     *                     A list of observation IDs too long for a single URL is split over several requests.
      * @return {@link APIResponse} containing the list of {@link ObservationResource}.
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<ObservationResource> getObservationsOfDataStream(String dataStreamId, DataComponent resultSchema, ObservationsOfDataStreamQueryBuilder queryParams) throws IOException {
-        var gson = GsonFactory.createGson(resultSchema);
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        var gson = GsonFactory.createGson(resultSchema, queryParams.getSelectedProperties());
+        return connectedSystemsAPI.executeListQuery(queryParams, parameters -> newObservationsOfDataStreamRequest(dataStreamId, parameters),
+                request -> request.execute(ObservationResource.class, gson), ObservationResource::getId);
+    }
+
+    private APIRequest newObservationsOfDataStreamRequest(String dataStreamId, Map<String, String> parameters) throws IOException {
+        return connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
                 .setResourceId(dataStreamId)
                 .setSubResourcePath(Endpoint.OBSERVATIONS_COLLECTION)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.GET)
-                .setQueryParams(queryParams.getParameters())
+                .setQueryParams(parameters)
                 .build();
+    }
 
-        return apiRequest.execute(ObservationResource.class, gson);
+    /**
+     * List all {@link ObservationResource} available from a specific datastream, following the pages of the response,
+     * e.g., to backfill a datastream.
+     * The next page is transferred while the current one is decoded and processed, see {@link PagedResponse}.
+     *
+     * @param dataStreamId the ID of the datastream.
+     * @param resultSchema the schema of the observation result.
+     *                     This is used to deserialize the result field of the observation.
+     *                     Typically, this comes from {@link ObservationSchema#getResultSchema()} of the datastream.
+     * @param queryParams  {@link ObservationsOfDataStreamQueryBuilder} containing the query parameters of the first page.
+     *                     A query too long for a single URL is split, and the pages of each part are read one part after the other.
+     * @return {@link PagedResponse} over the pages of {@link ObservationResource}, to be closed if not iterated to the end.
+     * Errors that occur while fetching a page are thrown when iterating to that page.
+     */
+    public PagedResponse<ObservationResource> getAllObservationsOfDataStream(String dataStreamId, DataComponent resultSchema, ObservationsOfDataStreamQueryBuilder queryParams) {
+        return getAllObservationsOfDataStream(dataStreamId, resultSchema, queryParams, PagedResponse.DEFAULT_PREFETCH_PAGES);
+    }
+
+    /**
+     * List all {@link ObservationResource} available from a specific datastream, following the pages of the response,
+     * e.g., to backfill a datastream.
+     * The next pages are transferred while the current one is decoded and processed, see {@link PagedResponse}.
+     *
+     * @param dataStreamId  the ID of the datastream.
+     * @param resultSchema  the schema of the observation result.
+     *                      This is used to deserialize the result field of the observation.
+     *                      Typically, this comes from {@link ObservationSchema#getResultSchema()} of the datastream.
+     * @param queryParams   {@link ObservationsOfDataStreamQueryBuilder} containing the query parameters of the first page.
+     *                      A query too long for a single URL is split, see {@link ConnectedSystemsAPI#setMaxQueryLength(int)},
+     *                      and the pages of each part are read one part after the other, without merging or deduplicating
+     *                      their observations, which are distinct unless the query is split on features of interest or observed properties.
+     * @param prefetchPages the maximum number of pages transferred ahead of the page being processed,
+     *                      or 0 to transfer each page only once the previous one has been processed.
+     * @return {@link PagedResponse} over the pages of {@link ObservationResource}, to be closed if not iterated to the end.
+     * Errors that occur while fetching a page are thrown when iterating to that page.
+     */
+    public PagedResponse<ObservationResource> getAllObservationsOfDataStream(String dataStreamId, DataComponent resultSchema, ObservationsOfDataStreamQueryBuilder queryParams,
+                                                                             int prefetchPages) {
+        var gson = GsonFactory.createGson(resultSchema, queryParams.getSelectedProperties());
+        APIRequest.APIRequestBuilder requestBuilder = connectedSystemsAPI.newRequestBuilder()
+                .setResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
+                .setResourceId(dataStreamId)
+                .setSubResourcePath(Endpoint.OBSERVATIONS_COLLECTION)
+                .setRequestMethod(HttpRequestMethod.GET);
+        List<Map<String, String>> chunks = queryParams.getChunkedParameters(connectedSystemsAPI.getMaxQueryLength());
+
+        return new PagedResponse<>(ObservationResource.class, requestBuilder, chunks, gson, prefetchPages);
+    }
+
+    /**
+     * List the {@link ObservationResource} of a specific datastream without blocking the calling thread,
+     * e.g., to query many datastreams at once.
+     * The requests run on the executor of the {@link ConnectedSystemsAPI}; cancelling the returned future aborts them.
+     * A long list of observation IDs is split over several requests as in the blocking variant.
+     *
+     * @param dataStreamId the ID of the datastream.
+     * @param resultSchema the schema of the observation result.
+     * @param queryParams  {@link ObservationsOfDataStreamQueryBuilder} containing the query parameters.
+     * @return A future completed with the {@link APIResponse} containing the list of {@link ObservationResource},
+     * or exceptionally with the {@link IOException} that occurred.
+     * @see #getObservationsOfDataStream(String, DataComponent, ObservationsOfDataStreamQueryBuilder)
+     */
+    public CompletableFuture<APIResponse<ObservationResource>> getObservationsOfDataStreamAsync(String dataStreamId, DataComponent resultSchema,
+                                                                                             ObservationsOfDataStreamQueryBuilder queryParams) {
+        var gson = GsonFactory.createGson(resultSchema, queryParams.getSelectedProperties());
+        return connectedSystemsAPI.executeListQueryAsync(queryParams, parameters -> newObservationsOfDataStreamRequest(dataStreamId, parameters),
+                request -> request.execute(ObservationResource.class, gson), ObservationResource::getId);
     }
 
     /**
@@ -106,11 +303,9 @@ public class ObservationsAPI {
      */
     public APIResponse<ObservationResource> getObservation(String observationId, DataComponent resultSchema) throws IOException {
         var gson = GsonFactory.createGson(resultSchema);
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.OBSERVATIONS_COLLECTION)
                 .setResourceId(observationId)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.GET)
                 .build();
 
@@ -127,12 +322,10 @@ public class ObservationsAPI {
      */
     public APIResponse<Void> createObservation(String dataStreamId, ObservationResource observationResource, DataComponent resultSchema) throws IOException {
         var gson = GsonFactory.createGson(resultSchema);
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
                 .setResourceId(dataStreamId)
                 .setSubResourcePath(Endpoint.OBSERVATIONS_COLLECTION)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.POST)
                 .setBody(gson.toJson(observationResource))
                 .build();
@@ -140,6 +333,27 @@ public class ObservationsAPI {
         return apiRequest.execute(Void.class);
     }
 
+    /**
+     * Add a new observation to an existing datastream without blocking the calling thread,
+     * e.g., to keep several uploads in flight. Cancelling the returned future aborts the request,
+     * though the server may still have received the observation.
+     *
+     * @param dataStreamId        the ID of the datastream.
+     * @param observationResource the observation to add.
+     * @param resultSchema        the schema of the observation result.
+     * @return A future completed with the {@link APIResponse} containing the response from the server,
+     * or exceptionally with the {@link IOException} that occurred.
+     */
+    public CompletableFuture<APIResponse<Void>> createObservationAsync(String dataStreamId, ObservationResource observationResource, DataComponent resultSchema) {
+        var gson = GsonFactory.createGson(resultSchema);
+        return connectedSystemsAPI.executeAsync(connectedSystemsAPI.newRequestBuilder()
+                .setResourcePath(Endpoint.DATA_STREAMS_COLLECTION)
+                .setResourceId(dataStreamId)
+                .setSubResourcePath(Endpoint.OBSERVATIONS_COLLECTION)
+                .setRequestMethod(HttpRequestMethod.POST)
+                .setBody(gson.toJson(observationResource)), Void.class, gson);
+    }
+
     /**
      * Update an existing observation.
      *
@@ -150,11 +364,9 @@ public class ObservationsAPI {
      */
     public APIResponse<Void> updateObservation(String observationId, ObservationResource observationResource, DataComponent resultSchema) throws IOException {
         var gson = GsonFactory.createGson(resultSchema);
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.OBSERVATIONS_COLLECTION)
                 .setResourceId(observationId)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.PUT)
                 .setBody(gson.toJson(observationResource))
                 .build();
@@ -170,11 +382,9 @@ public class ObservationsAPI {
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<Void> deleteObservation(String observationId) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.OBSERVATIONS_COLLECTION)
                 .setResourceId(observationId)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.DELETE)
                 .build();
 
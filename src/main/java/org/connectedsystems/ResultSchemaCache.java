@@ -0,0 +1,144 @@
+package org.connectedsystems;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.datamodels.ObservationSchema;
+import org.connectedsystems.net.APIResponse;
+import org.connectedsystems.serialization.CacheStatistics;
+import org.connectedsystems.serialization.SchemaRegistry;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * The result schemas of datastreams, by datastream ID, fetched from the server on first use.
+ * <p>
+ * Used to deserialize observations of several datastreams, e.g., from the generic observations endpoint,
+ * each with the result schema of its own datastream.
+ * The schemas missing from a batch of IDs are fetched concurrently, and a schema is fetched at most once
+ * however many threads ask for it at the same time; a failed fetch is not cached, so it is retried on the next lookup.
+ * <p>
+ * The cache is thread-safe. Cached schemas are interned in {@link SchemaRegistry#DEFAULT}, so they are shared
+ * by all the datastreams with an equal schema and must be treated as read-only.
+ */
+public class ResultSchemaCache {
+    private static final String RESULT_SCHEMAS_CACHE = "resultSchemas";
+    private static final int MAX_CACHED_SCHEMAS = 10_000;
+
+    private final DataStreamsAPI dataStreamsAPI;
+    private final Executor executor;
+    private final Cache<String, CompletableFuture<DataComponent>> schemas = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_SCHEMAS)
+            .build();
+    private final CacheStatistics statistics = new CacheStatistics();
+
+    ResultSchemaCache(DataStreamsAPI dataStreamsAPI, Executor executor) {
+        this.dataStreamsAPI = dataStreamsAPI;
+        this.executor = executor;
+    }
+
+    /**
+     * Get the result schema of a datastream, fetching it if it is not cached.
+     *
+     * @param dataStreamId The ID of the datastream.
+     * @return The result schema.
+     * @throws IOException if the schema could not be fetched.
+     */
+    public DataComponent get(String dataStreamId) throws IOException {
+        return getAll(List.of(dataStreamId)).get(dataStreamId);
+    }
+
+    /**
+     * Get the result schemas of several datastreams, fetching those that are not cached concurrently.
+     *
+     * @param dataStreamIds The IDs of the datastreams.
+     * @return The result schemas by datastream ID, in the order of the given IDs.
+     * @throws IOException if any of the schemas could not be fetched.
+     */
+    public Map<String, DataComponent> getAll(Collection<String> dataStreamIds) throws IOException {
+        // Start all the fetches before waiting for any of them
+        Map<String, CompletableFuture<DataComponent>> futures = new LinkedHashMap<>();
+        for (String dataStreamId : dataStreamIds) {
+            if (dataStreamId == null) {
+                throw new IllegalArgumentException("dataStreamIds cannot contain null");
+            }
+            futures.put(dataStreamId, SchemaRegistry.lookup(schemas, RESULT_SCHEMAS_CACHE, dataStreamId, this::fetch, statistics));
+        }
+
+        Map<String, DataComponent> resolved = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<DataComponent>> entry : futures.entrySet()) {
+            try {
+                resolved.put(entry.getKey(), entry.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while fetching the result schema of datastream " + entry.getKey());
+            } catch (ExecutionException e) {
+                schemas.asMap().remove(entry.getKey(), entry.getValue());
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException ioException) throw ioException;
+                if (cause instanceof UncheckedIOException uncheckedIOException) throw uncheckedIOException.getCause();
+                throw new IOException("Error fetching the result schema of datastream " + entry.getKey(), cause);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Remove the result schema of a datastream from the cache, e.g., after its schema was updated.
+     *
+     * @param dataStreamId The ID of the datastream.
+     */
+    public void invalidate(String dataStreamId) {
+        schemas.invalidate(dataStreamId);
+    }
+
+    /**
+     * Remove all the result schemas from the cache.
+     */
+    public void invalidateAll() {
+        schemas.invalidateAll();
+    }
+
+    /**
+     * @return The number of result schemas cached or being fetched.
+     */
+    public long size() {
+        return schemas.size();
+    }
+
+    /**
+     * @return The hit and miss counts of the cache, a miss being a datastream whose schema had to be fetched.
+     */
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    private CompletableFuture<DataComponent> fetch(String dataStreamId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                APIResponse<ObservationSchema> response = dataStreamsAPI.getObservationSchema(dataStreamId);
+                if (!response.isSuccessful()) {
+                    throw new IOException("Error fetching the result schema of datastream " + dataStreamId + ": "
+                            + response.getResponseCode() + " " + response.getResponseMessage());
+                }
+                ObservationSchema schema = response.getItem();
+                if (schema == null || schema.getResultSchema() == null) {
+                    throw new IOException("Datastream " + dataStreamId + " has no result schema");
+                }
+                return SchemaRegistry.DEFAULT.intern(schema.getResultSchema());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+}
@@ -10,6 +10,7 @@ import org.connectedsystems.util.SystemsQueryBuilder;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.connectedsystems.GsonFactory.gson;
 
@@ -37,21 +38,24 @@ public class SystemsAPI {
 
     /**
      * List all {@link SystemResource} available from this server endpoint.
+     * A query with a list of values too long for a single URL, e.g., thousands of IDs, is split into several requests,
+     * see {@link ConnectedSystemsAPI#setMaxQueryLength(int)}.
      *
      * @param queryParams The query parameters to filter the results.
      * @return {@link APIResponse} containing a list of {@link SystemResource} objects.
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<SystemResource> getSystems(SystemsQueryBuilder queryParams) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        return connectedSystemsAPI.executeListQuery(queryParams, this::newSystemsRequest,
+                request -> request.execute(SystemResource.class), SystemResource::getId);
+    }
+
+    private APIRequest newSystemsRequest(Map<String, String> parameters) throws IOException {
+        return connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.GET)
-                .setQueryParams(queryParams.getParameters())
+                .setQueryParams(parameters)
                 .build();
-
-        return apiRequest.execute(SystemResource.class);
     }
 
     /**
@@ -69,22 +73,19 @@ public class SystemsAPI {
      * List all {@link SystemResource} that are subsystems (i.e., components) of a specific parent system.
      *
      * @param systemId    The ID of the system to get subsystems for.
-     * @param queryParams The query parameters to filter the results.
+     * @param queryParams The query parameters to filter the results. Long lists of values are split as in {@link #getSystems(SystemsQueryBuilder)}.
      * @return {@link APIResponse} containing a list of {@link SystemResource} objects.
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<SystemResource> getSubsystems(String systemId, SystemsQueryBuilder queryParams) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
-                .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
-                .setResourceId(systemId)
-                .setSubResourcePath(Endpoint.SUBSYSTEMS_COLLECTION)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
-                .setRequestMethod(HttpRequestMethod.GET)
-                .setQueryParams(queryParams.getParameters())
-                .build();
-
-        return apiRequest.execute(SystemResource.class);
+        return connectedSystemsAPI.executeListQuery(queryParams, parameters -> connectedSystemsAPI.newRequestBuilder()
+                        .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
+                        .setResourceId(systemId)
+                        .setSubResourcePath(Endpoint.SUBSYSTEMS_COLLECTION)
+                        .setRequestMethod(HttpRequestMethod.GET)
+                        .setQueryParams(parameters)
+                        .build(),
+                request -> request.execute(SystemResource.class), SystemResource::getId);
     }
 
     /**
@@ -95,17 +96,45 @@ public class SystemsAPI {
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<SystemResource> getSystem(String systemId) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
                 .setResourceId(systemId)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.GET)
                 .build();
 
         return apiRequest.execute(SystemResource.class);
     }
 
+    /**
+     * List all {@link SystemResource} available from this server endpoint, without blocking the calling thread.
+     * The requests run on the executor of the {@link ConnectedSystemsAPI}; cancelling the returned future aborts them.
+     * A long list of values is split over several requests as in {@link #getSystems(SystemsQueryBuilder)}.
+     * To give the call a deadline, use a view with shorter timeouts, see {@link ConnectedSystemsAPI#withRequestTimeouts}.
+     *
+     * @param queryParams The query parameters to filter the results.
+     * @return A future completed with the {@link APIResponse} containing a list of {@link SystemResource} objects,
+     * or exceptionally with the {@link IOException} that occurred.
+     */
+    public CompletableFuture<APIResponse<SystemResource>> getSystemsAsync(SystemsQueryBuilder queryParams) {
+        return connectedSystemsAPI.executeListQueryAsync(queryParams, this::newSystemsRequest,
+                request -> request.execute(SystemResource.class), SystemResource::getId);
+    }
+
+    /**
+     * Get the latest {@link SystemResource} without blocking the calling thread; cancelling the returned future aborts the request.
+     *
+     * @param systemId The ID of the system to get the latest version of.
+     * @return A future completed with the {@link APIResponse} containing the {@link SystemResource} object,
+     * or exceptionally with the {@link IOException} that occurred.
+     * @see #getSystem(String)
+     */
+    public CompletableFuture<APIResponse<SystemResource>> getSystemAsync(String systemId) {
+        return connectedSystemsAPI.executeAsync(connectedSystemsAPI.newRequestBuilder()
+                .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
+                .setResourceId(systemId)
+                .setRequestMethod(HttpRequestMethod.GET), SystemResource.class, gson);
+    }
+
     /**
      * Get the latest {@link SystemResource} valid before or at the current time, by default.
      *
@@ -114,10 +143,8 @@ public class SystemsAPI {
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<SystemResource> getSystemByUid(String systemUid) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.GET)
                 .setQueryParams(Map.of("uid", systemUid))
                 .build();
@@ -134,10 +161,8 @@ public class SystemsAPI {
      */
     public APIResponse<Void> createSystem(SystemResource systemResource) throws IOException {
         String systemResourceJson = gson.toJson(systemResource);
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setBody(systemResourceJson)
                 .setRequestMethod(HttpRequestMethod.POST)
                 .build();
@@ -155,12 +180,10 @@ public class SystemsAPI {
      */
     public APIResponse<Void> createSubsystem(String systemId, SystemResource systemResource) throws IOException {
         String systemResourceJson = gson.toJson(systemResource);
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
                 .setResourceId(systemId)
                 .setSubResourcePath(Endpoint.SUBSYSTEMS_COLLECTION)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setBody(systemResourceJson)
                 .setRequestMethod(HttpRequestMethod.POST)
                 .build();
@@ -183,11 +206,9 @@ public class SystemsAPI {
      */
     public APIResponse<Void> updateSystem(String systemId, SystemResource systemResource) throws IOException {
         String systemResourceJson = gson.toJson(systemResource);
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
                 .setResourceId(systemId)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setBody(systemResourceJson)
                 .setRequestMethod(HttpRequestMethod.PUT)
                 .build();
@@ -217,11 +238,9 @@ public class SystemsAPI {
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse<Void> deleteSystem(String systemId, boolean cascade) throws IOException {
-        APIRequest apiRequest = new APIRequest.APIRequestBuilder()
-                .setApiRoot(connectedSystemsAPI.apiRoot)
+        APIRequest apiRequest = connectedSystemsAPI.newRequestBuilder()
                 .setResourcePath(Endpoint.SYSTEMS_COLLECTION)
                 .setResourceId(systemId)
-                .setAuthorizationToken(connectedSystemsAPI.authorizationToken)
                 .setRequestMethod(HttpRequestMethod.DELETE)
                 .setQueryParams(Map.of("cascade", String.valueOf(cascade)))
                 .build();
@@ -0,0 +1,117 @@
+package org.connectedsystems.datamodels;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.vast.util.TimeExtent;
+
+import java.io.IOException;
+import java.util.Set;
+
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.nextSelectedName;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readBoolean;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readEnum;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readList;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readString;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.writeEnum;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.writeList;
+
+/**
+ * Reads and writes {@link DataStreamResource} objects without reflection.
+ * Properties that are not selected, see {@link DatamodelTypeAdapterFactory#DatamodelTypeAdapterFactory(Set)}, are skipped when reading.
+ * The datastream and result types are read and written as by Gson's enum adapter, see {@link DatamodelTypeAdapterFactory}.
+ */
+class DataStreamResourceTypeAdapter extends TypeAdapter<DataStreamResource> {
+    private final TypeAdapter<String> stringAdapter;
+    private final TypeAdapter<TimeExtent> timeExtentAdapter;
+    private final TypeAdapter<Link> linkAdapter;
+    private final TypeAdapter<ObservedProperty> observedPropertyAdapter;
+    private final TypeAdapter<ObservationSchema> schemaAdapter;
+    private final Set<String> selectedProperties;
+
+    DataStreamResourceTypeAdapter(Gson gson, Set<String> selectedProperties) {
+        this.stringAdapter = gson.getAdapter(String.class);
+        this.timeExtentAdapter = gson.getAdapter(TimeExtent.class);
+        this.linkAdapter = gson.getAdapter(Link.class);
+        this.observedPropertyAdapter = gson.getAdapter(ObservedProperty.class);
+        this.schemaAdapter = gson.getAdapter(ObservationSchema.class);
+        this.selectedProperties = selectedProperties;
+    }
+
+    @Override
+    public void write(JsonWriter out, DataStreamResource dataStream) throws IOException {
+        out.beginObject();
+        out.name("id").value(dataStream.id);
+        out.name("name").value(dataStream.name);
+        out.name("description").value(dataStream.description);
+        out.name("validTime");
+        timeExtentAdapter.write(out, dataStream.validTime);
+        out.name("formats");
+        writeList(out, dataStream.formats, stringAdapter);
+        out.name("system@link");
+        linkAdapter.write(out, dataStream.systemLink);
+        out.name("outputName").value(dataStream.outputName);
+        out.name("procedure@link");
+        linkAdapter.write(out, dataStream.procedureLink);
+        out.name("deployment@link");
+        linkAdapter.write(out, dataStream.deploymentLink);
+        out.name("featureOfInterest@link");
+        linkAdapter.write(out, dataStream.featureOfInterestLink);
+        out.name("samplingFeature@link");
+        linkAdapter.write(out, dataStream.samplingFeatureLink);
+        out.name("observedProperties");
+        writeList(out, dataStream.observedProperties, observedPropertyAdapter);
+        out.name("phenomenonTime");
+        timeExtentAdapter.write(out, dataStream.phenomenonTime);
+        out.name("phenomenonTimeInterval").value(dataStream.phenomenonTimeInterval);
+        out.name("resultTime");
+        timeExtentAdapter.write(out, dataStream.resultTime);
+        out.name("resultTimeInterval").value(dataStream.resultTimeInterval);
+        out.name("type");
+        writeEnum(out, dataStream.dataStreamType);
+        out.name("resultType");
+        writeEnum(out, dataStream.resultType);
+        out.name("live").value(dataStream.live);
+        out.name("links");
+        writeList(out, dataStream.links, linkAdapter);
+        out.name("schema");
+        schemaAdapter.write(out, dataStream.schema);
+        out.endObject();
+    }
+
+    @Override
+    public DataStreamResource read(JsonReader in) throws IOException {
+        DataStreamResource dataStream = new DataStreamResource();
+        in.beginObject();
+        String name;
+        while ((name = nextSelectedName(in, selectedProperties)) != null) {
+            switch (name) {
+                case "id" -> dataStream.id = readString(in);
+                case "name" -> dataStream.name = readString(in);
+                case "description" -> dataStream.description = readString(in);
+                case "validTime" -> dataStream.validTime = timeExtentAdapter.read(in);
+                case "formats" -> dataStream.formats = readList(in, stringAdapter);
+                case "system@link" -> dataStream.systemLink = linkAdapter.read(in);
+                case "outputName" -> dataStream.outputName = readString(in);
+                case "procedure@link" -> dataStream.procedureLink = linkAdapter.read(in);
+                case "deployment@link" -> dataStream.deploymentLink = linkAdapter.read(in);
+                case "featureOfInterest@link" -> dataStream.featureOfInterestLink = linkAdapter.read(in);
+                case "samplingFeature@link" -> dataStream.samplingFeatureLink = linkAdapter.read(in);
+                case "observedProperties" -> dataStream.observedProperties = readList(in, observedPropertyAdapter);
+                case "phenomenonTime" -> dataStream.phenomenonTime = timeExtentAdapter.read(in);
+                case "phenomenonTimeInterval" -> dataStream.phenomenonTimeInterval = readString(in);
+                case "resultTime" -> dataStream.resultTime = timeExtentAdapter.read(in);
+                case "resultTimeInterval" -> dataStream.resultTimeInterval = readString(in);
+                case "type" -> dataStream.dataStreamType = readEnum(in, DataStreamType.class);
+                case "resultType" -> dataStream.resultType = readEnum(in, ResultType.class);
+                case "live" -> dataStream.live = readBoolean(in);
+                case "links" -> dataStream.links = readList(in, linkAdapter);
+                case "schema" -> dataStream.schema = schemaAdapter.read(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return dataStream;
+    }
+}
@@ -0,0 +1,202 @@
+package org.connectedsystems.datamodels;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Provides hand-written streaming TypeAdapters for the resources of the API,
+ * so that they are read and written without reflection.
+ * <p>
+ * The adapters produce the same JSON as Gson's reflective adapter: fields in declaration order,
+ * names as given by their {@code @SerializedName} annotations, enum constants by their name, e.g., "OBSERVATION",
+ * and null fields omitted unless the writer serializes nulls.
+ * Unknown fields are skipped when reading, and unknown enum values are read as null.
+ * As with Gson, an enum is also read from the value of its {@code toString()}, e.g., "observation". Fields of other types, e.g., {@link java.time.Instant} or
+ * {@link org.vast.util.TimeExtent}, are handled by the adapters registered with the Gson instance.
+ * Only the exact resource classes are handled; subclasses fall back to the reflective adapter.
+ * <p>
+ * The factory can be restricted to a selection of the properties of observations and datastreams,
+ * e.g., those requested from the server with a {@code select} query parameter:
+ * the other properties are then skipped when reading, without being deserialized.
+ */
+public class DatamodelTypeAdapterFactory implements TypeAdapterFactory {
+    private final Set<String> selectedProperties;
+
+    /**
+     * Create a factory reading all properties.
+     */
+    public DatamodelTypeAdapterFactory() {
+        this(null);
+    }
+
+    /**
+     * Create a factory reading only the given properties of observations and datastreams.
+     *
+     * @param selectedProperties The names of the top-level properties to read, e.g., "id" or "phenomenonTime",
+     *                           or null to read all properties. A nested property, e.g., "result.temperature",
+     *                           selects its top-level property, e.g., "result".
+     */
+    public DatamodelTypeAdapterFactory(Set<String> selectedProperties) {
+        if (selectedProperties == null) {
+            this.selectedProperties = null;
+        } else {
+            Set<String> topLevel = new HashSet<>();
+            for (String property : selectedProperties) {
+                int separator = property.indexOf('.');
+                topLevel.add(separator >= 0 ? property.substring(0, separator) : property);
+            }
+            this.selectedProperties = Set.copyOf(topLevel);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        TypeAdapter<?> adapter;
+        if (rawType == ObservationResource.class) {
+            adapter = new ObservationResourceTypeAdapter(gson, selectedProperties);
+        } else if (rawType == DataStreamResource.class) {
+            adapter = new DataStreamResourceTypeAdapter(gson, selectedProperties);
+        } else if (rawType == SystemResource.class) {
+            adapter = new SystemResourceTypeAdapter(gson);
+        } else if (rawType == Properties.class) {
+            adapter = new PropertiesTypeAdapter(gson);
+        } else if (rawType == ObservationSchema.class) {
+            adapter = new ObservationSchemaTypeAdapter(gson);
+        } else if (rawType == Link.class) {
+            adapter = new LinkTypeAdapter();
+        } else if (rawType == ObservedProperty.class) {
+            adapter = new ObservedPropertyTypeAdapter();
+        } else {
+            return null;
+        }
+        return (TypeAdapter<T>) adapter.nullSafe();
+    }
+
+    /**
+     * Read the name of the next property of an object, skipping the properties that are not selected.
+     *
+     * @param selectedProperties The names of the properties to read, or null to read all of them.
+     * @return The name of the next selected property, or null if there are no more properties in the object.
+     */
+    static String nextSelectedName(JsonReader in, Set<String> selectedProperties) throws IOException {
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (selectedProperties == null || selectedProperties.contains(name)) {
+                return name;
+            }
+            in.skipValue();
+        }
+        return null;
+    }
+
+    /**
+     * Read a string the way Gson does, accepting numbers and booleans.
+     */
+    static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    static Boolean readBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    static URI readUri(JsonReader in) throws IOException {
+        String value = readString(in);
+        if (value == null || value.equals("null")) return null;
+        try {
+            return new URI(value);
+        } catch (URISyntaxException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    static void writeUri(JsonWriter out, URI value) throws IOException {
+        out.value(value != null ? value.toASCIIString() : null);
+    }
+
+    /**
+     * Read a JSON array, or null, into a list.
+     */
+    static <E> List<E> readList(JsonReader in, TypeAdapter<E> elementAdapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        List<E> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(elementAdapter.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    static <E> void writeList(JsonWriter out, List<E> list, TypeAdapter<E> elementAdapter) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (E element : list) {
+            elementAdapter.write(out, element);
+        }
+        out.endArray();
+    }
+
+    /**
+     * Read an enum constant the way Gson's enum adapter does, from its name or from its {@code toString()}.
+     *
+     * @return The constant, or null if the value is null or matches no constant.
+     */
+    static <E extends Enum<E>> E readEnum(JsonReader in, Class<E> enumClass) throws IOException {
+        String value = readString(in);
+        if (value == null) return null;
+
+        E[] constants = enumClass.getEnumConstants();
+        for (E constant : constants) {
+            if (constant.name().equals(value)) return constant;
+        }
+        for (E constant : constants) {
+            if (constant.toString().equals(value)) return constant;
+        }
+        return null;
+    }
+
+    static void writeEnum(JsonWriter out, Enum<?> value) throws IOException {
+        out.value(value != null ? value.name() : null);
+    }
+}
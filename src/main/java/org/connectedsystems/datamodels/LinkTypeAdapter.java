@@ -0,0 +1,55 @@
+package org.connectedsystems.datamodels;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readString;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readUri;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.writeUri;
+
+/**
+ * Reads and writes {@link Link} objects without reflection.
+ */
+class LinkTypeAdapter extends TypeAdapter<Link> {
+    @Override
+    public void write(JsonWriter out, Link link) throws IOException {
+        out.beginObject();
+        out.name("href");
+        writeUri(out, link.href);
+        out.name("rel").value(link.relationType);
+        out.name("type").value(link.mediaType);
+        out.name("hreflang").value(link.hrefLanguage);
+        out.name("title").value(link.title);
+        out.name("uid");
+        writeUri(out, link.uid);
+        out.name("rt");
+        writeUri(out, link.resourceType);
+        out.name("if");
+        writeUri(out, link.interfaceUri);
+        out.endObject();
+    }
+
+    @Override
+    public Link read(JsonReader in) throws IOException {
+        Link link = new Link();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "href" -> link.href = readUri(in);
+                case "rel" -> link.relationType = readString(in);
+                case "type" -> link.mediaType = readString(in);
+                case "hreflang" -> link.hrefLanguage = readString(in);
+                case "title" -> link.title = readString(in);
+                case "uid" -> link.uid = readUri(in);
+                case "rt" -> link.resourceType = readUri(in);
+                case "if" -> link.interfaceUri = readUri(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return link;
+    }
+}
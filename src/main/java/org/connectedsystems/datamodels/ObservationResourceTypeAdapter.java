@@ -0,0 +1,79 @@
+package org.connectedsystems.datamodels;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import net.opengis.swe.v20.DataBlock;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.nextSelectedName;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readList;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readString;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.writeList;
+
+/**
+ * Reads and writes {@link ObservationResource} objects without reflection.
+ * Properties that are not selected, see {@link DatamodelTypeAdapterFactory#DatamodelTypeAdapterFactory(Set)}, are skipped when reading.
+ * The result is handled by the DataBlock adapter of the Gson instance, i.e., the one bound to the result schema.
+ */
+class ObservationResourceTypeAdapter extends TypeAdapter<ObservationResource> {
+    private final TypeAdapter<Instant> instantAdapter;
+    private final TypeAdapter<DataBlock> dataBlockAdapter;
+    private final TypeAdapter<Link> linkAdapter;
+    private final Set<String> selectedProperties;
+
+    ObservationResourceTypeAdapter(Gson gson, Set<String> selectedProperties) {
+        this.instantAdapter = gson.getAdapter(Instant.class);
+        this.dataBlockAdapter = gson.getAdapter(DataBlock.class);
+        this.linkAdapter = gson.getAdapter(Link.class);
+        this.selectedProperties = selectedProperties;
+    }
+
+    @Override
+    public void write(JsonWriter out, ObservationResource observation) throws IOException {
+        out.beginObject();
+        out.name("id").value(observation.id);
+        out.name("datastream@id").value(observation.dataStreamId);
+        out.name("samplingFeature@id").value(observation.samplingFeatureId);
+        out.name("procedure@link");
+        linkAdapter.write(out, observation.procedureLink);
+        out.name("phenomenonTime");
+        instantAdapter.write(out, observation.phenomenonTime);
+        out.name("result");
+        dataBlockAdapter.write(out, observation.result);
+        out.name("resultTime");
+        instantAdapter.write(out, observation.resultTime);
+        out.name("result@link");
+        linkAdapter.write(out, observation.resultLink);
+        out.name("links");
+        writeList(out, observation.links, linkAdapter);
+        out.endObject();
+    }
+
+    @Override
+    public ObservationResource read(JsonReader in) throws IOException {
+        ObservationResource observation = new ObservationResource();
+        in.beginObject();
+        String name;
+        while ((name = nextSelectedName(in, selectedProperties)) != null) {
+            switch (name) {
+                case "id" -> observation.id = readString(in);
+                case "datastream@id" -> observation.dataStreamId = readString(in);
+                case "samplingFeature@id" -> observation.samplingFeatureId = readString(in);
+                case "procedure@link" -> observation.procedureLink = linkAdapter.read(in);
+                case "phenomenonTime" -> observation.phenomenonTime = instantAdapter.read(in);
+                case "result" -> observation.result = dataBlockAdapter.read(in);
+                case "resultTime" -> observation.resultTime = instantAdapter.read(in);
+                case "result@link" -> observation.resultLink = linkAdapter.read(in);
+                case "links" -> observation.links = readList(in, linkAdapter);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return observation;
+    }
+}
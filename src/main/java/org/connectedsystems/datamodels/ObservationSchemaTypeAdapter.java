@@ -0,0 +1,57 @@
+package org.connectedsystems.datamodels;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import net.opengis.swe.v20.DataComponent;
+import net.opengis.swe.v20.DataRecord;
+
+import java.io.IOException;
+
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readString;
+
+/**
+ * Reads and writes {@link ObservationSchema} objects without reflection.
+ */
+class ObservationSchemaTypeAdapter extends TypeAdapter<ObservationSchema> {
+    private final TypeAdapter<DataRecord> dataRecordAdapter;
+    private final TypeAdapter<DataComponent> dataComponentAdapter;
+    private final TypeAdapter<Link> linkAdapter;
+
+    ObservationSchemaTypeAdapter(Gson gson) {
+        this.dataRecordAdapter = gson.getAdapter(DataRecord.class);
+        this.dataComponentAdapter = gson.getAdapter(DataComponent.class);
+        this.linkAdapter = gson.getAdapter(Link.class);
+    }
+
+    @Override
+    public void write(JsonWriter out, ObservationSchema schema) throws IOException {
+        out.beginObject();
+        out.name("obsFormat").value(schema.obsFormat);
+        out.name("parametersSchema");
+        dataRecordAdapter.write(out, schema.parametersSchema);
+        out.name("resultSchema");
+        dataComponentAdapter.write(out, schema.resultSchema);
+        out.name("resultLink");
+        linkAdapter.write(out, schema.resultLink);
+        out.endObject();
+    }
+
+    @Override
+    public ObservationSchema read(JsonReader in) throws IOException {
+        ObservationSchema schema = new ObservationSchema();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "obsFormat" -> schema.obsFormat = readString(in);
+                case "parametersSchema" -> schema.parametersSchema = dataRecordAdapter.read(in);
+                case "resultSchema" -> schema.resultSchema = dataComponentAdapter.read(in);
+                case "resultLink" -> schema.resultLink = linkAdapter.read(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return schema;
+    }
+}
@@ -0,0 +1,39 @@
+package org.connectedsystems.datamodels;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readString;
+
+/**
+ * Reads and writes {@link ObservedProperty} objects without reflection.
+ */
+class ObservedPropertyTypeAdapter extends TypeAdapter<ObservedProperty> {
+    @Override
+    public void write(JsonWriter out, ObservedProperty observedProperty) throws IOException {
+        out.beginObject();
+        out.name("definition").value(observedProperty.definition);
+        out.name("label").value(observedProperty.label);
+        out.name("description").value(observedProperty.description);
+        out.endObject();
+    }
+
+    @Override
+    public ObservedProperty read(JsonReader in) throws IOException {
+        ObservedProperty observedProperty = new ObservedProperty();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "definition" -> observedProperty.definition = readString(in);
+                case "label" -> observedProperty.label = readString(in);
+                case "description" -> observedProperty.description = readString(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return observedProperty;
+    }
+}
@@ -0,0 +1,57 @@
+package org.connectedsystems.datamodels;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.vast.util.TimeExtent;
+
+import java.io.IOException;
+
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readString;
+
+/**
+ * Reads and writes {@link Properties} objects without reflection.
+ */
+class PropertiesTypeAdapter extends TypeAdapter<Properties> {
+    private final TypeAdapter<FeatureType> featureTypeAdapter;
+    private final TypeAdapter<TimeExtent> timeExtentAdapter;
+
+    PropertiesTypeAdapter(Gson gson) {
+        this.featureTypeAdapter = gson.getAdapter(FeatureType.class);
+        this.timeExtentAdapter = gson.getAdapter(TimeExtent.class);
+    }
+
+    @Override
+    public void write(JsonWriter out, Properties properties) throws IOException {
+        out.beginObject();
+        out.name("featureType");
+        featureTypeAdapter.write(out, properties.featureType);
+        out.name("uid").value(properties.uid);
+        out.name("name").value(properties.name);
+        out.name("description").value(properties.description);
+        out.name("assetType").value(properties.assetType);
+        out.name("validTime");
+        timeExtentAdapter.write(out, properties.validTime);
+        out.endObject();
+    }
+
+    @Override
+    public Properties read(JsonReader in) throws IOException {
+        Properties properties = new Properties();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "featureType" -> properties.featureType = featureTypeAdapter.read(in);
+                case "uid" -> properties.uid = readString(in);
+                case "name" -> properties.name = readString(in);
+                case "description" -> properties.description = readString(in);
+                case "assetType" -> properties.assetType = readString(in);
+                case "validTime" -> properties.validTime = timeExtentAdapter.read(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return properties;
+    }
+}
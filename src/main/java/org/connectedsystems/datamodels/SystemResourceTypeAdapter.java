@@ -0,0 +1,54 @@
+package org.connectedsystems.datamodels;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readList;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.readString;
+import static org.connectedsystems.datamodels.DatamodelTypeAdapterFactory.writeList;
+
+/**
+ * Reads and writes {@link SystemResource} objects without reflection.
+ */
+class SystemResourceTypeAdapter extends TypeAdapter<SystemResource> {
+    private final TypeAdapter<Properties> propertiesAdapter;
+    private final TypeAdapter<Link> linkAdapter;
+
+    SystemResourceTypeAdapter(Gson gson) {
+        this.propertiesAdapter = gson.getAdapter(Properties.class);
+        this.linkAdapter = gson.getAdapter(Link.class);
+    }
+
+    @Override
+    public void write(JsonWriter out, SystemResource system) throws IOException {
+        out.beginObject();
+        out.name("type").value(system.type);
+        out.name("id").value(system.id);
+        out.name("properties");
+        propertiesAdapter.write(out, system.properties);
+        out.name("links");
+        writeList(out, system.links, linkAdapter);
+        out.endObject();
+    }
+
+    @Override
+    public SystemResource read(JsonReader in) throws IOException {
+        SystemResource system = new SystemResource();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "type" -> system.type = readString(in);
+                case "id" -> system.id = readString(in);
+                case "properties" -> system.properties = propertiesAdapter.read(in);
+                case "links" -> system.links = readList(in, linkAdapter);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return system;
+    }
+}
@@ -0,0 +1,27 @@
+package org.connectedsystems.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A lookup in one of the client caches, e.g., of result schemas.
+ * The duration covers loading the value on a miss.
+ */
+@Name("org.connectedsystems.Cache")
+@Label("Cache Lookup")
+@Category({"Connected Systems API", "Cache"})
+@Description("A lookup in a client cache, including loading the value on a miss")
+@StackTrace(false)
+public class CacheEvent extends jdk.jfr.Event {
+    @Label("Cache")
+    public String cache;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Hit")
+    public boolean hit;
+}
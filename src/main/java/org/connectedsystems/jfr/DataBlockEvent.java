@@ -0,0 +1,36 @@
+package org.connectedsystems.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The encoding or decoding of a single observation result by {@link org.connectedsystems.serialization.DataBlockSerializer}.
+ * <p>
+ * There is one event per observation, so the event is disabled by default;
+ * use {@link DecodeEvent} to see the decoding of whole pages.
+ */
+@Name("org.connectedsystems.DataBlock")
+@Label("Data Block")
+@Category({"Connected Systems API", "Serialization"})
+@Description("The encoding or decoding of a single observation result")
+@Enabled(false)
+@StackTrace(false)
+public class DataBlockEvent extends jdk.jfr.Event {
+    public static final String ENCODE = "encode";
+    public static final String DECODE = "decode";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Schema")
+    @Description("The name of the result schema")
+    public String schema;
+
+    @Label("Values")
+    @Description("The number of values in the data block")
+    public int values;
+}
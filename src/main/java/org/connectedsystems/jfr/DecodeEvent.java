@@ -0,0 +1,31 @@
+package org.connectedsystems.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The deserialization of a response body into its items, e.g., a page of observations.
+ */
+@Name("org.connectedsystems.Decode")
+@Label("Response Decode")
+@Category({"Connected Systems API", "Serialization"})
+@Description("The deserialization of a response body into its items")
+@StackTrace(false)
+public class DecodeEvent extends jdk.jfr.Event {
+    @Label("Endpoint")
+    @Description("The endpoint key, e.g., datastreams/{id}/observations")
+    public String endpoint;
+
+    @Label("Item Type")
+    public Class<?> itemType;
+
+    @Label("Items")
+    public int items;
+
+    @Label("Body Length")
+    @Description("The length of the response body, in characters")
+    public long bodyLength;
+}
@@ -0,0 +1,44 @@
+package org.connectedsystems.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A single HTTP exchange with a server, from opening the connection until the response body is read.
+ * A request has several exchanges if it is hedged or fails over to another replica.
+ */
+@Name("org.connectedsystems.Exchange")
+@Label("HTTP Exchange")
+@Category({"Connected Systems API", "HTTP"})
+@Description("A single HTTP exchange with a Connected Systems API server")
+@StackTrace(false)
+public class ExchangeEvent extends jdk.jfr.Event {
+    @Label("Endpoint")
+    @Description("The endpoint key, e.g., datastreams/{id}/observations")
+    public String endpoint;
+
+    @Label("Method")
+    public String method;
+
+    @Label("URL")
+    public String url;
+
+    @Label("Response Code")
+    @Description("The HTTP status code, or -1 if the exchange failed without a response")
+    public int responseCode;
+
+    @Label("Bytes Out")
+    @DataAmount
+    public long bytesOut;
+
+    @Label("Bytes In")
+    @DataAmount
+    public long bytesIn;
+
+    @Label("Error")
+    public String error;
+}
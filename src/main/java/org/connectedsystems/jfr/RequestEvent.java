@@ -0,0 +1,39 @@
+package org.connectedsystems.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A request to the Connected Systems API as seen by the caller,
+ * from the call to {@link org.connectedsystems.net.APIRequest#execute()} until the response body is read.
+ * Includes waiting for a concurrency slot, hedging, and failing over to other replicas.
+ */
+@Name("org.connectedsystems.Request")
+@Label("API Request")
+@Category({"Connected Systems API", "HTTP"})
+@Description("A request to the Connected Systems API, including queueing, hedging, and failover")
+@StackTrace(false)
+public class RequestEvent extends jdk.jfr.Event {
+    @Label("Endpoint")
+    @Description("The endpoint key, e.g., datastreams/{id}/observations")
+    public String endpoint;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Resource ID")
+    public String resourceId;
+
+    @Label("Sub-Resource ID")
+    public String subResourceId;
+
+    @Label("Response Code")
+    @Description("The HTTP status code, or -1 if the request failed without a response")
+    public int responseCode;
+
+    @Label("Error")
+    public String error;
+}
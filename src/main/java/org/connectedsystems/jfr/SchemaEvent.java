@@ -0,0 +1,31 @@
+package org.connectedsystems.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The parsing or writing of a SWE Common schema by {@link org.connectedsystems.serialization.DataComponentSerializer}.
+ */
+@Name("org.connectedsystems.Schema")
+@Label("Schema")
+@Category({"Connected Systems API", "Serialization"})
+@Description("The parsing or writing of a SWE Common result schema")
+@StackTrace(false)
+public class SchemaEvent extends jdk.jfr.Event {
+    public static final String PARSE = "parse";
+    public static final String WRITE = "write";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Schema")
+    @Description("The name of the schema")
+    public String schema;
+
+    @Label("Components")
+    @Description("The number of top-level components of the schema")
+    public int components;
+}
@@ -0,0 +1,136 @@
+package org.connectedsystems.management;
+
+/**
+ * Management interface of a {@link org.connectedsystems.ConnectedSystemsAPI} client,
+ * exposing its live load and throughput, and the limits that can be tuned while it runs.
+ *
+ * @see org.connectedsystems.ConnectedSystemsAPI#registerMBean()
+ */
+public interface ConnectedSystemsAPIMXBean {
+    /**
+     * The root URL of the API, or of the primary replica.
+     */
+    String getApiRoot();
+
+    /**
+     * The number of requests currently sent to the server.
+     */
+    int getInFlightRequests();
+
+    /**
+     * The number of requests waiting for a concurrency slot.
+     */
+    int getQueuedRequests();
+
+    /**
+     * The average time requests waited for a concurrency slot, in milliseconds.
+     */
+    double getAverageQueueDelayMillis();
+
+    /**
+     * Whether the number of requests in flight is limited, see {@link org.connectedsystems.net.ConcurrencyLimiter#setEnabled(boolean)}.
+     */
+    boolean isConcurrencyLimited();
+
+    void setConcurrencyLimited(boolean concurrencyLimited);
+
+    /**
+     * The current number of requests allowed in flight, as adapted by the concurrency limiter.
+     */
+    int getConcurrencyLimit();
+
+    int getMinConcurrencyLimit();
+
+    void setMinConcurrencyLimit(int minConcurrencyLimit);
+
+    int getMaxConcurrencyLimit();
+
+    void setMaxConcurrencyLimit(int maxConcurrencyLimit);
+
+    /**
+     * The number of threads of the client executor currently running a request.
+     */
+    int getActiveWorkerThreads();
+
+    /**
+     * The number of threads of the client executor, busy or idle.
+     */
+    int getWorkerThreads();
+
+    /**
+     * The number of requests completed per second over the last minute.
+     */
+    double getRequestsPerSecond();
+
+    /**
+     * The number of failed requests, or 4xx and 5xx responses, per second over the last minute.
+     */
+    double getErrorsPerSecond();
+
+    /**
+     * The number of response bytes received per second over the last minute.
+     */
+    double getBytesInPerSecond();
+
+    /**
+     * The number of request bytes sent per second over the last minute.
+     */
+    double getBytesOutPerSecond();
+
+    long getTotalRequests();
+
+    long getTotalErrors();
+
+    /**
+     * The number of hedged requests sent, or 0 if hedging is disabled.
+     */
+    long getHedgesSent();
+
+    /**
+     * The number of hedged requests that answered before the original one.
+     */
+    long getHedgesWon();
+
+    /**
+     * The number of replicas requests are spread over, 1 if the client has a single API root.
+     */
+    int getReplicas();
+
+    /**
+     * The number of replicas that are not currently ejected.
+     */
+    int getHealthyReplicas();
+
+    /**
+     * The number of datastream result schemas cached by this client, or being fetched.
+     */
+    long getResultSchemaCacheSize();
+
+    long getResultSchemaCacheHits();
+
+    /**
+     * The number of result schemas fetched from the server.
+     */
+    long getResultSchemaCacheMisses();
+
+    /**
+     * The number of distinct schemas interned in the schema registry, shared by all clients of the JVM.
+     */
+    long getSchemaRegistrySize();
+
+    long getSchemaRegistryHits();
+
+    long getSchemaRegistryMisses();
+
+    /**
+     * The number of Gson instances cached by schema or selection of properties, shared by all clients of the JVM.
+     */
+    long getGsonCacheSize();
+
+    long getGsonCacheHits();
+
+    /**
+     * The number of Gson instances created, including those evicted since.
+     */
+    long getGsonCacheMisses();
+}
@@ -0,0 +1,196 @@
+package org.connectedsystems.management;
+
+import org.connectedsystems.ConnectedSystemsAPI;
+import org.connectedsystems.GsonFactory;
+import org.connectedsystems.metrics.ThroughputMeter;
+import org.connectedsystems.net.ConcurrencyLimiter;
+import org.connectedsystems.net.HedgingPolicy;
+import org.connectedsystems.net.ReplicaSet;
+import org.connectedsystems.serialization.SchemaRegistry;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the statistics and limits of a {@link ConnectedSystemsAPI} client as an MXBean.
+ */
+public class ConnectedSystemsAPIMonitor implements ConnectedSystemsAPIMXBean {
+    private final ConnectedSystemsAPI connectedSystemsAPI;
+
+    public ConnectedSystemsAPIMonitor(ConnectedSystemsAPI connectedSystemsAPI) {
+        this.connectedSystemsAPI = connectedSystemsAPI;
+    }
+
+    @Override
+    public String getApiRoot() {
+        return connectedSystemsAPI.getApiRoot();
+    }
+
+    @Override
+    public int getInFlightRequests() {
+        return limiter().getInFlight();
+    }
+
+    @Override
+    public int getQueuedRequests() {
+        return limiter().getQueueLength();
+    }
+
+    @Override
+    public double getAverageQueueDelayMillis() {
+        return limiter().getAverageQueueDelay(TimeUnit.MICROSECONDS) / 1000.0;
+    }
+
+    @Override
+    public boolean isConcurrencyLimited() {
+        return limiter().isEnabled();
+    }
+
+    @Override
+    public void setConcurrencyLimited(boolean concurrencyLimited) {
+        limiter().setEnabled(concurrencyLimited);
+    }
+
+    @Override
+    public int getConcurrencyLimit() {
+        return limiter().getLimit();
+    }
+
+    @Override
+    public int getMinConcurrencyLimit() {
+        return limiter().getMinLimit();
+    }
+
+    @Override
+    public void setMinConcurrencyLimit(int minConcurrencyLimit) {
+        limiter().setMinLimit(minConcurrencyLimit);
+    }
+
+    @Override
+    public int getMaxConcurrencyLimit() {
+        return limiter().getMaxLimit();
+    }
+
+    @Override
+    public void setMaxConcurrencyLimit(int maxConcurrencyLimit) {
+        limiter().setMaxLimit(maxConcurrencyLimit);
+    }
+
+    @Override
+    public int getActiveWorkerThreads() {
+        return connectedSystemsAPI.getExecutor() instanceof ThreadPoolExecutor pool ? pool.getActiveCount() : -1;
+    }
+
+    @Override
+    public int getWorkerThreads() {
+        return connectedSystemsAPI.getExecutor() instanceof ThreadPoolExecutor pool ? pool.getPoolSize() : -1;
+    }
+
+    @Override
+    public double getRequestsPerSecond() {
+        return throughput().getRequestsPerSecond();
+    }
+
+    @Override
+    public double getErrorsPerSecond() {
+        return throughput().getErrorsPerSecond();
+    }
+
+    @Override
+    public double getBytesInPerSecond() {
+        return throughput().getBytesInPerSecond();
+    }
+
+    @Override
+    public double getBytesOutPerSecond() {
+        return throughput().getBytesOutPerSecond();
+    }
+
+    @Override
+    public long getTotalRequests() {
+        return throughput().getTotalRequests();
+    }
+
+    @Override
+    public long getTotalErrors() {
+        return throughput().getTotalErrors();
+    }
+
+    @Override
+    public long getHedgesSent() {
+        HedgingPolicy hedgingPolicy = connectedSystemsAPI.getHedgingPolicy();
+        return hedgingPolicy != null ? hedgingPolicy.getHedgesSent() : 0;
+    }
+
+    @Override
+    public long getHedgesWon() {
+        HedgingPolicy hedgingPolicy = connectedSystemsAPI.getHedgingPolicy();
+        return hedgingPolicy != null ? hedgingPolicy.getHedgesWon() : 0;
+    }
+
+    @Override
+    public int getReplicas() {
+        ReplicaSet replicaSet = connectedSystemsAPI.getReplicaSet();
+        return replicaSet != null ? replicaSet.getReplicas().size() : 1;
+    }
+
+    @Override
+    public int getHealthyReplicas() {
+        ReplicaSet replicaSet = connectedSystemsAPI.getReplicaSet();
+        if (replicaSet == null) return 1;
+        return (int) replicaSet.getReplicas().stream().filter(ReplicaSet.Replica::isHealthy).count();
+    }
+
+    @Override
+    public long getResultSchemaCacheSize() {
+        return connectedSystemsAPI.getResultSchemaCache().size();
+    }
+
+    @Override
+    public long getResultSchemaCacheHits() {
+        return connectedSystemsAPI.getResultSchemaCache().getStatistics().getHits();
+    }
+
+    @Override
+    public long getResultSchemaCacheMisses() {
+        return connectedSystemsAPI.getResultSchemaCache().getStatistics().getMisses();
+    }
+
+    @Override
+    public long getSchemaRegistrySize() {
+        return SchemaRegistry.DEFAULT.size();
+    }
+
+    @Override
+    public long getSchemaRegistryHits() {
+        return SchemaRegistry.DEFAULT.getStatistics().getHits();
+    }
+
+    @Override
+    public long getSchemaRegistryMisses() {
+        return SchemaRegistry.DEFAULT.getStatistics().getMisses();
+    }
+
+    @Override
+    public long getGsonCacheSize() {
+        return GsonFactory.getCacheSize();
+    }
+
+    @Override
+    public long getGsonCacheHits() {
+        return GsonFactory.getCacheStatistics().getHits();
+    }
+
+    @Override
+    public long getGsonCacheMisses() {
+        return GsonFactory.getCacheStatistics().getMisses();
+    }
+
+    private ConcurrencyLimiter limiter() {
+        return connectedSystemsAPI.getConcurrencyLimiter();
+    }
+
+    private ThroughputMeter throughput() {
+        return connectedSystemsAPI.getThroughputMeter();
+    }
+}
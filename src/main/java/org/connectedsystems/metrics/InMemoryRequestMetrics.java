@@ -0,0 +1,192 @@
+package org.connectedsystems.metrics;
+
+import org.connectedsystems.net.HttpRequestMethod;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link RequestMetricsListener} that keeps histograms and counters per endpoint in memory.
+ * <p>
+ * For example, to find out where the time of observation requests goes:
+ * <pre>{@code
+ * InMemoryRequestMetrics metrics = new InMemoryRequestMetrics();
+ * api.setMetricsListener(metrics);
+ * ...
+ * EndpointMetrics observations = metrics.getEndpointMetrics("datastreams/{id}/observations");
+ * System.out.println(observations.getServerTime().getValueAtPercentile(99));
+ * System.out.println(observations.getDecodeTime().getValueAtPercentile(99));
+ * }</pre>
+ */
+public class InMemoryRequestMetrics implements RequestMetricsListener {
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void onRequest(String endpointKey, HttpRequestMethod method, int responseCode, long latencyNanos) {
+        EndpointMetrics metrics = endpoint(endpointKey);
+        metrics.latency.record(latencyNanos);
+        metrics.responseCodes.computeIfAbsent(responseCode, code -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void onRequestFailed(String endpointKey, HttpRequestMethod method, IOException error, long latencyNanos) {
+        EndpointMetrics metrics = endpoint(endpointKey);
+        metrics.latency.record(latencyNanos);
+        metrics.errors.computeIfAbsent(error.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void onExchange(String endpointKey, HttpRequestMethod method, int responseCode,
+                           long connectNanos, long serverNanos, long transferNanos, long bytesOut, long bytesIn) {
+        EndpointMetrics metrics = endpoint(endpointKey);
+        metrics.connectTime.record(connectNanos);
+        metrics.serverTime.record(serverNanos);
+        metrics.transferTime.record(transferNanos);
+        metrics.bytesOut.add(bytesOut);
+        metrics.bytesIn.add(bytesIn);
+    }
+
+    @Override
+    public void onDecode(String endpointKey, Class<?> itemType, int itemCount, long decodeNanos) {
+        EndpointMetrics metrics = endpoint(endpointKey);
+        metrics.decodeTime.record(decodeNanos);
+        metrics.items.add(itemCount);
+    }
+
+    /**
+     * Get the metrics of an endpoint.
+     *
+     * @param endpointKey The key of the endpoint, e.g., "systems/{id}".
+     * @return The metrics of the endpoint, or null if no request was made to it yet.
+     */
+    public EndpointMetrics getEndpointMetrics(String endpointKey) {
+        return endpoints.get(endpointKey);
+    }
+
+    /**
+     * @return The metrics of all endpoints requests were made to, sorted by endpoint key.
+     */
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return Collections.unmodifiableMap(new TreeMap<>(endpoints));
+    }
+
+    /**
+     * Forget all measurements.
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private EndpointMetrics endpoint(String endpointKey) {
+        return endpoints.computeIfAbsent(endpointKey, key -> new EndpointMetrics());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        getEndpoints().forEach((endpointKey, metrics) -> stringBuilder.append(endpointKey).append(": ").append(metrics).append(System.lineSeparator()));
+        return stringBuilder.toString();
+    }
+
+    /**
+     * The measurements of a single endpoint. Durations are in nanoseconds.
+     */
+    public static class EndpointMetrics {
+        private final Histogram latency = new Histogram();
+        private final Histogram connectTime = new Histogram();
+        private final Histogram serverTime = new Histogram();
+        private final Histogram transferTime = new Histogram();
+        private final Histogram decodeTime = new Histogram();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder items = new LongAdder();
+        private final Map<Integer, LongAdder> responseCodes = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        /**
+         * The latency of whole requests, as seen by the caller, including failed requests.
+         */
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * The time to open the connection and send the request body, per exchange with a server.
+         */
+        public Histogram getConnectTime() {
+            return connectTime;
+        }
+
+        /**
+         * The time from the end of the request to the response headers, per exchange with a server.
+         */
+        public Histogram getServerTime() {
+            return serverTime;
+        }
+
+        /**
+         * The time to read the response body, per exchange with a server.
+         */
+        public Histogram getTransferTime() {
+            return transferTime;
+        }
+
+        /**
+         * The time to deserialize response bodies.
+         */
+        public Histogram getDecodeTime() {
+            return decodeTime;
+        }
+
+        public long getBytesOut() {
+            return bytesOut.sum();
+        }
+
+        public long getBytesIn() {
+            return bytesIn.sum();
+        }
+
+        /**
+         * The total number of items deserialized from responses.
+         */
+        public long getItems() {
+            return items.sum();
+        }
+
+        /**
+         * The number of requests that completed with a response, by HTTP status code.
+         */
+        public Map<Integer, Long> getResponseCodes() {
+            Map<Integer, Long> result = new TreeMap<>();
+            responseCodes.forEach((code, count) -> result.put(code, count.sum()));
+            return result;
+        }
+
+        /**
+         * The number of requests that failed without a response, by exception type, e.g., "SocketTimeoutException".
+         */
+        public Map<String, Long> getErrors() {
+            Map<String, Long> result = new TreeMap<>();
+            errors.forEach((type, count) -> result.put(type, count.sum()));
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "{latency: " + latency +
+                    ", connectTime: " + connectTime +
+                    ", serverTime: " + serverTime +
+                    ", transferTime: " + transferTime +
+                    ", decodeTime: " + decodeTime +
+                    ", bytesOut: " + getBytesOut() +
+                    ", bytesIn: " + getBytesIn() +
+                    ", items: " + getItems() +
+                    ", responseCodes: " + getResponseCodes() +
+                    ", errors: " + getErrors() + "}";
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.connectedsystems.metrics;
+
+import org.connectedsystems.net.APIRequest;
+import org.connectedsystems.net.HttpRequestMethod;
+
+import java.io.IOException;
+
+/**
+ * Receives measurements of the requests made by the client and of the decoding of their responses.
+ * <p>
+ * Endpoints are identified by their key, independent of resource IDs and query parameters,
+ * e.g., "datastreams/{id}/observations", see {@link APIRequest#getEndpointKey()}.
+ * All durations are in nanoseconds.
+ * <p>
+ * Methods are called on the thread that runs the request, possibly from several threads at once,
+ * so implementations must be thread-safe, fast, and must not throw.
+ * All methods do nothing by default.
+ *
+ * @see InMemoryRequestMetrics
+ */
+public interface RequestMetricsListener {
+    /**
+     * A listener that ignores all measurements.
+     */
+    RequestMetricsListener NONE = new RequestMetricsListener() {
+    };
+
+    /**
+     * Called when a request completes with a response from the server, whatever its status code.
+     * The latency covers the whole request as seen by the caller,
+     * including waiting for a concurrency slot, hedging, and failing over to other replicas.
+     *
+     * @param endpointKey  The key of the endpoint.
+     * @param method       The HTTP method of the request.
+     * @param responseCode The HTTP status code of the response.
+     * @param latencyNanos The time from the start of the request to the end of the response body.
+     */
+    default void onRequest(String endpointKey, HttpRequestMethod method, int responseCode, long latencyNanos) {
+    }
+
+    /**
+     * Called when a request fails without a response, e.g., because the server could not be reached,
+     * a timeout expired, or the request was cancelled.
+     *
+     * @param endpointKey  The key of the endpoint.
+     * @param method       The HTTP method of the request.
+     * @param error        The error the request failed with.
+     * @param latencyNanos The time from the start of the request to the failure.
+     */
+    default void onRequestFailed(String endpointKey, HttpRequestMethod method, IOException error, long latencyNanos) {
+    }
+
+    /**
+     * Called for every exchange with a server that got a response.
+     * A request has several exchanges if it is hedged or fails over to another replica.
+     *
+     * @param endpointKey   The key of the endpoint.
+     * @param method        The HTTP method of the request.
+     * @param responseCode  The HTTP status code of the response.
+     * @param connectNanos  The time to open the connection and send the request body.
+     * @param serverNanos   The time from the end of the request to the response headers, i.e., server processing.
+     * @param transferNanos The time to read the response body.
+     * @param bytesOut      The size of the request body.
+     * @param bytesIn       The size of the response body.
+     */
+    default void onExchange(String endpointKey, HttpRequestMethod method, int responseCode,
+                            long connectNanos, long serverNanos, long transferNanos, long bytesOut, long bytesIn) {
+    }
+
+    /**
+     * Called after the response body has been deserialized.
+     *
+     * @param endpointKey The key of the endpoint.
+     * @param itemType    The class the items were deserialized into.
+     * @param itemCount   The number of items in the response.
+     * @param decodeNanos The time taken to deserialize the response body.
+     */
+    default void onDecode(String endpointKey, Class<?> itemType, int itemCount, long decodeNanos) {
+    }
+
+    /**
+     * Get a listener that passes every measurement to this listener, then to the other one.
+     *
+     * @param other The listener to call after this one.
+     * @return The combined listener.
+     */
+    default RequestMetricsListener andThen(RequestMetricsListener other) {
+        RequestMetricsListener first = this;
+        return new RequestMetricsListener() {
+            @Override
+            public void onRequest(String endpointKey, HttpRequestMethod method, int responseCode, long latencyNanos) {
+                first.onRequest(endpointKey, method, responseCode, latencyNanos);
+                other.onRequest(endpointKey, method, responseCode, latencyNanos);
+            }
+
+            @Override
+            public void onRequestFailed(String endpointKey, HttpRequestMethod method, IOException error, long latencyNanos) {
+                first.onRequestFailed(endpointKey, method, error, latencyNanos);
+                other.onRequestFailed(endpointKey, method, error, latencyNanos);
+            }
+
+            @Override
+            public void onExchange(String endpointKey, HttpRequestMethod method, int responseCode,
+                                   long connectNanos, long serverNanos, long transferNanos, long bytesOut, long bytesIn) {
+                first.onExchange(endpointKey, method, responseCode, connectNanos, serverNanos, transferNanos, bytesOut, bytesIn);
+                other.onExchange(endpointKey, method, responseCode, connectNanos, serverNanos, transferNanos, bytesOut, bytesIn);
+            }
+
+            @Override
+            public void onDecode(String endpointKey, Class<?> itemType, int itemCount, long decodeNanos) {
+                first.onDecode(endpointKey, itemType, itemCount, decodeNanos);
+                other.onDecode(endpointKey, itemType, itemCount, decodeNanos);
+            }
+        };
+    }
+}
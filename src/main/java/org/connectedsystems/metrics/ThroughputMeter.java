@@ -0,0 +1,146 @@
+package org.connectedsystems.metrics;
+
+import org.connectedsystems.net.HttpRequestMethod;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link RequestMetricsListener} that counts requests, errors, and bytes,
+ * in total and as rates over the last minute.
+ * <p>
+ * Rates are kept in one-second buckets, so they are cheap to update from many threads at once.
+ */
+public class ThroughputMeter implements RequestMetricsListener {
+    private static final int WINDOW_SECONDS = 60;
+    private static final int REQUESTS = 0;
+    private static final int ERRORS = 1;
+    private static final int BYTES_IN = 2;
+    private static final int BYTES_OUT = 3;
+    private static final int COUNTERS = 4;
+
+    private final long startSecond = currentSecond();
+    private final AtomicLongArray bucketSeconds = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(WINDOW_SECONDS * COUNTERS);
+    private final LongAdder totalRequests = new LongAdder();
+    private final LongAdder totalErrors = new LongAdder();
+
+    @Override
+    public void onRequest(String endpointKey, HttpRequestMethod method, int responseCode, long latencyNanos) {
+        totalRequests.increment();
+        int bucket = bucket();
+        bucketCounts.incrementAndGet(bucket * COUNTERS + REQUESTS);
+        if (responseCode >= 400) {
+            totalErrors.increment();
+            bucketCounts.incrementAndGet(bucket * COUNTERS + ERRORS);
+        }
+    }
+
+    @Override
+    public void onRequestFailed(String endpointKey, HttpRequestMethod method, IOException error, long latencyNanos) {
+        totalRequests.increment();
+        totalErrors.increment();
+        int bucket = bucket();
+        bucketCounts.incrementAndGet(bucket * COUNTERS + REQUESTS);
+        bucketCounts.incrementAndGet(bucket * COUNTERS + ERRORS);
+    }
+
+    @Override
+    public void onExchange(String endpointKey, HttpRequestMethod method, int responseCode,
+                           long connectNanos, long serverNanos, long transferNanos, long bytesOut, long bytesIn) {
+        int bucket = bucket();
+        bucketCounts.addAndGet(bucket * COUNTERS + BYTES_IN, bytesIn);
+        bucketCounts.addAndGet(bucket * COUNTERS + BYTES_OUT, bytesOut);
+    }
+
+    /**
+     * @return The number of requests completed since this meter was created, whether they succeeded or not.
+     */
+    public long getTotalRequests() {
+        return totalRequests.sum();
+    }
+
+    /**
+     * @return The number of requests that failed, or got a 4xx or 5xx response, since this meter was created.
+     */
+    public long getTotalErrors() {
+        return totalErrors.sum();
+    }
+
+    /**
+     * @return The number of requests completed per second over the last minute.
+     */
+    public double getRequestsPerSecond() {
+        return rate(REQUESTS);
+    }
+
+    /**
+     * @return The number of failed requests, or 4xx and 5xx responses, per second over the last minute.
+     */
+    public double getErrorsPerSecond() {
+        return rate(ERRORS);
+    }
+
+    /**
+     * @return The number of response bytes received per second over the last minute.
+     */
+    public double getBytesInPerSecond() {
+        return rate(BYTES_IN);
+    }
+
+    /**
+     * @return The number of request bytes sent per second over the last minute.
+     */
+    public double getBytesOutPerSecond() {
+        return rate(BYTES_OUT);
+    }
+
+    /**
+     * Get the bucket of the current second, clearing it first if it still holds the counts of a second a minute ago.
+     */
+    private int bucket() {
+        long second = currentSecond();
+        int bucket = (int) Math.floorMod(second, (long) WINDOW_SECONDS);
+        long bucketSecond = bucketSeconds.get(bucket);
+        if (bucketSecond != second) {
+            synchronized (this) {
+                if (bucketSeconds.get(bucket) != second) {
+                    for (int counter = 0; counter < COUNTERS; counter++) {
+                        bucketCounts.set(bucket * COUNTERS + counter, 0);
+                    }
+                    bucketSeconds.set(bucket, second);
+                }
+            }
+        }
+        return bucket;
+    }
+
+    private double rate(int counter) {
+        long second = currentSecond();
+        long sum = 0;
+        for (int bucket = 0; bucket < WINDOW_SECONDS; bucket++) {
+            long age = second - bucketSeconds.get(bucket);
+            if (age >= 0 && age < WINDOW_SECONDS) {
+                sum += bucketCounts.get(bucket * COUNTERS + counter);
+            }
+        }
+        // Meters younger than the window are averaged over their lifetime only
+        long seconds = Math.max(1, Math.min(WINDOW_SECONDS, second - startSecond + 1));
+        return (double) sum / seconds;
+    }
+
+    private static long currentSecond() {
+        return Math.floorDiv(System.nanoTime(), 1_000_000_000L);
+    }
+
+    @Override
+    public String toString() {
+        return "{requestsPerSecond: " + getRequestsPerSecond() +
+                ", errorsPerSecond: " + getErrorsPerSecond() +
+                ", bytesInPerSecond: " + getBytesInPerSecond() +
+                ", bytesOutPerSecond: " + getBytesOutPerSecond() +
+                ", totalRequests: " + getTotalRequests() +
+                ", totalErrors: " + getTotalErrors() + "}";
+    }
+}
@@ -1,25 +1,86 @@
 package org.connectedsystems.net;
 
 import com.google.gson.Gson;
+import org.connectedsystems.jfr.ExchangeEvent;
+import org.connectedsystems.jfr.RequestEvent;
+import org.connectedsystems.metrics.RequestMetricsListener;
 
 import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 import static org.connectedsystems.GsonFactory.gson;
 
 /**
  * Represents an API request to a server.
+ * <p>
+ * A request is executed once, by a single thread, and is not meant to be shared;
+ * only {@link #cancel()} may be called from another thread while it executes.
+ * {@link org.connectedsystems.ConnectedSystemsAPI} and its facades build a new request for every call.
  */
 public class APIRequest {
     protected HttpURLConnection connection;
+    private URL url;
+    private String pathAndQuery;
+    private ReplicaSet replicaSet;
+    private HttpRequestMethod requestMethod;
+    private final Map<String, String> requestProperties = new LinkedHashMap<>();
+    private byte[] body;
+    private String endpointKey;
+    private String resourceId;
+    private String subResourceId;
+    private ConcurrencyLimiter concurrencyLimiter;
+    private HedgingPolicy hedgingPolicy;
+    private Executor executor;
+    private RequestTimeouts requestTimeouts = RequestTimeouts.NONE;
+    private RequestMetricsListener metricsListener = RequestMetricsListener.NONE;
+    private HttpConnectionFactory connectionFactory = HttpConnectionFactory.DEFAULT;
+    private boolean lazyDecoding;
+    private int parallelDecodingThreshold = APIResponse.DEFAULT_PARALLEL_DECODING_THRESHOLD;
+    private ForkJoinPool decodingPool;
+    private final Set<Attempt> activeAttempts = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+    private volatile boolean deadlineExceeded;
+    private long deadlineNanos;
     private String responseBody;
     private boolean didExecute = false;
 
+    /**
+     * Single daemon thread that aborts requests whose deadline has passed.
+     */
+    private static final ScheduledExecutorService DEADLINE_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "connected-systems-api-deadlines");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * Execute the API request and return the response as an APIResponse object.
      *
@@ -52,31 +113,549 @@ public class APIRequest {
         return new APIResponse<>(clazz, this, gson);
     }
 
+    /**
+     * Execute the API request and deserialize each item of the response with its own Gson instance,
+     * resolved from the value of one of its properties, e.g., the observations of several datastreams,
+     * each with the result schema of its datastream.
+     * The Gson instances of all the items are resolved at once, after the response is read and before any item is deserialized.
+     *
+     * @param clazz        The class type to deserialize the items into.
+     * @param keyProperty  The name of the top-level string property of the items used to resolve their Gson instance,
+     *                     e.g., "datastream@id".
+     * @param gsonResolver Resolves the Gson instance of each distinct value of the key property.
+     * @param <T>          The type of the response data.
+     * @return An APIResponse object containing the response data.
+     * @throws IOException if an error occurs while making the API request, reading the response, or resolving the Gson instances.
+     */
+    public <T> APIResponse<T> execute(Class<T> clazz, String keyProperty, GsonResolver gsonResolver) throws IOException {
+        execute();
+        try {
+            return new APIResponse<>(clazz, this, keyProperty, gsonResolver);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Execute the API request on the executor set with {@link APIRequestBuilder#setExecutor(Executor)}.
+     * <p>
+     * Cancelling the returned future aborts the request and closes its connection,
+     * whether it is still waiting for a concurrency slot or already reading the response.
+     *
+     * @param clazz The class type to deserialize the response into,
+     *              or {@link Void} if no response body is expected.
+     * @param gson  The Gson object to use for deserialization.
+     * @param <T>   The type of the response data.
+     * @return A future completed with the response, or exceptionally with the {@link IOException} that occurred.
+     * @throws IllegalStateException if no executor was set.
+     */
+    public <T> CompletableFuture<APIResponse<T>> executeAsync(Class<T> clazz, Gson gson) {
+        return executeAsync(request -> request.execute(clazz, gson));
+    }
+
+    /**
+     * Execute the API request on the executor set with {@link APIRequestBuilder#setExecutor(Executor)},
+     * reading its response with one of the execute methods, e.g., {@link #execute(Class, String, GsonResolver)}.
+     * <p>
+     * Cancelling the returned future aborts the request as for {@link #executeAsync(Class, Gson)}.
+     *
+     * @param execution Executes this request and reads its response.
+     * @param <R>       The type of the result of the execution.
+     * @return A future completed with the result of the execution, or exceptionally with the {@link IOException} that occurred.
+     * @throws IllegalStateException if no executor was set.
+     */
+    public <R> CompletableFuture<R> executeAsync(Execution<R> execution) {
+        if (executor == null) {
+            throw new IllegalStateException("No executor set for asynchronous execution");
+        }
+
+        CompletableFuture<R> future = new CompletableFuture<>();
+        Object workerLock = new Object();
+        Thread[] worker = new Thread[1];
+
+        executor.execute(() -> {
+            synchronized (workerLock) {
+                if (future.isDone()) return;
+                worker[0] = Thread.currentThread();
+            }
+            try {
+                future.complete(execution.execute(this));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (workerLock) {
+                    worker[0] = null;
+                    // Do not leak an interrupt from a late cancellation to the next task of this thread
+                    Thread.interrupted();
+                }
+            }
+        });
+
+        future.whenComplete((response, error) -> {
+            if (!future.isCancelled()) return;
+            cancel();
+            synchronized (workerLock) {
+                // Wakes the worker up if it is waiting for a concurrency slot or for a hedged attempt
+                if (worker[0] != null) worker[0].interrupt();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Execute the API request on the executor, using the default Gson instance for deserialization.
+     *
+     * @see #executeAsync(Class, Gson)
+     */
+    public <T> CompletableFuture<APIResponse<T>> executeAsync(Class<T> clazz) {
+        return executeAsync(clazz, gson);
+    }
+
+    /**
+     * Abort the request, closing the connection of any attempt in progress.
+     * A request that is cancelled before or while it executes fails with an {@link InterruptedIOException}.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Attempt attempt : activeAttempts) {
+            attempt.cancel();
+        }
+    }
+
     /**
      * Execute the API request and handle the response.
+     * <p>
+     * If a {@link HedgingPolicy} is set and this is a GET request,
+     * a duplicate request may be sent when the first one is slow to answer; the first response wins.
      *
      * @throws IOException if an error occurs while making the API request or reading the response.
      */
     public void execute() throws IOException {
-        if (connection == null) {
-            throw new IllegalStateException("Connection is not initialized");
+        if (pathAndQuery == null) {
+            throw new IllegalStateException("Request is not initialized");
         }
-        connection.connect();
-        int responseCode = connection.getResponseCode();
 
-        if (responseCode >= 200 && responseCode < 400) {
-            responseBody = readStream(connection.getInputStream());
-        } else {
-            String errorMessage = readStream(connection.getErrorStream());
-            if (!errorMessage.isEmpty()) {
-                System.err.println("Error response: " + errorMessage);
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Duration deadline = requestTimeouts.getDeadline();
+        ScheduledFuture<?> watchdog = null;
+        if (deadline != null) {
+            deadlineNanos = System.nanoTime() + deadline.toNanos();
+            watchdog = DEADLINE_SCHEDULER.schedule(() -> {
+                deadlineExceeded = true;
+                cancel();
+            }, deadline.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        Attempt result;
+        try {
+            if (hedgingPolicy != null && executor != null && requestMethod == HttpRequestMethod.GET) {
+                result = executeHedged();
+            } else {
+                result = new Attempt();
+                result.run(false);
+            }
+        } catch (IOException e) {
+            IOException error = e;
+            if (deadlineExceeded) {
+                error = new SocketTimeoutException("Request deadline of " + deadline + " exceeded");
+                error.initCause(e);
             }
+            metricsListener.onRequestFailed(endpointKey, requestMethod, error, System.nanoTime() - start);
+            commit(event, -1, error);
+            throw error;
+        } finally {
+            if (watchdog != null) watchdog.cancel(false);
         }
 
-        connection.disconnect();
+        metricsListener.onRequest(endpointKey, requestMethod, result.responseCode, System.nanoTime() - start);
+        commit(event, result.responseCode, null);
+        connection = result.connection;
+        responseBody = result.responseBody;
         didExecute = true;
     }
 
+    private void commit(RequestEvent event, int responseCode, IOException error) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.endpoint = endpointKey;
+            event.method = requestMethod.name();
+            event.resourceId = resourceId;
+            event.subResourceId = subResourceId;
+            event.responseCode = responseCode;
+            event.error = error != null ? error.toString() : null;
+            event.commit();
+        }
+    }
+
+    /**
+     * Send the request, and a hedge if the response takes longer than the policy allows,
+     * then return whichever attempt succeeds first and cancel the other.
+     */
+    private Attempt executeHedged() throws IOException {
+        String endpointKey = getEndpointKey();
+        hedgingPolicy.onRequest();
+
+        Attempt primary = new Attempt();
+        CompletableFuture<Attempt> primaryFuture = primary.submit(executor, false);
+
+        long hedgeDelay = hedgingPolicy.getHedgeDelayNanos(endpointKey);
+        if (hedgeDelay >= 0) {
+            try {
+                Attempt result = primaryFuture.get(hedgeDelay, TimeUnit.NANOSECONDS);
+                hedgingPolicy.recordLatency(endpointKey, result.latencyNanos);
+                return result;
+            } catch (TimeoutException e) {
+                // Too slow, fall through and hedge
+            } catch (InterruptedException e) {
+                primary.cancel();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the response");
+            } catch (ExecutionException e) {
+                return await(primaryFuture, primary);
+            }
+        }
+
+        // Reserve the slot first, so that a hedge the limiter refuses neither spends the budget nor counts as sent
+        boolean slotReserved = hedgeDelay >= 0 && concurrencyLimiter != null && concurrencyLimiter.tryAcquire();
+        boolean canHedge = hedgeDelay >= 0
+                && (concurrencyLimiter == null || slotReserved)
+                && hedgingPolicy.tryAcquireHedge();
+        if (!canHedge) {
+            if (slotReserved) {
+                concurrencyLimiter.releaseIgnored();
+            }
+            Attempt result = await(primaryFuture, primary);
+            hedgingPolicy.recordLatency(endpointKey, result.latencyNanos);
+            return result;
+        }
+
+        Attempt hedge = new Attempt();
+        CompletableFuture<Attempt> hedgeFuture = hedge.submit(executor, true);
+
+        // Complete with the first attempt that succeeds, or fail once both have failed
+        CompletableFuture<Attempt> firstSuccess = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        BiConsumer<Attempt, Throwable> onComplete = (attempt, error) -> {
+            if (error == null) {
+                firstSuccess.complete(attempt);
+            } else if (failures.incrementAndGet() == 2) {
+                firstSuccess.completeExceptionally(error);
+            }
+        };
+        primaryFuture.whenComplete(onComplete);
+        hedgeFuture.whenComplete(onComplete);
+
+        Attempt result = await(firstSuccess, primary, hedge);
+        if (result == hedge) {
+            primary.cancel();
+            hedgingPolicy.onHedgeWon();
+        } else {
+            hedge.cancel();
+        }
+        hedgingPolicy.recordLatency(endpointKey, result.latencyNanos);
+        return result;
+    }
+
+    /**
+     * Wait for the given future, cancelling the attempts if the calling thread is interrupted.
+     */
+    private static Attempt await(CompletableFuture<Attempt> future, Attempt... attempts) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            for (Attempt attempt : attempts) attempt.cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Get a key identifying the endpoint targeted by this request, independent of resource IDs and query parameters,
+     * e.g., "datastreams/{id}/observations".
+     *
+     * @return The endpoint key.
+     */
+    public String getEndpointKey() {
+        return endpointKey;
+    }
+
+    RequestMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    boolean isLazyDecoding() {
+        return lazyDecoding;
+    }
+
+    int getParallelDecodingThreshold() {
+        return parallelDecodingThreshold;
+    }
+
+    ForkJoinPool getDecodingPool() {
+        return decodingPool;
+    }
+
+    /**
+     * A single exchange with the server.
+     * A request runs one attempt, or two if it is hedged.
+     */
+    private class Attempt {
+        private volatile HttpURLConnection connection;
+        private volatile boolean cancelled;
+        private String responseBody;
+        private long latencyNanos;
+        private long rttNanos = -1;
+        private boolean dropped = true;
+        private int responseCode = -1;
+        private long connectNanos;
+        private long serverNanos;
+        private ExchangeEvent exchangeEvent;
+
+        /**
+         * Send the request and read the response.
+         *
+         * @param slotAcquired True if a concurrency slot was already reserved for this attempt.
+         */
+        void run(boolean slotAcquired) throws IOException {
+            if (concurrencyLimiter != null && !slotAcquired) {
+                acquireSlot();
+            }
+
+            activeAttempts.add(this);
+            long start = System.nanoTime();
+            try {
+                if (APIRequest.this.cancelled) cancelled = true;
+
+                if (replicaSet == null) {
+                    readResponse(exchange(url));
+                } else {
+                    exchangeWithFailover();
+                }
+                latencyNanos = System.nanoTime() - start;
+            } finally {
+                activeAttempts.remove(this);
+                if (concurrencyLimiter != null) {
+                    // A request that ran out of time is a sign of overload, a request cancelled by the caller is not
+                    if (cancelled && !deadlineExceeded) {
+                        concurrencyLimiter.releaseIgnored();
+                    } else {
+                        concurrencyLimiter.release(endpointKey, rttNanos < 0 ? System.nanoTime() - start : rttNanos, dropped);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Send the request to the replicas of the {@link ReplicaSet} until one answers.
+         * Reads fail over on I/O errors and 502, 503, or 504 responses;
+         * writes only fail over if the connection could not be established, since the server never saw them.
+         */
+        private void exchangeWithFailover() throws IOException {
+            boolean write = requestMethod != HttpRequestMethod.GET;
+            Set<ReplicaSet.Replica> tried = new HashSet<>();
+            ReplicaSet.Replica next = replicaSet.select(write, tried);
+
+            while (true) {
+                ReplicaSet.Replica replica = next;
+                tried.add(replica);
+                replica.onStart();
+                try {
+                    int responseCode = exchange(new URL(replica.getApiRoot() + pathAndQuery));
+                    if (responseCode == 502 || responseCode == 503 || responseCode == 504) {
+                        replica.onFailure();
+                        next = write ? null : replicaSet.select(false, tried);
+                        if (next != null) {
+                            connection.disconnect();
+                            reportExchange(0, 0, null);
+                            continue;
+                        }
+                    } else {
+                        replica.onSuccess();
+                    }
+                    readResponse(responseCode);
+                    return;
+                } catch (IOException e) {
+                    if (cancelled) throw e;
+                    replica.onFailure();
+                    if (write && !(e instanceof ConnectException)) throw e;
+                    next = replicaSet.select(write, tried);
+                    if (next == null) throw e;
+                } finally {
+                    replica.onEnd();
+                }
+            }
+        }
+
+        /**
+         * Open a connection to the given URL, send the request, and wait for the response headers.
+         *
+         * @return The response code.
+         */
+        private int exchange(URL target) throws IOException {
+            if (cancelled) {
+                throw new InterruptedIOException("Request was cancelled");
+            }
+
+            exchangeEvent = new ExchangeEvent();
+            exchangeEvent.begin();
+            if (exchangeEvent.isEnabled()) exchangeEvent.url = target.toString();
+
+            long start = System.nanoTime();
+            rttNanos = -1;
+            dropped = true;
+            responseCode = -1;
+            connectNanos = 0;
+            serverNanos = 0;
+            long sent;
+            long received;
+            try {
+                connection = openConnection(target);
+                if (cancelled) {
+                    connection.disconnect();
+                    throw new InterruptedIOException("Request was cancelled");
+                }
+
+                sent = System.nanoTime();
+                responseCode = connection.getResponseCode();
+                received = System.nanoTime();
+            } catch (IOException e) {
+                reportExchange(0, 0, e);
+                throw e;
+            }
+            connectNanos = sent - start;
+            serverNanos = received - sent;
+            rttNanos = received - start;
+            dropped = responseCode == 429 || responseCode == 503;
+            return responseCode;
+        }
+
+        private void readResponse(int responseCode) throws IOException {
+            long start = System.nanoTime();
+            CountingInputStream in = null;
+            try {
+                if (responseCode >= 200 && responseCode < 400) {
+                    in = CountingInputStream.of(connection.getInputStream());
+                    responseBody = readStream(in);
+                } else {
+                    in = CountingInputStream.of(connection.getErrorStream());
+                    String errorMessage = readStream(in);
+                    if (!errorMessage.isEmpty()) {
+                        System.err.println("Error response: " + errorMessage);
+                    }
+                }
+            } catch (IOException e) {
+                reportExchange(System.nanoTime() - start, in != null ? in.count : 0, e);
+                throw e;
+            }
+            connection.disconnect();
+            reportExchange(System.nanoTime() - start, in != null ? in.count : 0, null);
+        }
+
+        /**
+         * Report the exchange that just ended to the metrics listener and to the flight recorder.
+         * Exchanges that failed without a response are only recorded as flight recorder events.
+         */
+        private void reportExchange(long transferNanos, long bytesIn, IOException error) {
+            long bytesOut = body != null ? body.length : 0;
+            if (error == null) {
+                metricsListener.onExchange(endpointKey, requestMethod, responseCode,
+                        connectNanos, serverNanos, transferNanos, bytesOut, bytesIn);
+            }
+
+            ExchangeEvent event = exchangeEvent;
+            exchangeEvent = null;
+            if (event == null) return;
+            event.end();
+            if (event.shouldCommit()) {
+                event.endpoint = endpointKey;
+                event.method = requestMethod.name();
+                event.responseCode = responseCode;
+                event.bytesOut = bytesOut;
+                event.bytesIn = bytesIn;
+                event.error = error != null ? error.toString() : null;
+                event.commit();
+            }
+        }
+
+        private void acquireSlot() throws IOException {
+            try {
+                if (deadlineNanos == 0) {
+                    concurrencyLimiter.acquire();
+                } else if (!concurrencyLimiter.tryAcquire(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    deadlineExceeded = true;
+                    throw new SocketTimeoutException("Deadline exceeded while waiting for a concurrency slot");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a concurrency slot");
+            }
+        }
+
+        CompletableFuture<Attempt> submit(Executor executor, boolean slotAcquired) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    run(slotAcquired);
+                    return this;
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+
+        /**
+         * Abort the attempt, closing its connection if one is open.
+         */
+        void cancel() {
+            cancelled = true;
+            HttpURLConnection httpConnection = connection;
+            if (httpConnection != null) {
+                httpConnection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Open the connection to the server and send the request body, if any.
+     *
+     * @param target The full URL of the request.
+     * @return The connected HttpURLConnection, ready to read the response from.
+     * @throws IOException if an error occurs while connecting or writing the request body.
+     */
+    private HttpURLConnection openConnection(URL target) throws IOException {
+        HttpURLConnection httpConnection = connectionFactory.openConnection(target);
+        httpConnection.setRequestMethod(requestMethod.name());
+        if (requestTimeouts.getConnectTimeout() != null) {
+            httpConnection.setConnectTimeout(toTimeoutMillis(requestTimeouts.getConnectTimeout()));
+        }
+        if (requestTimeouts.getReadTimeout() != null) {
+            httpConnection.setReadTimeout(toTimeoutMillis(requestTimeouts.getReadTimeout()));
+        }
+        requestProperties.forEach(httpConnection::setRequestProperty);
+
+        if (body != null) {
+            httpConnection.setDoOutput(true);
+            try (OutputStream out = httpConnection.getOutputStream()) {
+                out.write(body);
+            }
+        } else {
+            httpConnection.connect();
+        }
+        return httpConnection;
+    }
+
+    /**
+     * Convert a timeout to the milliseconds expected by {@link HttpURLConnection}, where 0 means no timeout.
+     */
+    private static int toTimeoutMillis(Duration timeout) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, timeout.toMillis()));
+    }
+
     /**
      * Read an InputStream and return its content as a String.
      *
@@ -97,6 +676,42 @@ public class APIRequest {
         return response.toString();
     }
 
+    /**
+     * Counts the bytes read from a stream, to report the size of response bodies.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        static CountingInputStream of(InputStream in) {
+            return in != null ? new CountingInputStream(in) : null;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
     /**
      * Get the response body of the API request.
      *
@@ -120,11 +735,22 @@ public class APIRequest {
         return connection;
     }
 
+    /**
+     * Executes a request and reads its response, e.g., {@code request -> request.execute(SystemResource.class)}.
+     *
+     * @param <R> The type of the result.
+     */
+    @FunctionalInterface
+    public interface Execution<R> {
+        R execute(APIRequest request) throws IOException;
+    }
+
     /**
      * Builder class for constructing APIRequest objects.
+     * Every call to {@link #build()} returns a new request, so a configured builder can be reused for several requests,
+     * though not from several threads at once.
      */
     public static class APIRequestBuilder {
-        private final APIRequest apiRequest;
         private String apiRoot;
         private Endpoint resourcePath;
         private String resourceId;
@@ -135,10 +761,16 @@ public class APIRequest {
         private Map<String, String> headers;
         private String authorizationToken;
         private HttpRequestMethod requestMethod;
-
-        public APIRequestBuilder() {
-            apiRequest = new APIRequest();
-        }
+        private ConcurrencyLimiter concurrencyLimiter;
+        private HedgingPolicy hedgingPolicy;
+        private Executor executor;
+        private RequestTimeouts requestTimeouts;
+        private ReplicaSet replicaSet;
+        private RequestMetricsListener metricsListener;
+        private HttpConnectionFactory connectionFactory;
+        private boolean lazyDecoding;
+        private int parallelDecodingThreshold = APIResponse.DEFAULT_PARALLEL_DECODING_THRESHOLD;
+        private ForkJoinPool decodingPool;
 
         /**
          * Set the root URL for the API request.
@@ -152,6 +784,18 @@ public class APIRequest {
             return this;
         }
 
+        /**
+         * Send the request to one of several API roots serving the same data instead of a single API root.
+         * The replica is chosen when the request is executed, and another one is tried if it fails.
+         *
+         * @param replicaSet The replicas to send the request to, or null to use the API root.
+         * @return The APIRequestBuilder instance for method chaining.
+         */
+        public APIRequestBuilder setReplicaSet(ReplicaSet replicaSet) {
+            this.replicaSet = replicaSet;
+            return this;
+        }
+
         public APIRequestBuilder setResourcePath(Endpoint resourcePath) {
             this.resourcePath = resourcePath;
             return this;
@@ -230,15 +874,120 @@ public class APIRequest {
             return this;
         }
 
+        /**
+         * Set the limiter that bounds the number of requests in flight to the server.
+         * The request waits for a slot when it is executed and reports its latency and outcome back to the limiter.
+         *
+         * @param concurrencyLimiter The limiter to use, or null to send the request unconditionally.
+         * @return The APIRequestBuilder instance for method chaining.
+         */
+        public APIRequestBuilder setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+
+        /**
+         * Set the policy used to hedge GET requests.
+         * Hedging also requires an executor, see {@link #setExecutor(Executor)}.
+         *
+         * @param hedgingPolicy The policy to use, or null to never hedge.
+         * @return The APIRequestBuilder instance for method chaining.
+         */
+        public APIRequestBuilder setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
+        /**
+         * Set the executor used to run requests that do not run on the calling thread, such as hedged requests.
+         *
+         * @param executor The executor to use.
+         * @return The APIRequestBuilder instance for method chaining.
+         */
+        public APIRequestBuilder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Set the connect, read, and total timeouts of the request.
+         *
+         * @param requestTimeouts The timeouts to apply, or null for no timeouts.
+         * @return The APIRequestBuilder instance for method chaining.
+         */
+        public APIRequestBuilder setRequestTimeouts(RequestTimeouts requestTimeouts) {
+            this.requestTimeouts = requestTimeouts;
+            return this;
+        }
+
+        /**
+         * Set the listener that receives the latency, size, and decoding time of the request.
+         *
+         * @param metricsListener The listener to use, or null to not report any metrics.
+         * @return The APIRequestBuilder instance for method chaining.
+         */
+        public APIRequestBuilder setMetricsListener(RequestMetricsListener metricsListener) {
+            this.metricsListener = metricsListener;
+            return this;
+        }
+
+        /**
+         * Set the factory that opens the connections of the request, e.g., to record or replay them.
+         *
+         * @param connectionFactory The factory to use, or null to open plain connections to the server.
+         * @return The APIRequestBuilder instance for method chaining.
+         */
+        public APIRequestBuilder setConnectionFactory(HttpConnectionFactory connectionFactory) {
+            this.connectionFactory = connectionFactory;
+            return this;
+        }
+
+        /**
+         * Set whether the items of the response are deserialized on their first access rather than all at once,
+         * see {@link APIResponse#getItems()} (default: false).
+         *
+         * @param lazyDecoding True to deserialize items lazily.
+         * @return The APIRequestBuilder instance for method chaining.
+         */
+        public APIRequestBuilder setLazyDecoding(boolean lazyDecoding) {
+            this.lazyDecoding = lazyDecoding;
+            return this;
+        }
+
+        /**
+         * Set the number of items from which the items of the response are deserialized in parallel,
+         * on the pool set by {@link #setDecodingPool(ForkJoinPool)}.
+         *
+         * @param parallelDecodingThreshold The threshold, or {@link Integer#MAX_VALUE} to always deserialize on the calling thread
+         *                                  (default: {@link APIResponse#DEFAULT_PARALLEL_DECODING_THRESHOLD}).
+         * @return The APIRequestBuilder instance for method chaining.
+         */
+        public APIRequestBuilder setParallelDecodingThreshold(int parallelDecodingThreshold) {
+            this.parallelDecodingThreshold = parallelDecodingThreshold;
+            return this;
+        }
+
+        /**
+         * Set the fork-join pool the items of the response are deserialized on in parallel,
+         * see {@link #setParallelDecodingThreshold(int)}.
+         *
+         * @param decodingPool The pool, or null for the common fork-join pool (default: null).
+         * @return The APIRequestBuilder instance for method chaining.
+         */
+        public APIRequestBuilder setDecodingPool(ForkJoinPool decodingPool) {
+            this.decodingPool = decodingPool;
+            return this;
+        }
+
         /**
          * Build the APIRequest object with the specified parameters.
          *
-         * @return The constructed APIRequest object.
+         * @return A new APIRequest object.
          * @throws IOException              if an error occurs while building the request.
          * @throws IllegalArgumentException if any required parameters are missing or invalid.
          */
         public APIRequest build() throws IOException {
-            if (apiRoot == null || apiRoot.isEmpty()) {
+            if (replicaSet == null && (apiRoot == null || apiRoot.isEmpty())) {
                 throw new IllegalArgumentException("API root cannot be null or empty");
             }
 
@@ -250,28 +999,47 @@ public class APIRequest {
                 throw new IllegalArgumentException("Body cannot be null for POST or PUT requests");
             }
 
-            StringBuilder urlWithParams = new StringBuilder(apiRoot);
-            appendResources(urlWithParams);
-            appendQueryString(urlWithParams);
+            if (parallelDecodingThreshold < 1) {
+                throw new IllegalArgumentException("Parallel decoding threshold must be positive");
+            }
+
+            APIRequest apiRequest = new APIRequest();
+            StringBuilder pathAndQuery = new StringBuilder();
+            appendResources(pathAndQuery);
+            appendQueryString(pathAndQuery);
 
-            URL url = new URL(urlWithParams.toString());
-            apiRequest.connection = (HttpURLConnection) url.openConnection();
-            apiRequest.connection.setRequestMethod(requestMethod.name());
-            apiRequest.connection.setRequestProperty("Content-Type", "application/json");
+            apiRequest.pathAndQuery = pathAndQuery.toString();
+            apiRequest.replicaSet = replicaSet;
+            if (replicaSet == null) {
+                apiRequest.url = new URL(apiRoot + pathAndQuery);
+            }
+            apiRequest.requestMethod = requestMethod;
+            apiRequest.requestProperties.put("Content-Type", "application/json");
 
             if (headers != null && !headers.isEmpty()) {
-                headers.forEach(apiRequest.connection::setRequestProperty);
+                apiRequest.requestProperties.putAll(headers);
             }
 
             if (authorizationToken != null && !authorizationToken.isEmpty()) {
-                apiRequest.connection.setRequestProperty("Authorization", "Basic " + authorizationToken);
+                apiRequest.requestProperties.put("Authorization", "Basic " + authorizationToken);
             }
 
             if (requestMethod == HttpRequestMethod.POST || requestMethod == HttpRequestMethod.PUT) {
-                apiRequest.connection.setDoOutput(true);
-                apiRequest.connection.getOutputStream().write(body.getBytes());
+                apiRequest.body = body.getBytes();
             }
 
+            apiRequest.endpointKey = getEndpointKey();
+            apiRequest.resourceId = resourceId;
+            apiRequest.subResourceId = subResourceId;
+            apiRequest.concurrencyLimiter = concurrencyLimiter;
+            apiRequest.hedgingPolicy = hedgingPolicy;
+            apiRequest.executor = executor;
+            apiRequest.requestTimeouts = requestTimeouts != null ? requestTimeouts : RequestTimeouts.NONE;
+            apiRequest.metricsListener = metricsListener != null ? metricsListener : RequestMetricsListener.NONE;
+            apiRequest.connectionFactory = connectionFactory != null ? connectionFactory : HttpConnectionFactory.DEFAULT;
+            apiRequest.lazyDecoding = lazyDecoding;
+            apiRequest.parallelDecodingThreshold = parallelDecodingThreshold;
+            apiRequest.decodingPool = decodingPool;
             return apiRequest;
         }
 
@@ -290,6 +1058,23 @@ public class APIRequest {
             }
         }
 
+        private String getEndpointKey() {
+            StringBuilder endpointKey = new StringBuilder();
+            if (resourcePath != null) {
+                endpointKey.append(resourcePath.getPath());
+                if (resourceId != null && !resourceId.isEmpty()) {
+                    endpointKey.append("/{id}");
+                    if (subResourcePath != null) {
+                        endpointKey.append("/").append(subResourcePath.getPath());
+                        if (subResourceId != null && !subResourceId.isEmpty()) {
+                            endpointKey.append("/{id}");
+                        }
+                    }
+                }
+            }
+            return endpointKey.toString();
+        }
+
         private void appendQueryString(StringBuilder stringBuilder) {
             if (queryParams != null && !queryParams.isEmpty()) {
                 stringBuilder.append("?");
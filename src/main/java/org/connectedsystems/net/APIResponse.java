@@ -2,13 +2,23 @@ package org.connectedsystems.net;
 
 import com.google.common.net.HttpHeaders;
 import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import org.connectedsystems.GsonFactory;
+import org.connectedsystems.datamodels.Link;
+import org.connectedsystems.jfr.DecodeEvent;
+import org.connectedsystems.metrics.RequestMetricsListener;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 /**
  * Represents the response from an API request.
@@ -18,7 +28,16 @@ import java.util.Map;
  *            e.g., for POST, PUT, or DELETE requests.
  */
 public class APIResponse<T> {
-    private static final String JSON_ARRAY_ITEMS = "items";
+    /**
+     * The default number of items from which a page is decoded in parallel: never,
+     * so that decoding stays on the calling thread unless a threshold is set.
+     */
+    public static final int DEFAULT_PARALLEL_DECODING_THRESHOLD = Integer.MAX_VALUE;
+
+    private static final String JSON_ARRAY_LINKS = "links";
+    private static final String NEXT_RELATION = "next";
+    private static final Type LINK_LIST_TYPE = new TypeToken<List<Link>>() {
+    }.getType();
 
     private final int responseCode;
     private final String responseMessage;
@@ -41,29 +60,76 @@ public class APIResponse<T> {
      * @param gson            The Gson object to use for deserialization.
      */
     public APIResponse(Class<T> clazz, int responseCode, String responseMessage, String responseBody, Map<String, List<String>> headers, Gson gson) {
-        this.responseCode = responseCode;
-        this.responseMessage = responseMessage;
-        this.responseBody = responseBody;
-        this.headers = headers;
-        items = new ArrayList<>();
+        this(clazz, responseCode, responseMessage, responseBody, headers, gson, false, DEFAULT_PARALLEL_DECODING_THRESHOLD);
+    }
 
-        if (clazz == Void.class || responseBody == null || responseBody.isEmpty() || responseBody.charAt(0) != '{') {
-            this.isSingleItem = false;
-            return;
-        }
+    /**
+     * Constructs an APIResponse object from the given parameters, optionally deserializing items lazily.
+     *
+     * @param clazz           The class type of the items in the response,
+     *                        or {@link Void} if the response is not expected to contain any items,
+     *                        e.g., for POST, PUT, or DELETE requests.
+     * @param responseCode    The HTTP response code from the API request.
+     * @param responseMessage The HTTP response message from the API request.
+     * @param responseBody    The raw JSON response body from the API request,
+     *                        or a string representation of the response if not in JSON format.
+     * @param headers         The headers from the API response.
+     * @param gson            The Gson object to use for deserialization.
+     * @param lazyDecoding    True to deserialize each item on its first access, see {@link #getItems()}.
+     */
+    public APIResponse(Class<T> clazz, int responseCode, String responseMessage, String responseBody, Map<String, List<String>> headers, Gson gson,
+                       boolean lazyDecoding) {
+        this(clazz, responseCode, responseMessage, responseBody, headers, gson, lazyDecoding, DEFAULT_PARALLEL_DECODING_THRESHOLD);
+    }
 
-        var jsonObj = JsonParser.parseString(responseBody).getAsJsonObject();
-        if (jsonObj.has(JSON_ARRAY_ITEMS)) {
-            isSingleItem = false;
-            jsonObj.get(JSON_ARRAY_ITEMS).getAsJsonArray().forEach(itemElement -> items.add(deserializeItem(clazz, itemElement, gson)));
-        } else {
-            isSingleItem = true;
-            items.add(deserializeItem(clazz, jsonObj, gson));
-        }
+    /**
+     * Constructs an APIResponse object from the given parameters, choosing how items are deserialized.
+     *
+     * @param clazz                     The class type of the items in the response,
+     *                                  or {@link Void} if the response is not expected to contain any items,
+     *                                  e.g., for POST, PUT, or DELETE requests.
+     * @param responseCode              The HTTP response code from the API request.
+     * @param responseMessage           The HTTP response message from the API request.
+     * @param responseBody              The raw JSON response body from the API request,
+     *                                  or a string representation of the response if not in JSON format.
+     * @param headers                   The headers from the API response.
+     * @param gson                      The Gson object to use for deserialization.
+     * @param lazyDecoding              True to deserialize each item on its first access, see {@link #getItems()}.
+     * @param parallelDecodingThreshold The number of items from which they are deserialized in parallel
+     *                                  on the common fork-join pool, unless decoding lazily.
+     */
+    public APIResponse(Class<T> clazz, int responseCode, String responseMessage, String responseBody, Map<String, List<String>> headers, Gson gson,
+                       boolean lazyDecoding, int parallelDecodingThreshold) {
+        this(clazz, responseCode, responseMessage, responseBody, headers, gson, lazyDecoding, parallelDecodingThreshold, null);
+    }
+
+    /**
+     * Constructs an APIResponse object from the given parameters, deserializing items in parallel on the given pool.
+     *
+     * @param clazz                     The class type of the items in the response,
+     *                                  or {@link Void} if the response is not expected to contain any items,
+     *                                  e.g., for POST, PUT, or DELETE requests.
+     * @param responseCode              The HTTP response code from the API request.
+     * @param responseMessage           The HTTP response message from the API request.
+     * @param responseBody              The raw JSON response body from the API request,
+     *                                  or a string representation of the response if not in JSON format.
+     * @param headers                   The headers from the API response.
+     * @param gson                      The Gson object to use for deserialization.
+     * @param lazyDecoding              True to deserialize each item on its first access, see {@link #getItems()}.
+     * @param parallelDecodingThreshold The number of items from which they are deserialized in parallel, unless decoding lazily.
+     * @param decodingPool              The fork-join pool to deserialize in parallel on, or null for the common pool.
+     */
+    public APIResponse(Class<T> clazz, int responseCode, String responseMessage, String responseBody, Map<String, List<String>> headers, Gson gson,
+                       boolean lazyDecoding, int parallelDecodingThreshold, ForkJoinPool decodingPool) {
+        this(clazz, responseCode, responseMessage, responseBody, headers, gson, null, null,
+                lazyDecoding, parallelDecodingThreshold, decodingPool, RequestMetricsListener.NONE, null);
     }
 
     /**
-     * Constructs an APIResponse object from the given APIRequest.
+     * Constructs an APIResponse object from the given APIRequest,
+     * deserializing items as set by {@link APIRequest.APIRequestBuilder#setLazyDecoding(boolean)}
+     * and {@link APIRequest.APIRequestBuilder#setParallelDecodingThreshold(int)}, on the pool set by
+     * {@link APIRequest.APIRequestBuilder#setDecodingPool(ForkJoinPool)}.
      *
      * @param clazz      The class type of the items in the response,
      *                   or {@link Void} if the response is not expected to contain any items,
@@ -73,19 +139,136 @@ public class APIResponse<T> {
      * @throws IOException if an error occurs while making the API request.
      */
     public APIResponse(Class<T> clazz, APIRequest apiRequest, Gson gson) throws IOException {
-        this(clazz, apiRequest.getConnection().getResponseCode(), apiRequest.getConnection().getResponseMessage(), apiRequest.getResponseBody(), apiRequest.getConnection().getHeaderFields(), gson);
+        this(clazz, apiRequest.getConnection().getResponseCode(), apiRequest.getConnection().getResponseMessage(), apiRequest.getResponseBody(), apiRequest.getConnection().getHeaderFields(), gson,
+                null, null, apiRequest.isLazyDecoding(), apiRequest.getParallelDecodingThreshold(), apiRequest.getDecodingPool(), apiRequest.getMetricsListener(), apiRequest.getEndpointKey());
     }
 
     /**
-     * Deserializes a single item from the JSON response.
+     * Constructs an APIResponse object from the given APIRequest, deserializing each item
+     * with the Gson instance resolved from the value of one of its properties.
      *
-     * @param clazz       The class type of the item to deserialize.
-     * @param jsonElement The JSON element representing the item.
-     * @param gson        The Gson object to use for deserialization.
-     * @return The deserialized item of type T.
+     * @param clazz        The class type of the items in the response.
+     * @param apiRequest   The APIRequest object to get the response from.
+     * @param keyProperty  The name of the top-level string property of the items used to resolve their Gson instance.
+     * @param gsonResolver Resolves the Gson instance of each distinct value of the key property.
+     * @throws IOException          if an error occurs while making the API request.
+     * @throws UncheckedIOException if the resolver fails.
      */
-    private T deserializeItem(Class<T> clazz, JsonElement jsonElement, Gson gson) {
-        return gson.fromJson(jsonElement, clazz);
+    APIResponse(Class<T> clazz, APIRequest apiRequest, String keyProperty, GsonResolver gsonResolver) throws IOException {
+        this(clazz, apiRequest.getConnection().getResponseCode(), apiRequest.getConnection().getResponseMessage(), apiRequest.getResponseBody(), apiRequest.getConnection().getHeaderFields(), null,
+                keyProperty, gsonResolver, apiRequest.isLazyDecoding(), apiRequest.getParallelDecodingThreshold(), apiRequest.getDecodingPool(), apiRequest.getMetricsListener(), apiRequest.getEndpointKey());
+    }
+
+    private APIResponse(int responseCode, String responseMessage, Map<String, List<String>> headers, List<T> items) {
+        this.responseCode = responseCode;
+        this.responseMessage = responseMessage;
+        this.responseBody = null;
+        this.headers = headers;
+        this.items = items;
+        this.isSingleItem = false;
+    }
+
+    /**
+     * Merge the responses of the queries a list query was split into, e.g., with
+     * {@link org.connectedsystems.util.QueryStringBuilder#getChunkedParameters(int)}, into a single list.
+     * The responses are all the pages of each query, so no items are lost to the pagination of a query.
+     * <p>
+     * The merged response has the response code, message, and headers of the first response, and no body or links.
+     * Its items are those of each response in turn, without the items whose key was already seen, up to the limit.
+     * Without a key, the items are a read-only view of those of the responses, so lazily deserialized items stay lazy;
+     * deduplicating items deserializes them.
+     * If any of the responses is unsuccessful, it is returned instead, so that the error is not hidden by a partial list.
+     *
+     * @param responses The responses of the queries, in order.
+     * @param itemKey   The key identifying duplicate items, e.g., their ID, or null to keep all items,
+     *                  e.g., when the queries cannot return the same item.
+     *                  Items with a null key are always kept.
+     * @param limit     The maximum number of items of the merged response.
+     * @param <T>       The type of the items.
+     * @return The merged response, or the first unsuccessful one.
+     * @throws IllegalArgumentException if there are no responses, or if the limit is negative.
+     */
+    public static <T> APIResponse<T> merge(List<APIResponse<T>> responses, Function<? super T, ?> itemKey, int limit) {
+        if (responses == null || responses.isEmpty()) {
+            throw new IllegalArgumentException("At least one response is required");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        List<List<T>> pages = new ArrayList<>(responses.size());
+        for (APIResponse<T> response : responses) {
+            if (!response.isSuccessful()) return response;
+            pages.add(response.items);
+        }
+
+        List<T> items;
+        if (itemKey == null) {
+            items = new ConcatenatedList<>(pages);
+            if (items.size() > limit) {
+                items = items.subList(0, limit);
+            }
+        } else {
+            items = new ArrayList<>();
+            Set<Object> keys = new HashSet<>();
+            merge:
+            for (List<T> page : pages) {
+                for (T item : page) {
+                    if (items.size() == limit) break merge;
+                    Object key = itemKey.apply(item);
+                    if (key == null || keys.add(key)) {
+                        items.add(item);
+                    }
+                }
+            }
+        }
+        APIResponse<T> first = responses.get(0);
+        return new APIResponse<>(first.responseCode, first.responseMessage, first.headers, items);
+    }
+
+    private APIResponse(Class<T> clazz, int responseCode, String responseMessage, String responseBody, Map<String, List<String>> headers, Gson gson,
+                        String keyProperty, GsonResolver gsonResolver, boolean lazyDecoding, int parallelDecodingThreshold,
+                        ForkJoinPool decodingPool, RequestMetricsListener metricsListener, String endpointKey) {
+        this.responseCode = responseCode;
+        this.responseMessage = responseMessage;
+        this.responseBody = responseBody;
+        this.headers = headers;
+
+        if (clazz == Void.class || responseBody == null || responseBody.isEmpty() || responseBody.charAt(0) != '{') {
+            this.isSingleItem = false;
+            this.items = new ArrayList<>();
+            return;
+        }
+
+        DecodeEvent event = new DecodeEvent();
+        event.begin();
+        long start = System.nanoTime();
+        LazyItemList<T> itemList = LazyItemList.ofItems(responseBody, clazz, gson);
+        isSingleItem = itemList == null;
+        if (isSingleItem) {
+            itemList = LazyItemList.ofSingleItem(responseBody, clazz, gson);
+        }
+        if (gsonResolver != null) {
+            try {
+                itemList.resolveGsons(keyProperty, gsonResolver);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // Resolving may fetch schemas from the server, which is not part of decoding
+            event.begin();
+            start = System.nanoTime();
+        }
+        // With lazy decoding, only the indexing of the items is timed
+        items = lazyDecoding ? itemList : itemList.decodeAll(parallelDecodingThreshold, decodingPool);
+        metricsListener.onDecode(endpointKey, clazz, items.size(), System.nanoTime() - start);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.endpoint = endpointKey;
+            event.itemType = clazz;
+            event.items = items.size();
+            event.bodyLength = responseBody.length();
+            event.commit();
+        }
     }
 
     /**
@@ -146,8 +329,44 @@ public class APIResponse<T> {
     /**
      * @return The list of items from the response or an empty list if no items are returned.
      * If the response is a single item, the list will contain one item, and {@link #getItem()} will return the same item.
+     * <p>
+     * With lazy decoding, the list is read-only and each item is deserialized on its first access,
+     * so counting the items or reading the first few does not pay for decoding the others;
+     * an item that cannot be deserialized throws a {@link com.google.gson.JsonParseException} when accessed.
      */
     public List<T> getItems() {
         return items;
     }
+
+    /**
+     * @return The links of a list of items, e.g., to the next page, or an empty list if the response has none.
+     * The links are deserialized from the response body on each call.
+     * @throws com.google.gson.JsonParseException if the response body is not well-formed.
+     */
+    public List<Link> getLinks() {
+        if (responseBody == null || responseBody.isEmpty() || responseBody.charAt(0) != '{') {
+            return Collections.emptyList();
+        }
+
+        JsonScanner scanner = new JsonScanner(responseBody);
+        if (!scanner.findMember(JSON_ARRAY_LINKS) || scanner.peek() != '[') {
+            return Collections.emptyList();
+        }
+        int start = scanner.position();
+        scanner.skipValue();
+        List<Link> links = GsonFactory.gson.fromJson(responseBody.substring(start, scanner.position()), LINK_LIST_TYPE);
+        return links != null ? links : Collections.emptyList();
+    }
+
+    /**
+     * @return The link to the next page of a list of items, or null if this is the last page.
+     */
+    public Link getNextLink() {
+        for (Link link : getLinks()) {
+            if (link != null && NEXT_RELATION.equals(link.getRelationType()) && link.getHref() != null) {
+                return link;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,56 @@
+package org.connectedsystems.net;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A read-only view of several lists one after the other, e.g., the items of the pages of a list query.
+ * <p>
+ * Accessing an item only accesses the list it belongs to, so the items of a {@link LazyItemList} are still deserialized on first access.
+ * The lists must not change size while viewed.
+ *
+ * @param <T> The type of the items.
+ */
+final class ConcatenatedList<T> extends AbstractList<T> implements RandomAccess {
+    private final List<List<T>> lists = new ArrayList<>();
+    /**
+     * The index of the first item of each list.
+     */
+    private final int[] offsets;
+    private final int size;
+
+    ConcatenatedList(List<? extends List<T>> lists) {
+        int[] starts = new int[lists.size()];
+        int total = 0;
+        for (List<T> list : lists) {
+            // Empty lists are left out, so that each offset starts a single list
+            if (list.isEmpty()) continue;
+            starts[this.lists.size()] = total;
+            this.lists.add(list);
+            total = Math.addExact(total, list.size());
+        }
+        this.offsets = Arrays.copyOf(starts, this.lists.size());
+        this.size = total;
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int list = Arrays.binarySearch(offsets, index);
+        if (list < 0) {
+            // The insertion point is after the list containing the index
+            list = -list - 2;
+        }
+        return lists.get(list).get(index - offsets[list]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
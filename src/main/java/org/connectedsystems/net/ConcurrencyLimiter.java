@@ -0,0 +1,456 @@
+package org.connectedsystems.net;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive limit on the number of requests in flight to a server.
+ * <p>
+ * The limit follows an AIMD (additive increase, multiplicative decrease) scheme:
+ * every request that completes without sign of overload grows the limit by {@code 1 / limit},
+ * i.e., by roughly one per round trip of the whole window,
+ * while an error, a timeout, or a latency well above the observed minimum shrinks it by {@link #getBackoffRatio()}.
+ * Requests that exceed the current limit wait in {@link #acquire()} until a slot frees up.
+ * <p>
+ * The minimum latency is tracked per endpoint, see {@link #release(String, long, boolean)},
+ * so that a page of thousands of observations is compared with other pages of observations,
+ * not with the lookup of a single system, which would make every large page look like overload.
+ * <p>
+ * A disabled limiter never makes requests wait, but still counts the requests in flight, see {@link #setEnabled(boolean)}.
+ */
+public class ConcurrencyLimiter {
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 200;
+
+    /**
+     * Number of samples after which the minimum latency is re-measured,
+     * so that a permanent change in server latency is eventually accepted as the new baseline.
+     */
+    private static final int MIN_RTT_WINDOW = 500;
+    /**
+     * Smoothing factor of the exponentially weighted moving average of the queueing delay.
+     */
+    private static final double QUEUE_DELAY_SMOOTHING = 0.1;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotAvailable = lock.newCondition();
+
+    private volatile int minLimit;
+    private volatile int maxLimit;
+    private volatile double backoffRatio = 0.9;
+    private volatile double latencyTolerance = 2.0;
+    private volatile boolean enabled = true;
+
+    private double limit;
+    private int inFlight;
+    private int queueLength;
+    /**
+     * The minimum latency of each endpoint, by endpoint key.
+     */
+    private final Map<String, RttBaseline> baselines = new HashMap<>();
+    private long lastQueueDelayNanos;
+    private double averageQueueDelayNanos;
+
+    /**
+     * Constructs a ConcurrencyLimiter with the default limits.
+     */
+    public ConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * Constructs a ConcurrencyLimiter with the given limits.
+     *
+     * @param initialLimit The number of concurrent requests allowed before any latency has been observed.
+     * @param minLimit     The lower bound of the limit, must be at least 1.
+     * @param maxLimit     The upper bound of the limit.
+     * @throws IllegalArgumentException if the limits are not consistent.
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Wait until a request may be sent, then reserve a slot for it.
+     * Every successful call must be matched by a call to {@link #release(long, boolean)}.
+     *
+     * @return The time spent waiting for a slot, in nanoseconds.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public long acquire() throws InterruptedException {
+        long start = System.nanoTime();
+        lock.lockInterruptibly();
+        try {
+            queueLength++;
+            try {
+                while (enabled && inFlight >= (int) limit) {
+                    slotAvailable.await();
+                }
+            } finally {
+                queueLength--;
+            }
+            inFlight++;
+
+            long queueDelay = System.nanoTime() - start;
+            lastQueueDelayNanos = queueDelay;
+            averageQueueDelayNanos += QUEUE_DELAY_SMOOTHING * (queueDelay - averageQueueDelayNanos);
+            return queueDelay;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait at most the given time for a slot, then reserve it.
+     * A successful call must be matched by a call to {@link #release(long, boolean)} or {@link #releaseIgnored()}.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit    The unit of the timeout.
+     * @return True if a slot was reserved, false if the timeout elapsed first.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            queueLength++;
+            try {
+                while (enabled && inFlight >= (int) limit) {
+                    if (remaining <= 0) return false;
+                    remaining = slotAvailable.awaitNanos(remaining);
+                }
+            } finally {
+                queueLength--;
+            }
+            inFlight++;
+
+            long queueDelay = System.nanoTime() - start;
+            lastQueueDelayNanos = queueDelay;
+            averageQueueDelayNanos += QUEUE_DELAY_SMOOTHING * (queueDelay - averageQueueDelayNanos);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserve a slot only if one is free right away.
+     * Used for optional requests, such as hedges, that should never queue behind required ones.
+     * A successful call must be matched by a call to {@link #release(long, boolean)} or {@link #releaseIgnored()}.
+     *
+     * @return True if a slot was reserved.
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (enabled && inFlight >= (int) limit) return false;
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release a slot without adjusting the limit,
+     * e.g., for a request cancelled by the client whose outcome says nothing about the server.
+     */
+    public void releaseIgnored() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release a slot reserved by {@link #acquire()} and adjust the limit from the outcome of the request,
+     * comparing its latency with that of all the requests released without an endpoint key.
+     *
+     * @param rttNanos The time from sending the request to receiving the response headers, in nanoseconds.
+     * @param dropped  True if the request failed in a way that indicates overload,
+     *                 e.g., an I/O error, a timeout, or a 429/503 response.
+     * @see #release(String, long, boolean)
+     */
+    public void release(long rttNanos, boolean dropped) {
+        release("", rttNanos, dropped);
+    }
+
+    /**
+     * Release a slot reserved by {@link #acquire()} and adjust the limit from the outcome of the request,
+     * comparing its latency with the minimum latency of the same endpoint.
+     *
+     * @param endpointKey The endpoint of the request, e.g., "datastreams/{id}/observations", see {@link APIRequest#getEndpointKey()}.
+     * @param rttNanos    The time from sending the request to receiving the response headers, in nanoseconds.
+     * @param dropped     True if the request failed in a way that indicates overload,
+     *                    e.g., an I/O error, a timeout, or a 429/503 response.
+     */
+    public void release(String endpointKey, long rttNanos, boolean dropped) {
+        lock.lock();
+        try {
+            inFlight--;
+
+            if (!enabled) {
+                // The limit is only learned while it is enforced
+            } else if (dropped) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else {
+                long minRttNanos = baselines.computeIfAbsent(endpointKey != null ? endpointKey : "", key -> new RttBaseline())
+                        .update(rttNanos);
+                if (rttNanos > minRttNanos * latencyTolerance) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                } else if (inFlight + 1 >= (int) limit / 2) {
+                    // Only grow while the limit is actually being used, otherwise it drifts up without evidence
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+            }
+
+            // Wake up everyone, the limit may have grown by more than one slot
+            slotAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The current number of requests allowed in flight.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of requests currently in flight.
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of requests currently waiting for a slot.
+     */
+    public int getQueueLength() {
+        lock.lock();
+        try {
+            return queueLength;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The time the most recent request spent waiting for a slot.
+     */
+    public long getLastQueueDelay(TimeUnit unit) {
+        lock.lock();
+        try {
+            return unit.convert(lastQueueDelayNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The exponentially weighted moving average of the time requests spent waiting for a slot.
+     */
+    public long getAverageQueueDelay(TimeUnit unit) {
+        lock.lock();
+        try {
+            return unit.convert((long) averageQueueDelayNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The lowest latency of any endpoint observed in the current measurement window,
+     * or -1 if no request has completed yet.
+     */
+    public long getMinRtt(TimeUnit unit) {
+        lock.lock();
+        try {
+            long minRttNanos = Long.MAX_VALUE;
+            for (RttBaseline baseline : baselines.values()) {
+                minRttNanos = Math.min(minRttNanos, baseline.minRttNanos);
+            }
+            return minRttNanos == Long.MAX_VALUE ? -1 : unit.convert(minRttNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The lowest latency of the given endpoint observed in the current measurement window,
+     * or -1 if no request to this endpoint has completed yet.
+     */
+    public long getMinRtt(String endpointKey, TimeUnit unit) {
+        lock.lock();
+        try {
+            RttBaseline baseline = baselines.get(endpointKey);
+            return baseline == null || baseline.minRttNanos == Long.MAX_VALUE ? -1 : unit.convert(baseline.minRttNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable the limit. While disabled, requests are never made to wait and the limit is not adjusted,
+     * but the requests in flight are still counted, so the limiter can be enabled at any time.
+     *
+     * @param enabled True to enforce the limit (the default for a new limiter).
+     */
+    public void setEnabled(boolean enabled) {
+        lock.lock();
+        try {
+            this.enabled = enabled;
+            slotAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    /**
+     * Set the lower bound of the limit.
+     *
+     * @param minLimit The lower bound, must be at least 1 and at most {@link #getMaxLimit()}.
+     */
+    public void setMinLimit(int minLimit) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("minLimit must be between 1 and maxLimit");
+        }
+        lock.lock();
+        try {
+            this.minLimit = minLimit;
+            limit = Math.max(limit, minLimit);
+            slotAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Set the upper bound of the limit.
+     *
+     * @param maxLimit The upper bound, must be at least {@link #getMinLimit()}.
+     */
+    public void setMaxLimit(int maxLimit) {
+        if (maxLimit < minLimit) {
+            throw new IllegalArgumentException("maxLimit must not be less than minLimit");
+        }
+        lock.lock();
+        try {
+            this.maxLimit = maxLimit;
+            limit = Math.min(limit, maxLimit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The factor the limit is multiplied by when overload is detected.
+     */
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    /**
+     * Set the factor the limit is multiplied by when overload is detected.
+     *
+     * @param backoffRatio A value strictly between 0 and 1; lower values back off more aggressively.
+     */
+    public void setBackoffRatio(double backoffRatio) {
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * @return How many times the minimum latency a request may take before it is treated as a sign of overload.
+     */
+    public double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+
+    /**
+     * Set how many times the minimum latency a request may take before it is treated as a sign of overload.
+     *
+     * @param latencyTolerance A value greater than 1.
+     */
+    public void setLatencyTolerance(double latencyTolerance) {
+        if (latencyTolerance <= 1) {
+            throw new IllegalArgumentException("latencyTolerance must be greater than 1");
+        }
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    /**
+     * The minimum latency of an endpoint, re-measured every {@link #MIN_RTT_WINDOW} samples.
+     * Guarded by the lock of the limiter.
+     */
+    private static class RttBaseline {
+        private long minRttNanos = Long.MAX_VALUE;
+        private long windowMinRttNanos = Long.MAX_VALUE;
+        private int windowSamples;
+
+        /**
+         * Add a sample and get the minimum latency to compare it with.
+         */
+        long update(long rttNanos) {
+            if (rttNanos <= 0) return minRttNanos;
+
+            minRttNanos = Math.min(minRttNanos, rttNanos);
+            windowMinRttNanos = Math.min(windowMinRttNanos, rttNanos);
+            if (++windowSamples >= MIN_RTT_WINDOW) {
+                minRttNanos = windowMinRttNanos;
+                windowMinRttNanos = Long.MAX_VALUE;
+                windowSamples = 0;
+            }
+            return minRttNanos;
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "{enabled: " + enabled + ", limit: " + (int) limit + ", inFlight: " + inFlight + ", queueLength: " + queueLength + "}";
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package org.connectedsystems.net;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The combined responses of the same query sent to several Connected Systems API servers.
+ * <p>
+ * Iterating over the response yields the items of every server, each tagged with the name of the server it came from.
+ * Unordered responses yield the items of each server as soon as that server has answered;
+ * ordered responses wait for all servers, sort the items of each server, and merge them with a k-way merge.
+ * A server that fails, or answers with an unsuccessful response, e.g., a 4xx or 5xx status,
+ * does not fail the whole query: it contributes no items, and its error is available from {@link #getErrors()}.
+ * <p>
+ * Closing the response, e.g., with try-with-resources once enough items were read, cancels the servers that have not answered yet.
+ *
+ * @param <T> The type of the items in the responses.
+ */
+public class FederatedResponse<T> implements Iterable<FederatedResponse.Item<T>>, AutoCloseable {
+    private final Map<String, CompletableFuture<APIResponse<T>>> responses;
+    private final Comparator<T> order;
+
+    /**
+     * Constructs a FederatedResponse from the pending responses of each server.
+     *
+     * @param responses The pending response of each server, by server name.
+     * @param order     The order to merge items in, or null to yield them in the order the servers answer.
+     */
+    public FederatedResponse(Map<String, CompletableFuture<APIResponse<T>>> responses, Comparator<T> order) {
+        this.responses = new LinkedHashMap<>(responses);
+        this.order = order;
+    }
+
+    /**
+     * @return An iterator over the items of all servers.
+     * Its methods block until the next item is available, i.e., until the server it comes from has answered;
+     * for ordered responses, until every server has answered, failed, or was cancelled.
+     */
+    @Override
+    public Iterator<Item<T>> iterator() {
+        return order == null ? new CompletionOrderIterator() : new MergeIterator();
+    }
+
+    /**
+     * Wait for all servers and collect their items into a list.
+     *
+     * @return The items of all servers, in iteration order.
+     */
+    public List<Item<T>> getItems() {
+        List<Item<T>> items = new ArrayList<>();
+        forEach(items::add);
+        return items;
+    }
+
+    /**
+     * Wait for all servers and get the responses of those that answered,
+     * including unsuccessful responses, which are also reported by {@link #getErrors()}.
+     *
+     * @return The responses, by server name.
+     */
+    public Map<String, APIResponse<T>> getResponses() {
+        Map<String, APIResponse<T>> result = new LinkedHashMap<>();
+        responses.forEach((source, future) -> {
+            APIResponse<T> response = await(future);
+            if (response != null) result.put(source, response);
+        });
+        return result;
+    }
+
+    /**
+     * Wait for all servers and get the errors of those that failed or answered with an unsuccessful response.
+     * An unsuccessful response is reported as an {@link IOException} with its response code and message.
+     *
+     * @return The errors, by server name; empty if all servers answered successfully.
+     */
+    public Map<String, Throwable> getErrors() {
+        Map<String, Throwable> result = new LinkedHashMap<>();
+        responses.forEach((source, future) -> {
+            try {
+                APIResponse<T> response = future.join();
+                if (response != null && !response.isSuccessful()) {
+                    result.put(source, new IOException("Server " + source + " answered "
+                            + response.getResponseCode() + " " + response.getResponseMessage()));
+                }
+            } catch (CompletionException e) {
+                result.put(source, e.getCause() != null ? e.getCause() : e);
+            } catch (RuntimeException e) {
+                result.put(source, e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return True if every server has either answered or failed.
+     */
+    public boolean isDone() {
+        return responses.values().stream().allMatch(CompletableFuture::isDone);
+    }
+
+    /**
+     * Cancel the queries of the servers that have not answered yet, aborting their requests.
+     * Cancelled servers contribute no items, and are reported by {@link #getErrors()} with a
+     * {@link java.util.concurrent.CancellationException}; the items of the servers that already answered remain available.
+     *
+     * @return True if at least one server was cancelled.
+     */
+    public boolean cancel() {
+        boolean cancelled = false;
+        for (CompletableFuture<APIResponse<T>> future : responses.values()) {
+            cancelled |= future.cancel(true);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Cancel the queries of the servers that have not answered yet, see {@link #cancel()}.
+     */
+    @Override
+    public void close() {
+        cancel();
+    }
+
+    /**
+     * Wait for a response, returning null if the server failed.
+     */
+    private APIResponse<T> await(CompletableFuture<APIResponse<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * An item of a federated response, tagged with the server it came from.
+     *
+     * @param <T> The type of the item.
+     */
+    public static class Item<T> {
+        private final String source;
+        private final T item;
+
+        public Item(String source, T item) {
+            this.source = source;
+            this.item = item;
+        }
+
+        /**
+         * The name of the server the item came from.
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * The item itself.
+         */
+        public T getItem() {
+            return item;
+        }
+
+        @Override
+        public String toString() {
+            return "{source: " + source + ", item: " + item + "}";
+        }
+    }
+
+    /**
+     * Yields the items of each server as soon as it answers.
+     */
+    private class CompletionOrderIterator implements Iterator<Item<T>> {
+        private final BlockingQueue<String> completed = new LinkedBlockingQueue<>();
+        private int remainingSources;
+        private String currentSource;
+        private Iterator<T> current = Collections.emptyIterator();
+
+        CompletionOrderIterator() {
+            remainingSources = responses.size();
+            responses.forEach((source, future) -> future.whenComplete((response, error) -> completed.add(source)));
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (remainingSources == 0) return false;
+                try {
+                    currentSource = completed.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                }
+                remainingSources--;
+                APIResponse<T> response = await(responses.get(currentSource));
+                current = response != null && response.isSuccessful() ? response.getItems().iterator() : Collections.emptyIterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Item<T> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return new Item<>(currentSource, current.next());
+        }
+    }
+
+    /**
+     * Merges the items of all servers, each sorted first, since a server may not return them in the merge order.
+     */
+    private class MergeIterator implements Iterator<Item<T>> {
+        private PriorityQueue<Head> heads;
+
+        private class Head {
+            final String source;
+            final Iterator<T> items;
+            T item;
+
+            Head(String source, Iterator<T> items) {
+                this.source = source;
+                this.items = items;
+                this.item = items.next();
+            }
+        }
+
+        private PriorityQueue<Head> heads() {
+            if (heads == null) {
+                heads = new PriorityQueue<>(Math.max(1, responses.size()), (a, b) -> order.compare(a.item, b.item));
+                responses.forEach((source, future) -> {
+                    APIResponse<T> response = await(future);
+                    if (response != null && response.isSuccessful() && !response.getItems().isEmpty()) {
+                        List<T> items = new ArrayList<>(response.getItems());
+                        // Nearly free if the server already sorted them, as the sort is adaptive
+                        items.sort(order);
+                        heads.add(new Head(source, items.iterator()));
+                    }
+                });
+            }
+            return heads;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads().isEmpty();
+        }
+
+        @Override
+        public Item<T> next() {
+            Head head = heads().poll();
+            if (head == null) throw new NoSuchElementException();
+
+            Item<T> next = new Item<>(head.source, head.item);
+            if (head.items.hasNext()) {
+                head.item = head.items.next();
+                heads.add(head);
+            }
+            return next;
+        }
+    }
+}
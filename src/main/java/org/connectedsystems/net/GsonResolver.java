@@ -0,0 +1,26 @@
+package org.connectedsystems.net;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the Gson instances that deserialize the items of a response whose items do not all share the same format,
+ * by a key read from each item, e.g., the observations of several datastreams by datastream ID,
+ * each datastream having its own result schema.
+ *
+ * @see APIRequest#execute(Class, String, GsonResolver)
+ */
+@FunctionalInterface
+public interface GsonResolver {
+    /**
+     * Resolve the Gson instances of a response at once, so that they can be loaded concurrently.
+     *
+     * @param keys The distinct keys of the items of the response.
+     * @return The Gson instance of each key. Items whose key is missing from the map fail to deserialize.
+     * @throws IOException if an error occurs while resolving a Gson instance, e.g., while fetching a schema.
+     */
+    Map<String, Gson> resolve(Set<String> keys) throws IOException;
+}
@@ -0,0 +1,173 @@
+package org.connectedsystems.net;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Policy for hedging idempotent (GET) requests.
+ * <p>
+ * If no response has arrived once a request has been outstanding for longer than the configured percentile
+ * of recent latencies to the same endpoint, a duplicate request is sent and whichever answers first is used.
+ * Hedges are paid for from a budget that grows by {@link #getBudgetRatio()} with every request,
+ * so that at most that fraction of extra load is ever added, even when the server slows down as a whole.
+ */
+public class HedgingPolicy {
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(10);
+    public static final double DEFAULT_BUDGET_RATIO = 0.05;
+
+    /**
+     * Number of latency samples kept per endpoint.
+     */
+    private static final int WINDOW_SIZE = 256;
+    /**
+     * Number of latency samples needed before an endpoint is hedged at all.
+     */
+    private static final int MIN_SAMPLES = 20;
+    /**
+     * Maximum number of hedges that can be saved up while the server is healthy.
+     */
+    private static final double MAX_BUDGET = 10;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double budgetRatio;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong hedgesSent = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+    private double budget;
+
+    /**
+     * Constructs a HedgingPolicy that hedges at the 95th percentile with a 5% budget.
+     */
+    public HedgingPolicy() {
+        this(DEFAULT_PERCENTILE, DEFAULT_MIN_DELAY, DEFAULT_BUDGET_RATIO);
+    }
+
+    /**
+     * Constructs a HedgingPolicy with the given settings.
+     *
+     * @param percentile  The latency percentile after which a hedge is sent, between 0 and 1 (exclusive).
+     * @param minDelay    The minimum time to wait before hedging, regardless of observed latencies.
+     * @param budgetRatio The maximum number of hedges per request, between 0 and 1.
+     * @throws IllegalArgumentException if any of the settings are out of range.
+     */
+    public HedgingPolicy(double percentile, Duration minDelay, double budgetRatio) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be between 0 and 1");
+        }
+        if (minDelay == null || minDelay.isNegative()) {
+            throw new IllegalArgumentException("minDelay must not be null or negative");
+        }
+        if (budgetRatio < 0 || budgetRatio > 1) {
+            throw new IllegalArgumentException("budgetRatio must be between 0 and 1");
+        }
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.budgetRatio = budgetRatio;
+    }
+
+    /**
+     * Get the time to wait for a response before hedging a request to the given endpoint.
+     *
+     * @param endpointKey The key identifying the endpoint, see {@link APIRequest#getEndpointKey()}.
+     * @return The delay in nanoseconds, or -1 if not enough latencies have been recorded to hedge yet.
+     */
+    public long getHedgeDelayNanos(String endpointKey) {
+        LatencyWindow window = latencies.get(endpointKey);
+        if (window == null) return -1;
+        long delay = window.percentile(percentile);
+        return delay < 0 ? -1 : Math.max(minDelayNanos, delay);
+    }
+
+    /**
+     * Record the latency of a completed request.
+     *
+     * @param endpointKey  The key identifying the endpoint, see {@link APIRequest#getEndpointKey()}.
+     * @param latencyNanos The time from sending the request to reading the whole response.
+     */
+    public void recordLatency(String endpointKey, long latencyNanos) {
+        latencies.computeIfAbsent(endpointKey, key -> new LatencyWindow()).add(latencyNanos);
+    }
+
+    /**
+     * Add the share of a hedge earned by sending one request to the budget.
+     */
+    public synchronized void onRequest() {
+        budget = Math.min(MAX_BUDGET, budget + budgetRatio);
+    }
+
+    /**
+     * Take one hedge from the budget and count it as sent.
+     * Only call this once nothing else can prevent the hedge from being sent, e.g., once its concurrency slot is reserved.
+     *
+     * @return True if the budget allowed a hedge to be sent.
+     */
+    public synchronized boolean tryAcquireHedge() {
+        if (budget < 1) return false;
+        budget -= 1;
+        hedgesSent.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Record that a hedge answered before the original request.
+     */
+    public void onHedgeWon() {
+        hedgesWon.incrementAndGet();
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public Duration getMinDelay() {
+        return Duration.ofNanos(minDelayNanos);
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    /**
+     * @return The number of hedges sent since this policy was created.
+     */
+    public long getHedgesSent() {
+        return hedgesSent.get();
+    }
+
+    /**
+     * @return The number of hedges that answered before the original request.
+     */
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
+
+    /**
+     * Fixed-size ring buffer of the most recent latencies to one endpoint.
+     */
+    private static class LatencyWindow {
+        private final long[] samples = new long[WINDOW_SIZE];
+        private int count;
+        private int next;
+
+        synchronized void add(long latencyNanos) {
+            samples[next] = latencyNanos;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) count++;
+        }
+
+        long percentile(double percentile) {
+            long[] sorted;
+            synchronized (this) {
+                if (count < MIN_SAMPLES) return -1;
+                sorted = Arrays.copyOf(samples, count);
+            }
+            Arrays.sort(sorted);
+            return sorted[Math.min(sorted.length - 1, (int) (percentile * sorted.length))];
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.connectedsystems.net;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Opens the connections API requests are sent over.
+ * <p>
+ * The request configures the returned connection, i.e., its method, timeouts, and headers,
+ * then sends the body and reads the response; the factory only decides what kind of connection it gets.
+ * This is the extension point used to record the exchanges of a client or replay them without a server,
+ * see {@link org.connectedsystems.replay.RecordingConnectionFactory} and {@link org.connectedsystems.replay.ReplayConnectionFactory}.
+ */
+@FunctionalInterface
+public interface HttpConnectionFactory {
+    /**
+     * Opens plain connections to the server with {@link URL#openConnection()}.
+     */
+    HttpConnectionFactory DEFAULT = url -> (HttpURLConnection) url.openConnection();
+
+    /**
+     * Create an unconnected connection to the given URL.
+     *
+     * @param url The full URL of the request.
+     * @return The connection.
+     * @throws IOException if the connection cannot be created.
+     */
+    HttpURLConnection openConnection(URL url) throws IOException;
+}
@@ -0,0 +1,169 @@
+package org.connectedsystems.net;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * A minimal JSON scanner that finds the bounds of values without decoding them.
+ */
+final class JsonScanner {
+    private final String json;
+    private int pos;
+
+    JsonScanner(String json) {
+        this(json, 0);
+    }
+
+    /**
+     * Create a scanner starting within the JSON, e.g., at an element of an array.
+     */
+    JsonScanner(String json, int start) {
+        this.json = json;
+        this.pos = start;
+    }
+
+    /**
+     * @return The offset of the next character to read.
+     */
+    int position() {
+        return pos;
+    }
+
+    /**
+     * Move to the value of a member of the object starting at the current position.
+     *
+     * @param name The name of the member.
+     * @return True if the member was found, and the scanner is at the first character of its value;
+     * false if the object has no such member.
+     * @throws JsonSyntaxException if the JSON is not a well-formed object.
+     */
+    boolean findMember(String name) {
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            return false;
+        }
+
+        while (true) {
+            skipWhitespace();
+            boolean found = nextName(name);
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if (found) {
+                return true;
+            }
+            skipValue();
+            skipWhitespace();
+            if (peek() == '}') {
+                return false;
+            }
+            expect(',');
+        }
+    }
+
+    char peek() {
+        if (pos >= json.length()) {
+            throw error("Unexpected end of JSON");
+        }
+        return json.charAt(pos);
+    }
+
+    void expect(char c) {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    void skipWhitespace() {
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return;
+            pos++;
+        }
+    }
+
+    /**
+     * Read an object member name.
+     *
+     * @return True if the name is the given one.
+     */
+    boolean nextName(String name) {
+        int start = pos + 1;
+        skipString();
+        int end = pos - 1;
+        return end - start == name.length() && json.regionMatches(start, name, 0, name.length());
+    }
+
+    void skipValue() {
+        char c = peek();
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = peek();
+                if (c == '"') {
+                    skipString();
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+                pos++;
+            } while (depth > 0);
+        } else {
+            int start = pos;
+            while (pos < json.length() && ",}] \n\r\t".indexOf(json.charAt(pos)) < 0) {
+                pos++;
+            }
+            if (pos == start) {
+                throw error("Expected a value");
+            }
+        }
+    }
+
+    void skipString() {
+        expect('"');
+        while (true) {
+            char c = peek();
+            pos++;
+            if (c == '"') return;
+            if (c == '\\') pos++;
+        }
+    }
+
+    /**
+     * Read a string value.
+     *
+     * @return The string, unescaped, or null if the value is not a string.
+     */
+    String nextString() {
+        if (peek() != '"') {
+            skipValue();
+            return null;
+        }
+        int start = pos;
+        skipString();
+        String raw = json.substring(start + 1, pos - 1);
+        if (raw.indexOf('\\') < 0) {
+            return raw;
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(json.substring(start, pos)))) {
+            return reader.nextString();
+        } catch (IOException e) {
+            throw new JsonSyntaxException("Invalid string at character " + start, e);
+        }
+    }
+
+    JsonSyntaxException error(String message) {
+        return new JsonSyntaxException(message + " at character " + pos);
+    }
+}
@@ -0,0 +1,281 @@
+package org.connectedsystems.net;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A read-only list over the items of a JSON response body, deserializing each item on its first access.
+ * <p>
+ * The body is scanned once, without building a JSON tree, to find where each item starts and ends,
+ * so that {@link #size()} and the first items are available without decoding the rest.
+ * Decoded items are kept, so each item is decoded at most once. The list can be shared by several threads.
+ * <p>
+ * The same index is used to decode all the items at once with {@link #decodeAll(int, ForkJoinPool)}, in parallel for large pages.
+ * <p>
+ * Items are decoded with the same Gson instance, unless instances are resolved per item with {@link #resolveGsons(String, GsonResolver)}.
+ *
+ * @param <T> The type of the items.
+ */
+final class LazyItemList<T> extends AbstractList<T> implements RandomAccess {
+    private static final String JSON_ARRAY_ITEMS = "items";
+    /**
+     * Chunks are small enough for idle threads to steal work from busy ones, but not so small that forking dominates.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MIN_CHUNK_SIZE = 32;
+
+    private final String body;
+    private final Class<T> clazz;
+    private final Gson gson;
+    /**
+     * The offsets in the body of the start and end of each item, in pairs.
+     */
+    private final int[] offsets;
+    private final int size;
+    private final Object[] decoded;
+    /**
+     * The Gson instance of each item, or null if all items are decoded with the same instance.
+     */
+    private Gson[] itemGsons;
+
+    private LazyItemList(String body, Class<T> clazz, Gson gson, int[] offsets, int size) {
+        this.body = body;
+        this.clazz = clazz;
+        this.gson = gson;
+        this.offsets = offsets;
+        this.size = size;
+        this.decoded = new Object[size];
+    }
+
+    /**
+     * Index the items of a response body.
+     *
+     * @param body  The response body, a JSON object.
+     * @param clazz The class of the items.
+     * @param gson  The Gson instance to decode the items with.
+     * @return The list of the elements of the "items" array of the body, or null if the body has no such array,
+     * i.e., if it is a single item.
+     * @throws JsonSyntaxException if the body is not a well-formed JSON object.
+     */
+    static <T> LazyItemList<T> ofItems(String body, Class<T> clazz, Gson gson) {
+        JsonScanner scanner = new JsonScanner(body);
+        if (!scanner.findMember(JSON_ARRAY_ITEMS) || scanner.peek() != '[') {
+            return null;
+        }
+
+        int[] offsets = new int[32];
+        int size = 0;
+        scanner.expect('[');
+        scanner.skipWhitespace();
+        if (scanner.peek() == ']') {
+            return new LazyItemList<>(body, clazz, gson, offsets, 0);
+        }
+
+        while (true) {
+            scanner.skipWhitespace();
+            int start = scanner.position();
+            scanner.skipValue();
+            if (2 * size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+            }
+            offsets[2 * size] = start;
+            offsets[2 * size + 1] = scanner.position();
+            size++;
+            scanner.skipWhitespace();
+            if (scanner.peek() == ']') {
+                return new LazyItemList<>(body, clazz, gson, offsets, size);
+            }
+            scanner.expect(',');
+        }
+    }
+
+    /**
+     * Wrap a response body that is a single item.
+     */
+    static <T> LazyItemList<T> ofSingleItem(String body, Class<T> clazz, Gson gson) {
+        return new LazyItemList<>(body, clazz, gson, new int[]{0, body.length()}, 1);
+    }
+
+    /**
+     * Resolve the Gson instance decoding each item by the value of one of its properties, e.g., "datastream@id".
+     * Must be called before any item is decoded.
+     *
+     * @param keyProperty  The name of the top-level string property of the items holding their key.
+     * @param gsonResolver Resolves the Gson instance of each distinct key.
+     * @throws IOException         if the resolver fails.
+     * @throws JsonSyntaxException if an item is not a well-formed JSON object.
+     */
+    void resolveGsons(String keyProperty, GsonResolver gsonResolver) throws IOException {
+        String[] keys = new String[size];
+        Set<String> distinctKeys = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            JsonScanner scanner = new JsonScanner(body, offsets[2 * i]);
+            if (scanner.findMember(keyProperty)) {
+                keys[i] = scanner.nextString();
+                if (keys[i] != null) distinctKeys.add(keys[i]);
+            }
+        }
+
+        Map<String, Gson> gsons = distinctKeys.isEmpty() ? Map.of() : gsonResolver.resolve(distinctKeys);
+        Gson[] resolved = new Gson[size];
+        for (int i = 0; i < size; i++) {
+            resolved[i] = keys[i] != null ? gsons.get(keys[i]) : null;
+        }
+        itemGsons = resolved;
+    }
+
+    /**
+     * @throws JsonParseException if the item cannot be deserialized.
+     */
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        synchronized (decoded) {
+            @SuppressWarnings("unchecked")
+            T item = (T) decoded[index];
+            if (item == null) {
+                item = decodeRange(decoded, index, index + 1);
+            }
+            return item;
+        }
+    }
+
+    /**
+     * Decode all the items, in parallel on the given fork-join pool if there are at least the given number of them.
+     *
+     * @param parallelThreshold The number of items from which they are decoded in parallel.
+     * @param pool              The pool to decode in parallel on, or null for the common pool.
+     * @return A new mutable list of the items, in their original order.
+     * @throws JsonParseException if an item cannot be deserialized.
+     */
+    List<T> decodeAll(int parallelThreshold, ForkJoinPool pool) {
+        Object[] items = new Object[size];
+        ForkJoinPool decodingPool = pool != null ? pool : ForkJoinPool.commonPool();
+        if (size >= parallelThreshold && decodingPool.getParallelism() > 1) {
+            int chunkSize = Math.max(MIN_CHUNK_SIZE, size / (CHUNKS_PER_THREAD * decodingPool.getParallelism()));
+            decodingPool.invoke(new DecodeTask(items, 0, size, chunkSize));
+        } else if (size > 0) {
+            decodeRange(items, 0, size);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> list = (List<T>) new ArrayList<>(Arrays.asList(items));
+        return list;
+    }
+
+    /**
+     * Decode a range of consecutive items with a single reader, as the elements of an array.
+     *
+     * @return The last item decoded.
+     */
+    private T decodeRange(Object[] items, int from, int to) {
+        T item = null;
+        try (JsonReader reader = new JsonReader(new ArrayReader(body, offsets[2 * from], offsets[2 * to - 1]))) {
+            reader.beginArray();
+            for (int i = from; i < to; i++) {
+                Gson itemGson = itemGsons != null ? itemGsons[i] : gson;
+                if (itemGson == null) {
+                    throw new JsonParseException("No Gson instance was resolved for item " + i);
+                }
+                item = itemGson.fromJson(reader, clazz);
+                items[i] = item;
+            }
+            reader.endArray();
+        } catch (IOException e) {
+            throw new JsonParseException("Error deserializing items " + from + " to " + to, e);
+        }
+        return item;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Decodes a range of items, splitting it in halves until it is no larger than a chunk.
+     */
+    private class DecodeTask extends RecursiveAction {
+        private final Object[] items;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        DecodeTask(Object[] items, int from, int to, int chunkSize) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                decodeRange(items, from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new DecodeTask(items, from, middle, chunkSize), new DecodeTask(items, middle, to, chunkSize));
+            }
+        }
+    }
+
+    /**
+     * Reads a range of a string, e.g., consecutive array elements, enclosed in brackets, without copying it.
+     */
+    private static class ArrayReader extends Reader {
+        private final String text;
+        private final int end;
+        private int pos;
+        private boolean opened;
+        private boolean closed;
+
+        ArrayReader(String text, int start, int end) {
+            this.text = text;
+            this.pos = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (closed) return -1;
+            if (length == 0) return 0;
+
+            int count = 0;
+            if (!opened) {
+                buffer[offset + count++] = '[';
+                opened = true;
+            }
+            int chunk = Math.min(length - count, end - pos);
+            text.getChars(pos, pos + chunk, buffer, offset + count);
+            pos += chunk;
+            count += chunk;
+            if (pos == end && count < length) {
+                buffer[offset + count++] = ']';
+                closed = true;
+            }
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package org.connectedsystems.net;
+
+import com.google.gson.Gson;
+import org.connectedsystems.datamodels.Link;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * All the pages of a list of items, following the "next" links of the responses,
+ * with the transfer of the next pages overlapping the decoding and processing of the current one.
+ * <p>
+ * Pages are fetched on the executor of the requests, one at a time, and buffered as raw response bodies
+ * until the consumer takes them; a page is only deserialized when the consumer takes it, on the consumer thread.
+ * While the consumer decodes and processes page N, page N+1 is transferred, so reading a long list, e.g.,
+ * when backfilling a datastream, takes about the time of the slower of the two stages rather than their sum.
+ * At most {@code prefetchPages} bodies are buffered ahead of the consumer; fetching pauses when the buffer is full,
+ * so a slow consumer does not accumulate the whole list in memory. With {@code prefetchPages} set to 0,
+ * each page is only fetched when the consumer asks for it, without overlap.
+ * <p>
+ * The next link of each page is followed with the resource path of the first request and the query string of the link,
+ * so that the requests go through the same replicas, limiters, and metrics as the first one.
+ * Paging stops after a page without a next link, or after an unsuccessful response, which is still handed to the consumer.
+ * A query split into several, e.g., with {@link org.connectedsystems.util.QueryStringBuilder#getChunkedParameters(int)},
+ * is read one query after the other, each with all its pages, as a single sequence of pages.
+ * <p>
+ * The pages can only be iterated once. Closing the response, e.g., when the consumer stops early,
+ * cancels the page being fetched and discards the buffered ones.
+ *
+ * @param <T> The type of the items in the pages.
+ */
+public class PagedResponse<T> implements Iterable<APIResponse<T>>, AutoCloseable {
+    /**
+     * The default number of pages fetched ahead of the consumer.
+     */
+    public static final int DEFAULT_PREFETCH_PAGES = 1;
+
+    private final Class<T> clazz;
+    private final APIRequest.APIRequestBuilder requestBuilder;
+    private final Gson gson;
+    private final int prefetchPages;
+    /**
+     * Pages fetched but not yet taken by the consumer, in order.
+     */
+    private final ArrayDeque<APIRequest> fetched = new ArrayDeque<>();
+    /**
+     * The queries whose pages are fetched after those of the current query, in order.
+     */
+    private final ArrayDeque<Map<String, String>> pendingQueries = new ArrayDeque<>();
+    /**
+     * The query of the next page to fetch, or null to fetch the first page as built.
+     */
+    private Map<String, String> nextQuery;
+    private boolean lastFetched;
+    private CompletableFuture<APIResponse<Void>> inFlight;
+    private Throwable error;
+    private boolean closed;
+    private boolean iterated;
+
+    /**
+     * Constructs a PagedResponse and starts fetching the first page.
+     *
+     * @param clazz          The class type of the items in the pages.
+     * @param requestBuilder The builder of the request for the first page, with an executor set.
+     *                       It is used to build the requests of the next pages, so it must not be used elsewhere afterward.
+     * @param gson           The Gson object to use for deserialization.
+     * @param prefetchPages  The maximum number of pages fetched ahead of the consumer,
+     *                       or 0 to fetch each page when the consumer asks for it.
+     * @throws IllegalArgumentException if prefetchPages is negative.
+     */
+    public PagedResponse(Class<T> clazz, APIRequest.APIRequestBuilder requestBuilder, Gson gson, int prefetchPages) {
+        this(clazz, requestBuilder, List.of(), gson, prefetchPages);
+    }
+
+    /**
+     * Constructs a PagedResponse over the pages of several queries, one after the other, and starts fetching the first page.
+     *
+     * @param clazz          The class type of the items in the pages.
+     * @param requestBuilder The builder of the requests, with an executor set, as for {@link #PagedResponse(Class, APIRequest.APIRequestBuilder, Gson, int)}.
+     * @param queries        The query parameters of each query, in order, or an empty list to fetch the first page as built.
+     * @param gson           The Gson object to use for deserialization.
+     * @param prefetchPages  The maximum number of pages fetched ahead of the consumer,
+     *                       or 0 to fetch each page when the consumer asks for it.
+     * @throws IllegalArgumentException if prefetchPages is negative.
+     */
+    public PagedResponse(Class<T> clazz, APIRequest.APIRequestBuilder requestBuilder, List<Map<String, String>> queries, Gson gson, int prefetchPages) {
+        if (prefetchPages < 0) {
+            throw new IllegalArgumentException("prefetchPages must not be negative");
+        }
+        this.clazz = clazz;
+        this.requestBuilder = requestBuilder;
+        this.gson = gson;
+        this.prefetchPages = prefetchPages;
+        this.pendingQueries.addAll(queries);
+        this.nextQuery = pendingQueries.poll();
+
+        synchronized (this) {
+            fetchNext(false);
+        }
+    }
+
+    /**
+     * @return An iterator over the pages, in order.
+     * {@link Iterator#next()} blocks until the next page is transferred, then deserializes it,
+     * and throws an {@link UncheckedIOException} if the page could not be fetched.
+     * @throws IllegalStateException if the pages were already iterated.
+     */
+    @Override
+    public synchronized Iterator<APIResponse<T>> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("The pages can only be iterated once");
+        }
+        iterated = true;
+        return new PageIterator();
+    }
+
+    /**
+     * @return The items of all pages, in order, fetched and deserialized as they are iterated.
+     * @throws IllegalStateException if the pages were already iterated.
+     */
+    public Iterable<T> items() {
+        Iterator<APIResponse<T>> pages = iterator();
+        return () -> new Iterator<>() {
+            private Iterator<T> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (!pages.hasNext()) return false;
+                    current = pages.next().getItems().iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Stop fetching pages: cancel the page being fetched, if any, and discard the pages not yet taken.
+     */
+    @Override
+    public void close() {
+        CompletableFuture<APIResponse<Void>> pending;
+        synchronized (this) {
+            closed = true;
+            fetched.clear();
+            pending = inFlight;
+            inFlight = null;
+            notifyAll();
+        }
+        if (pending != null) {
+            pending.cancel(true);
+        }
+    }
+
+    /**
+     * Start fetching the next page, unless one is already being fetched, the buffer is full, or there are no more pages.
+     * Must be called while holding the lock.
+     *
+     * @param demanded True if the consumer is waiting for the page, in which case it is fetched even if prefetching is off.
+     */
+    private void fetchNext(boolean demanded) {
+        if (closed || inFlight != null || error != null || lastFetched) {
+            return;
+        }
+        if (!demanded && fetched.size() >= prefetchPages) {
+            return;
+        }
+
+        APIRequest request;
+        try {
+            if (nextQuery != null) {
+                requestBuilder.setQueryParams(nextQuery);
+            }
+            request = requestBuilder.build();
+        } catch (IOException e) {
+            error = e;
+            return;
+        }
+        CompletableFuture<APIResponse<Void>> future = request.executeAsync(Void.class, gson);
+        inFlight = future;
+        future.whenComplete((response, e) -> onFetched(future, request, response, e));
+    }
+
+    /**
+     * Buffer a fetched page, and start fetching the page after it.
+     */
+    private void onFetched(CompletableFuture<APIResponse<Void>> future, APIRequest request, APIResponse<Void> response, Throwable e) {
+        // Find the next link before taking the lock, so that the consumer is not held up by the scan of the body
+        Map<String, String> query = null;
+        if (e == null && response.isSuccessful()) {
+            try {
+                Link next = response.getNextLink();
+                query = next != null ? parseQuery(next.getHref().getRawQuery()) : null;
+            } catch (RuntimeException parseError) {
+                // The page itself is handed to the consumer, which gets the same error when decoding it
+            }
+        }
+
+        synchronized (this) {
+            if (closed || inFlight != future) return;
+            inFlight = null;
+
+            if (e != null) {
+                error = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            } else {
+                fetched.add(request);
+                if (query == null && response.isSuccessful()) {
+                    // The last page of a query, followed by the first page of the next one
+                    query = pendingQueries.poll();
+                }
+                nextQuery = query;
+                lastFetched = query == null;
+                fetchNext(false);
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wait for the next page to be fetched and take it.
+     *
+     * @return The executed request of the next page, or null if there are no more pages.
+     */
+    private synchronized APIRequest take() throws IOException {
+        while (fetched.isEmpty()) {
+            if (closed) {
+                return null;
+            }
+            if (error != null) {
+                if (error instanceof IOException ioException) throw ioException;
+                if (error instanceof CancellationException) throw new InterruptedIOException("Request was cancelled");
+                if (error instanceof RuntimeException runtimeException) throw runtimeException;
+                throw new IOException(error);
+            }
+            if (inFlight == null && lastFetched) {
+                return null;
+            }
+            fetchNext(true);
+            if (error != null) {
+                continue;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the next page");
+            }
+        }
+
+        APIRequest request = fetched.poll();
+        fetchNext(false);
+        return request;
+    }
+
+    /**
+     * Parse a raw query string into its parameters, keeping their encoding, as expected by the request builder,
+     * e.g., to follow the next link of a page with {@link APIRequest.APIRequestBuilder#setQueryParams(Map)}.
+     *
+     * @param rawQuery The raw query string, without the leading '?', or null.
+     * @return The parameters, in order.
+     */
+    public static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(parameter.substring(0, separator), parameter.substring(separator + 1));
+            } else if (!parameter.isEmpty()) {
+                parameters.put(parameter, "");
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Takes the fetched pages and deserializes them on the consumer thread.
+     */
+    private class PageIterator implements Iterator<APIResponse<T>> {
+        private APIRequest next;
+        private boolean done;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                try {
+                    next = take();
+                } catch (IOException e) {
+                    done = true;
+                    throw new UncheckedIOException(e);
+                }
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public APIResponse<T> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            APIRequest request = next;
+            next = null;
+            try {
+                return new APIResponse<>(clazz, request, gson);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.connectedsystems.net;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A set of API roots serving the same Connected Systems API data, e.g., a primary server and its read replicas.
+ * <p>
+ * Requests are spread across healthy replicas using the power of two choices:
+ * two replicas are picked at random and the one with fewer outstanding requests is used.
+ * Health is checked passively: a replica that fails several requests in a row is ejected for a while,
+ * for longer each time it fails again, and is put back once the ejection expires.
+ * Writes can be pinned to the primary, i.e., the first API root.
+ */
+public class ReplicaSet {
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    public static final Duration DEFAULT_EJECTION_TIME = Duration.ofSeconds(10);
+    private static final Duration MAX_EJECTION_TIME = Duration.ofMinutes(5);
+
+    private final List<Replica> replicas;
+    private volatile boolean pinWritesToPrimary = true;
+    private volatile int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private volatile Duration ejectionTime = DEFAULT_EJECTION_TIME;
+
+    /**
+     * Constructs a ReplicaSet from the given API roots.
+     *
+     * @param apiRoots The root URLs of the replicas, e.g., "localhost:8181/sensorhub/api".
+     *                 The first one is the primary.
+     * @throws IllegalArgumentException if the list is null, empty, or contains a null or empty root.
+     */
+    public ReplicaSet(List<String> apiRoots) {
+        if (apiRoots == null || apiRoots.isEmpty()) {
+            throw new IllegalArgumentException("At least one API root is required");
+        }
+        List<Replica> replicaList = new ArrayList<>(apiRoots.size());
+        for (String apiRoot : apiRoots) {
+            if (apiRoot == null || apiRoot.isEmpty()) {
+                throw new IllegalArgumentException("API root cannot be null or empty");
+            }
+            replicaList.add(new Replica(apiRoot));
+        }
+        this.replicas = Collections.unmodifiableList(replicaList);
+    }
+
+    /**
+     * Select the replica to send a request to.
+     *
+     * @param write   True if the request modifies data on the server.
+     * @param exclude Replicas that already failed this request and should not be tried again.
+     * @return The selected replica, or null if there is no replica left to try.
+     */
+    public Replica select(boolean write, Set<Replica> exclude) {
+        if (write && pinWritesToPrimary) {
+            Replica primary = getPrimary();
+            return exclude.contains(primary) ? null : primary;
+        }
+
+        long now = System.nanoTime();
+        List<Replica> candidates = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (!exclude.contains(replica) && replica.isHealthy(now)) {
+                candidates.add(replica);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            // Every remaining replica is ejected; rather than fail outright, try the one that will recover first
+            Replica best = null;
+            for (Replica replica : replicas) {
+                if (!exclude.contains(replica) && (best == null || replica.ejectedUntilNanos < best.ejectedUntilNanos)) {
+                    best = replica;
+                }
+            }
+            return best;
+        }
+
+        if (candidates.size() == 1) return candidates.get(0);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) second++;
+
+        Replica a = candidates.get(first);
+        Replica b = candidates.get(second);
+        return a.getOutstanding() <= b.getOutstanding() ? a : b;
+    }
+
+    /**
+     * @return The primary replica, i.e., the first API root.
+     */
+    public Replica getPrimary() {
+        return replicas.get(0);
+    }
+
+    /**
+     * @return All replicas, primary first.
+     */
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public boolean isPinWritesToPrimary() {
+        return pinWritesToPrimary;
+    }
+
+    /**
+     * Set whether POST, PUT, and DELETE requests are always sent to the primary.
+     * Pinned writes never fail over to another replica.
+     * <p>
+     * Default: true
+     */
+    public void setPinWritesToPrimary(boolean pinWritesToPrimary) {
+        this.pinWritesToPrimary = pinWritesToPrimary;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Set the number of consecutive failures after which a replica is ejected.
+     * <p>
+     * Default: 3
+     */
+    public void setFailureThreshold(int failureThreshold) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        this.failureThreshold = failureThreshold;
+    }
+
+    public Duration getEjectionTime() {
+        return ejectionTime;
+    }
+
+    /**
+     * Set how long a replica is ejected the first time it fails.
+     * The time doubles with every further ejection, up to 5 minutes, until the replica succeeds again.
+     * <p>
+     * Default: 10 seconds
+     */
+    public void setEjectionTime(Duration ejectionTime) {
+        if (ejectionTime == null || ejectionTime.isNegative()) {
+            throw new IllegalArgumentException("ejectionTime must not be null or negative");
+        }
+        this.ejectionTime = ejectionTime;
+    }
+
+    @Override
+    public String toString() {
+        return replicas.toString();
+    }
+
+    /**
+     * A single API root of a {@link ReplicaSet}, with its load and health.
+     */
+    public class Replica {
+        private final String apiRoot;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private int consecutiveFailures;
+        private int ejections;
+        private volatile long ejectedUntilNanos;
+
+        private Replica(String apiRoot) {
+            this.apiRoot = apiRoot;
+        }
+
+        /**
+         * The root URL of this replica.
+         */
+        public String getApiRoot() {
+            return apiRoot;
+        }
+
+        /**
+         * The number of requests currently sent to this replica.
+         */
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        /**
+         * @return True if the replica is not currently ejected.
+         */
+        public boolean isHealthy() {
+            return isHealthy(System.nanoTime());
+        }
+
+        private boolean isHealthy(long now) {
+            return ejectedUntilNanos == 0 || now - ejectedUntilNanos >= 0;
+        }
+
+        public synchronized int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        void onStart() {
+            outstanding.incrementAndGet();
+        }
+
+        void onEnd() {
+            outstanding.decrementAndGet();
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            ejections = 0;
+            ejectedUntilNanos = 0;
+        }
+
+        synchronized void onFailure() {
+            if (++consecutiveFailures < failureThreshold) return;
+
+            long ejectionNanos = Math.min(MAX_EJECTION_TIME.toNanos(), ejectionTime.toNanos() << Math.min(ejections, 16));
+            ejectedUntilNanos = System.nanoTime() + ejectionNanos;
+            ejections++;
+            consecutiveFailures = 0;
+        }
+
+        @Override
+        public String toString() {
+            return "{apiRoot: " + apiRoot + ", outstanding: " + getOutstanding() + ", healthy: " + isHealthy() + "}";
+        }
+    }
+}
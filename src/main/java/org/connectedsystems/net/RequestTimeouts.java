@@ -0,0 +1,91 @@
+package org.connectedsystems.net;
+
+import java.time.Duration;
+
+/**
+ * Immutable set of timeouts applied to an API request.
+ * A null duration means no limit.
+ */
+public final class RequestTimeouts {
+    /**
+     * Recommended timeouts: 10 seconds to connect, 60 seconds between two reads, and no overall deadline.
+     * Not applied unless set, e.g., with {@link org.connectedsystems.ConnectedSystemsAPI#setRequestTimeouts(RequestTimeouts)}.
+     */
+    public static final RequestTimeouts RECOMMENDED = new RequestTimeouts(Duration.ofSeconds(10), Duration.ofSeconds(60), null);
+    /**
+     * No timeouts at all, the default; a stalled server can block the request forever.
+     */
+    public static final RequestTimeouts NONE = new RequestTimeouts(null, null, null);
+
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final Duration deadline;
+
+    /**
+     * Constructs a RequestTimeouts object with the given timeouts.
+     *
+     * @param connectTimeout The maximum time to establish the connection, or null for no limit.
+     * @param readTimeout    The maximum time to wait for data while reading the response, or null for no limit.
+     * @param deadline       The maximum total time of the request, including waiting for a concurrency slot,
+     *                       hedging, and reading the whole response, or null for no limit.
+     */
+    public RequestTimeouts(Duration connectTimeout, Duration readTimeout, Duration deadline) {
+        this.connectTimeout = requirePositive(connectTimeout, "connectTimeout");
+        this.readTimeout = requirePositive(readTimeout, "readTimeout");
+        this.deadline = requirePositive(deadline, "deadline");
+    }
+
+    private static Duration requirePositive(Duration duration, String name) {
+        if (duration != null && (duration.isNegative() || duration.isZero())) {
+            throw new IllegalArgumentException(name + " must be positive or null");
+        }
+        return duration;
+    }
+
+    /**
+     * The maximum time to establish the connection, or null for no limit.
+     */
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * The maximum time to wait for data while reading the response, or null for no limit.
+     */
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * The maximum total time of the request, or null for no limit.
+     */
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return A copy of these timeouts with the given connect timeout.
+     */
+    public RequestTimeouts withConnectTimeout(Duration connectTimeout) {
+        return new RequestTimeouts(connectTimeout, readTimeout, deadline);
+    }
+
+    /**
+     * @return A copy of these timeouts with the given read timeout.
+     */
+    public RequestTimeouts withReadTimeout(Duration readTimeout) {
+        return new RequestTimeouts(connectTimeout, readTimeout, deadline);
+    }
+
+    /**
+     * @return A copy of these timeouts with the given deadline.
+     */
+    public RequestTimeouts withDeadline(Duration deadline) {
+        return new RequestTimeouts(connectTimeout, readTimeout, deadline);
+    }
+
+    @Override
+    public String toString() {
+        return "{connectTimeout: " + connectTimeout + ", readTimeout: " + readTimeout + ", deadline: " + deadline + "}";
+    }
+}
@@ -0,0 +1,237 @@
+package org.connectedsystems.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads and writes archives of {@link RecordedExchange}s.
+ * <p>
+ * An archive is a gzipped binary file: a header ({@link #MAGIC} and {@link #VERSION}),
+ * followed by the exchanges in the order they completed, each written as its fields in declaration order
+ * with strings and the response body as length-prefixed byte arrays, strings in UTF-8.
+ * Each exchange is written whole or not at all, so an exchange that cannot be written leaves the archive readable.
+ * Request headers are not stored, so archives never contain credentials.
+ * <p>
+ * Version 1 archives, which stored strings in modified UTF-8 and so could not hold strings over 64 KB, can still be read.
+ */
+public final class ExchangeArchive {
+    /**
+     * The first bytes of an archive, "CSAX".
+     */
+    public static final int MAGIC = 0x43534158;
+    public static final int VERSION = 2;
+
+    private ExchangeArchive() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Read all the exchanges of an archive.
+     *
+     * @param path The archive file.
+     * @return The exchanges, in the order they were recorded.
+     * @throws IOException if the file cannot be read or is not an archive of a supported version.
+     */
+    public static List<RecordedExchange> read(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Read all the exchanges of an archive from a stream.
+     *
+     * @param inputStream The stream to read from, left open.
+     * @return The exchanges, in the order they were recorded.
+     * @throws IOException if the stream cannot be read or is not an archive of a supported version.
+     */
+    public static List<RecordedExchange> read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(inputStream)));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an exchange archive");
+        }
+        int version = in.readInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unsupported exchange archive version: " + version);
+        }
+
+        List<RecordedExchange> exchanges = new ArrayList<>();
+        try {
+            while (in.readBoolean()) {
+                exchanges.add(readExchange(in, version));
+            }
+        } catch (EOFException e) {
+            EOFException truncated = new EOFException("Exchange archive is truncated, it may not have been closed after recording");
+            truncated.initCause(e);
+            throw truncated;
+        }
+        return exchanges;
+    }
+
+    private static RecordedExchange readExchange(DataInputStream in, int version) throws IOException {
+        long startOffsetNanos = in.readLong();
+        String method = readString(in, version);
+        String pathAndQuery = readString(in, version);
+        long requestBodyLength = in.readLong();
+        int responseCode = in.readInt();
+        String responseMessage = in.readBoolean() ? readString(in, version) : null;
+
+        int headerCount = in.readInt();
+        Map<String, List<String>> responseHeaders = new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            String name = readString(in, version);
+            int valueCount = in.readInt();
+            List<String> values = new ArrayList<>(valueCount);
+            for (int j = 0; j < valueCount; j++) {
+                values.add(readString(in, version));
+            }
+            responseHeaders.put(name, values);
+        }
+
+        byte[] responseBody = readBytes(in);
+
+        long connectNanos = in.readLong();
+        long serverNanos = in.readLong();
+        long transferNanos = in.readLong();
+        return new RecordedExchange(startOffsetNanos, method, pathAndQuery, requestBodyLength, responseCode,
+                responseMessage, responseHeaders, responseBody, connectNanos, serverNanos, transferNanos);
+    }
+
+    private static String readString(DataInputStream in, int version) throws IOException {
+        return version == 1 ? in.readUTF() : new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Exchange archive is corrupt, negative length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Create an archive, replacing the file if it exists.
+     *
+     * @param path The archive file.
+     * @return A writer to append exchanges to the archive; it must be closed to complete the archive.
+     * @throws IOException if the file cannot be created.
+     */
+    public static Writer create(Path path) throws IOException {
+        return new Writer(path);
+    }
+
+    /**
+     * Appends exchanges to an archive. Safe for use by several threads.
+     */
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private boolean closed;
+        private IOException failure;
+
+        private Writer(Path path) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path))));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        /**
+         * Append an exchange to the archive.
+         * <p>
+         * The exchange is encoded before anything is written, so an exchange that cannot be encoded is not written at all.
+         * Once writing to the file has failed, the archive may end in a partial exchange and every later write fails.
+         *
+         * @throws IOException if the exchange cannot be written.
+         * @throws IllegalStateException if the writer is closed.
+         */
+        public void write(RecordedExchange exchange) throws IOException {
+            byte[] encoded = encode(exchange);
+            synchronized (this) {
+                if (closed) {
+                    throw new IllegalStateException("Archive is closed");
+                }
+                if (failure != null) {
+                    throw new IOException("Archive is incomplete after a failed write", failure);
+                }
+
+                try {
+                    out.write(encoded);
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                }
+            }
+        }
+
+        private static byte[] encode(RecordedExchange exchange) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(exchange.getResponseBody().length + 512);
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeBoolean(true);
+            out.writeLong(exchange.getStartOffsetNanos());
+            writeString(out, exchange.getMethod());
+            writeString(out, exchange.getPathAndQuery());
+            out.writeLong(exchange.getRequestBodyLength());
+            out.writeInt(exchange.getResponseCode());
+            out.writeBoolean(exchange.getResponseMessage() != null);
+            if (exchange.getResponseMessage() != null) {
+                writeString(out, exchange.getResponseMessage());
+            }
+
+            out.writeInt(exchange.getResponseHeaders().size());
+            for (Map.Entry<String, List<String>> header : exchange.getResponseHeaders().entrySet()) {
+                writeString(out, header.getKey());
+                out.writeInt(header.getValue().size());
+                for (String value : header.getValue()) {
+                    writeString(out, value);
+                }
+            }
+
+            writeBytes(out, exchange.getResponseBody());
+
+            out.writeLong(exchange.getConnectNanos());
+            out.writeLong(exchange.getServerNanos());
+            out.writeLong(exchange.getTransferNanos());
+            return buffer.toByteArray();
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        /**
+         * Write the end of the archive and close the file.
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                out.writeBoolean(false);
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
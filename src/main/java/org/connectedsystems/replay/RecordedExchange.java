@@ -0,0 +1,113 @@
+package org.connectedsystems.replay;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An exchange with the server as captured by a {@link RecordingConnectionFactory}:
+ * the request line, the raw response, and how long each phase of the exchange took.
+ * All durations are in nanoseconds.
+ */
+public final class RecordedExchange {
+    private final long startOffsetNanos;
+    private final String method;
+    private final String pathAndQuery;
+    private final long requestBodyLength;
+    private final int responseCode;
+    private final String responseMessage;
+    private final Map<String, List<String>> responseHeaders;
+    private final byte[] responseBody;
+    private final long connectNanos;
+    private final long serverNanos;
+    private final long transferNanos;
+
+    /**
+     * Constructs a RecordedExchange object.
+     *
+     * @param startOffsetNanos  The time the exchange started, from the start of the recording.
+     * @param method            The HTTP method of the request.
+     * @param pathAndQuery      The path and query string of the request URL, e.g., "/sensorhub/api/systems?limit=10".
+     * @param requestBodyLength The size of the request body, 0 if it had none.
+     * @param responseCode      The HTTP status code of the response.
+     * @param responseMessage   The HTTP status message of the response, may be null.
+     * @param responseHeaders   The headers of the response, without the status line.
+     * @param responseBody      The bytes of the response body, or of the error body.
+     * @param connectNanos      The time to open the connection and send the request body.
+     * @param serverNanos       The time from the end of the request to the response headers.
+     * @param transferNanos     The time to read the response body.
+     */
+    public RecordedExchange(long startOffsetNanos, String method, String pathAndQuery, long requestBodyLength,
+                            int responseCode, String responseMessage, Map<String, List<String>> responseHeaders,
+                            byte[] responseBody, long connectNanos, long serverNanos, long transferNanos) {
+        this.startOffsetNanos = startOffsetNanos;
+        this.method = method;
+        this.pathAndQuery = pathAndQuery;
+        this.requestBodyLength = requestBodyLength;
+        this.responseCode = responseCode;
+        this.responseMessage = responseMessage;
+        // Header names are case-insensitive, as in HttpURLConnection#getHeaderField(String)
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        responseHeaders.forEach((name, values) -> {
+            if (name != null) headers.put(name, List.copyOf(values));
+        });
+        this.responseHeaders = Collections.unmodifiableMap(headers);
+        this.responseBody = responseBody;
+        this.connectNanos = connectNanos;
+        this.serverNanos = serverNanos;
+        this.transferNanos = transferNanos;
+    }
+
+    public long getStartOffsetNanos() {
+        return startOffsetNanos;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPathAndQuery() {
+        return pathAndQuery;
+    }
+
+    public long getRequestBodyLength() {
+        return requestBodyLength;
+    }
+
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    public String getResponseMessage() {
+        return responseMessage;
+    }
+
+    public Map<String, List<String>> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    /**
+     * The bytes of the response body as received, not copied; callers must not modify them.
+     */
+    public byte[] getResponseBody() {
+        return responseBody;
+    }
+
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    public long getServerNanos() {
+        return serverNanos;
+    }
+
+    public long getTransferNanos() {
+        return transferNanos;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + pathAndQuery + " -> " + responseCode + " (" + responseBody.length + " bytes)";
+    }
+}
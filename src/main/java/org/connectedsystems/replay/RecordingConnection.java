@@ -0,0 +1,248 @@
+package org.connectedsystems.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A connection that forwards everything to the actual connection,
+ * keeping a copy of the response body and the time of each phase of the exchange for the recording.
+ */
+final class RecordingConnection extends HttpURLConnection {
+    private final HttpURLConnection delegate;
+    private final RecordingConnectionFactory recording;
+    private final long openedNanos = System.nanoTime();
+    private final ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+    private final AtomicBoolean recorded = new AtomicBoolean();
+    private long requestBodyLength;
+    private long sentNanos;
+    private volatile long receivedNanos;
+    private volatile long bodyStartNanos;
+
+    RecordingConnection(HttpURLConnection delegate, RecordingConnectionFactory recording) {
+        super(delegate.getURL());
+        this.delegate = delegate;
+        this.recording = recording;
+    }
+
+    @Override
+    public void setRequestMethod(String method) throws ProtocolException {
+        delegate.setRequestMethod(method);
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return delegate.getRequestMethod();
+    }
+
+    @Override
+    public void setConnectTimeout(int timeout) {
+        delegate.setConnectTimeout(timeout);
+    }
+
+    @Override
+    public int getConnectTimeout() {
+        return delegate.getConnectTimeout();
+    }
+
+    @Override
+    public void setReadTimeout(int timeout) {
+        delegate.setReadTimeout(timeout);
+    }
+
+    @Override
+    public int getReadTimeout() {
+        return delegate.getReadTimeout();
+    }
+
+    @Override
+    public void setRequestProperty(String key, String value) {
+        delegate.setRequestProperty(key, value);
+    }
+
+    @Override
+    public void addRequestProperty(String key, String value) {
+        delegate.addRequestProperty(key, value);
+    }
+
+    @Override
+    public String getRequestProperty(String key) {
+        return delegate.getRequestProperty(key);
+    }
+
+    @Override
+    public Map<String, List<String>> getRequestProperties() {
+        return delegate.getRequestProperties();
+    }
+
+    @Override
+    public void setDoOutput(boolean doOutput) {
+        delegate.setDoOutput(doOutput);
+    }
+
+    @Override
+    public boolean getDoOutput() {
+        return delegate.getDoOutput();
+    }
+
+    @Override
+    public void setInstanceFollowRedirects(boolean followRedirects) {
+        delegate.setInstanceFollowRedirects(followRedirects);
+    }
+
+    @Override
+    public boolean getInstanceFollowRedirects() {
+        return delegate.getInstanceFollowRedirects();
+    }
+
+    @Override
+    public void setUseCaches(boolean useCaches) {
+        delegate.setUseCaches(useCaches);
+    }
+
+    @Override
+    public void connect() throws IOException {
+        delegate.connect();
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return new FilterOutputStream(delegate.getOutputStream()) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                requestBodyLength++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                requestBodyLength += len;
+            }
+        };
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        if (receivedNanos == 0) {
+            sentNanos = System.nanoTime();
+            int responseCode = delegate.getResponseCode();
+            receivedNanos = System.nanoTime();
+            return responseCode;
+        }
+        return delegate.getResponseCode();
+    }
+
+    @Override
+    public String getResponseMessage() throws IOException {
+        return delegate.getResponseMessage();
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+        return delegate.getHeaderFields();
+    }
+
+    @Override
+    public String getHeaderField(String name) {
+        return delegate.getHeaderField(name);
+    }
+
+    @Override
+    public String getHeaderField(int n) {
+        return delegate.getHeaderField(n);
+    }
+
+    @Override
+    public String getHeaderFieldKey(int n) {
+        return delegate.getHeaderFieldKey(n);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return capture(delegate.getInputStream());
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        InputStream errorStream = delegate.getErrorStream();
+        return errorStream != null ? capture(errorStream) : null;
+    }
+
+    @Override
+    public void disconnect() {
+        finish();
+        delegate.disconnect();
+    }
+
+    @Override
+    public boolean usingProxy() {
+        return delegate.usingProxy();
+    }
+
+    private InputStream capture(InputStream in) {
+        bodyStartNanos = System.nanoTime();
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    responseBody.write(b);
+                } else {
+                    finish();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    responseBody.write(b, off, n);
+                } else if (n < 0) {
+                    finish();
+                }
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                finish();
+                super.close();
+            }
+        };
+    }
+
+    /**
+     * Record the exchange, once, if it got a response.
+     */
+    private void finish() {
+        if (receivedNanos == 0 || !recorded.compareAndSet(false, true)) return;
+
+        long bodyEndNanos = System.nanoTime();
+        try {
+            recording.record(new RecordedExchange(
+                    recording.elapsedNanos(openedNanos),
+                    delegate.getRequestMethod(),
+                    url.getFile(),
+                    requestBodyLength,
+                    delegate.getResponseCode(),
+                    delegate.getResponseMessage(),
+                    delegate.getHeaderFields(),
+                    responseBody.toByteArray(),
+                    sentNanos - openedNanos,
+                    receivedNanos - sentNanos,
+                    bodyStartNanos != 0 ? bodyEndNanos - bodyStartNanos : 0));
+        } catch (IOException e) {
+            // Not reachable, the response code and message were already read
+        }
+    }
+}
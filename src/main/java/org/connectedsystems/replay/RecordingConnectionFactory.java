@@ -0,0 +1,110 @@
+package org.connectedsystems.replay;
+
+import org.connectedsystems.net.HttpConnectionFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Opens connections through another factory and records every exchange that gets a response into an {@link ExchangeArchive},
+ * with its raw response bytes and timings, so it can be replayed later with a {@link ReplayConnectionFactory}.
+ * <p>
+ * For example, to record a session against a production server:
+ * <pre>{@code
+ * try (RecordingConnectionFactory recording = new RecordingConnectionFactory(Path.of("session.csax"))) {
+ *     api.setConnectionFactory(recording);
+ *     // ... use the client
+ * } finally {
+ *     api.setConnectionFactory(HttpConnectionFactory.DEFAULT);
+ * }
+ * }</pre>
+ * An exchange is written when its response body has been read, or when its connection is disconnected.
+ * Exchanges that fail before the response headers are not recorded. The archive must be closed to be readable.
+ * <p>
+ * A failure to write an exchange does not fail its request: it is counted by {@link #getFailedRecordings()},
+ * and reported when the recording is closed.
+ */
+public class RecordingConnectionFactory implements HttpConnectionFactory, Closeable {
+    private final HttpConnectionFactory delegate;
+    private final ExchangeArchive.Writer writer;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong failedRecordings = new AtomicLong();
+    private final AtomicReference<IOException> firstFailure = new AtomicReference<>();
+
+    /**
+     * Constructs a RecordingConnectionFactory that records connections opened to the server.
+     *
+     * @param archive The archive file to create, replaced if it exists.
+     * @throws IOException if the archive cannot be created.
+     */
+    public RecordingConnectionFactory(Path archive) throws IOException {
+        this(archive, HttpConnectionFactory.DEFAULT);
+    }
+
+    /**
+     * Constructs a RecordingConnectionFactory that records connections opened by another factory.
+     *
+     * @param archive  The archive file to create, replaced if it exists.
+     * @param delegate The factory that opens the actual connections.
+     * @throws IOException if the archive cannot be created.
+     */
+    public RecordingConnectionFactory(Path archive, HttpConnectionFactory delegate) throws IOException {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate cannot be null");
+        }
+        this.delegate = delegate;
+        this.writer = ExchangeArchive.create(archive);
+    }
+
+    @Override
+    public HttpURLConnection openConnection(URL url) throws IOException {
+        return new RecordingConnection(delegate.openConnection(url), this);
+    }
+
+    long elapsedNanos(long nanoTime) {
+        return nanoTime - startNanos;
+    }
+
+    /**
+     * Write a completed exchange. A failure to record must not fail the request, so it is kept to be reported on close.
+     */
+    void record(RecordedExchange exchange) {
+        try {
+            writer.write(exchange);
+        } catch (IllegalStateException e) {
+            // The recording was closed while the exchange was in progress
+        } catch (IOException e) {
+            failedRecordings.incrementAndGet();
+            firstFailure.compareAndSet(null, new IOException("Failed to record " + exchange, e));
+        }
+    }
+
+    /**
+     * Get the number of exchanges that got a response but could not be written to the archive.
+     *
+     * @return The number of exchanges missing from the archive.
+     */
+    public long getFailedRecordings() {
+        return failedRecordings.get();
+    }
+
+    /**
+     * Complete the archive. Exchanges that end after this are not recorded.
+     *
+     * @throws IOException if the archive cannot be completed, or if some exchanges could not be recorded,
+     *                     with the first of their failures as the cause.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+        IOException failure = firstFailure.get();
+        if (failure != null) {
+            throw new IOException(failedRecordings.get() + " exchanges could not be recorded", failure);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.connectedsystems.replay;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A connection answered with a recorded exchange, after waiting for as long as the original exchange took.
+ * Disconnecting it aborts the wait, as closing the socket of a real connection would.
+ */
+final class ReplayConnection extends HttpURLConnection {
+    private final ReplayConnectionFactory replay;
+    private final CountDownLatch disconnected = new CountDownLatch(1);
+    private RecordedExchange exchange;
+    private boolean responded;
+
+    ReplayConnection(URL url, ReplayConnectionFactory replay) {
+        super(url);
+        this.replay = replay;
+    }
+
+    @Override
+    public void connect() throws IOException {
+        if (connected) return;
+
+        exchange = replay.next(getRequestMethod(), url.getFile());
+        if (exchange == null) {
+            throw new IOException("No recorded exchange for " + getRequestMethod() + " " + url.getFile());
+        }
+        delay(exchange.getConnectNanos());
+        connected = true;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        if (!doOutput) {
+            throw new IOException("Output not enabled, call setDoOutput(true) first");
+        }
+        connect();
+        return OutputStream.nullOutputStream();
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        connect();
+        if (!responded) {
+            delay(exchange.getServerNanos());
+            responded = true;
+        }
+        return exchange.getResponseCode();
+    }
+
+    @Override
+    public String getResponseMessage() throws IOException {
+        getResponseCode();
+        return exchange.getResponseMessage();
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+        return exchange != null ? exchange.getResponseHeaders() : Map.of();
+    }
+
+    @Override
+    public String getHeaderField(String name) {
+        List<String> values = getHeaderFields().get(name);
+        return values != null && !values.isEmpty() ? values.get(values.size() - 1) : null;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        int responseCode = getResponseCode();
+        if (responseCode >= 400) {
+            throw new IOException("Server returned HTTP response code: " + responseCode + " for URL: " + url);
+        }
+        return body();
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        if (!responded || exchange.getResponseCode() < 400) return null;
+        try {
+            return body();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private InputStream body() throws IOException {
+        delay(exchange.getTransferNanos());
+        return new ByteArrayInputStream(exchange.getResponseBody());
+    }
+
+    /**
+     * Wait for the replayed duration of a phase of the exchange, unless the connection is disconnected.
+     */
+    private void delay(long recordedNanos) throws IOException {
+        long nanos = replay.replayNanos(recordedNanos);
+        try {
+            if (disconnected.getCount() == 0 || (nanos > 0 && disconnected.await(nanos, TimeUnit.NANOSECONDS))) {
+                throw new IOException("Connection was disconnected");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while replaying " + exchange);
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        disconnected.countDown();
+    }
+
+    @Override
+    public boolean usingProxy() {
+        return false;
+    }
+}
@@ -0,0 +1,90 @@
+package org.connectedsystems.replay;
+
+import org.connectedsystems.net.HttpConnectionFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the exchanges recorded by a {@link RecordingConnectionFactory} instead of connecting to a server,
+ * to reproduce the performance of a client against real payloads, e.g., under a profiler.
+ * <p>
+ * A request is answered with a recorded exchange of the same method, path, and query string; the host is ignored,
+ * so the client should use the API root the exchanges were recorded with, though no connection is made to it.
+ * Requests that were recorded several times are answered with each recording in turn, in the order they were recorded,
+ * starting over once all have been served; replays of the same sequence of requests are therefore deterministic.
+ * A request that was never recorded fails with an {@link IOException}.
+ * <p>
+ * The connect, server, and transfer times of the recorded exchanges are reproduced, divided by the speed:
+ * 1 replays at the original speed, 10 ten times faster, and {@link Double#POSITIVE_INFINITY} without any delay.
+ */
+public class ReplayConnectionFactory implements HttpConnectionFactory {
+    private final Map<String, List<RecordedExchange>> exchanges = new HashMap<>();
+    private final Map<String, AtomicInteger> cursors = new HashMap<>();
+    private final double speed;
+
+    /**
+     * Constructs a ReplayConnectionFactory serving the given exchanges.
+     *
+     * @param exchanges The exchanges to serve.
+     * @param speed     The factor to speed up the recorded timings by, must be positive.
+     */
+    public ReplayConnectionFactory(List<RecordedExchange> exchanges, double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("speed must be positive");
+        }
+        this.speed = speed;
+        for (RecordedExchange exchange : exchanges) {
+            String key = key(exchange.getMethod(), exchange.getPathAndQuery());
+            this.exchanges.computeIfAbsent(key, k -> new ArrayList<>()).add(exchange);
+            cursors.putIfAbsent(key, new AtomicInteger());
+        }
+    }
+
+    /**
+     * Create a ReplayConnectionFactory serving the exchanges of an archive.
+     *
+     * @param archive The archive written by a {@link RecordingConnectionFactory}.
+     * @param speed   The factor to speed up the recorded timings by, must be positive.
+     * @return The new factory.
+     * @throws IOException if the archive cannot be read.
+     */
+    public static ReplayConnectionFactory fromArchive(Path archive, double speed) throws IOException {
+        return new ReplayConnectionFactory(ExchangeArchive.read(archive), speed);
+    }
+
+    @Override
+    public HttpURLConnection openConnection(URL url) {
+        return new ReplayConnection(url, this);
+    }
+
+    /**
+     * Get the next recorded exchange for a request.
+     *
+     * @return The exchange, or null if the request was never recorded.
+     */
+    RecordedExchange next(String method, String pathAndQuery) {
+        String key = key(method, pathAndQuery);
+        List<RecordedExchange> recorded = exchanges.get(key);
+        if (recorded == null) return null;
+        return recorded.get(Math.floorMod(cursors.get(key).getAndIncrement(), recorded.size()));
+    }
+
+    /**
+     * Convert a recorded duration to the time to wait for during the replay.
+     */
+    long replayNanos(long recordedNanos) {
+        return (long) (recordedNanos / speed);
+    }
+
+    private static String key(String method, String pathAndQuery) {
+        return method + " " + pathAndQuery;
+    }
+}
@@ -0,0 +1,44 @@
+package org.connectedsystems.serialization;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The hit and miss counts of a cache looked up through {@link SchemaRegistry#lookup}.
+ * The counts are cumulative and thread-safe.
+ */
+public final class CacheStatistics {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    void record(boolean hit) {
+        (hit ? hits : misses).increment();
+    }
+
+    /**
+     * @return The number of lookups that found their value in the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that had to load their value.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The share of lookups that found their value in the cache, or 0 if there was no lookup.
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "{hits: " + getHits() + ", misses: " + getMisses() + "}";
+    }
+}
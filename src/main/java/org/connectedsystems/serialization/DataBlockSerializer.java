@@ -7,6 +7,7 @@ import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 import net.opengis.swe.v20.DataBlock;
 import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.jfr.DataBlockEvent;
 import org.vast.swe.fast.JsonDataParserGson;
 import org.vast.swe.fast.JsonDataWriterGson;
 
@@ -15,29 +16,55 @@ import java.io.StringReader;
 
 import static org.connectedsystems.util.SWECommonUtils.OM_COMPONENTS_FILTER;
 
+/**
+ * Reads and writes observation results in the SWE Common JSON encoding of their result schema.
+ * <p>
+ * The SWE Common parser and writer attach the data block they process to the schema,
+ * so each thread works on its own copy of the schema; the serializer, and the Gson instance it is registered with,
+ * can therefore be shared by any number of threads, and the schema passed to the constructor is never modified.
+ */
 public class DataBlockSerializer extends TypeAdapter<DataBlock> {
     private final DataComponent resultSchema;
+    private final ThreadLocal<DataComponent> threadSchema;
 
     public DataBlockSerializer(DataComponent resultSchema) {
         this.resultSchema = resultSchema;
+        this.threadSchema = ThreadLocal.withInitial(resultSchema::copy);
     }
 
     @Override
     public void write(JsonWriter out, DataBlock value) throws IOException {
+        DataBlockEvent event = new DataBlockEvent();
+        event.begin();
         var sweWriter = new JsonDataWriterGson(out);
-        sweWriter.setDataComponents(resultSchema);
+        sweWriter.setDataComponents(threadSchema.get());
         sweWriter.setDataComponentFilter(OM_COMPONENTS_FILTER);
         sweWriter.write(value);
         sweWriter.flush();
+        commit(event, DataBlockEvent.ENCODE, value);
     }
 
     @Override
     public DataBlock read(JsonReader in) throws IOException {
         JsonElement jsonElement = JsonParser.parseReader(in);
         JsonReader jsonReader = new JsonReader(new StringReader(jsonElement.toString()));
+        DataBlockEvent event = new DataBlockEvent();
+        event.begin();
         var sweParser = new JsonDataParserGson(jsonReader);
-        sweParser.setDataComponents(resultSchema);
+        sweParser.setDataComponents(threadSchema.get());
         sweParser.setDataComponentFilter(OM_COMPONENTS_FILTER);
-        return sweParser.parseNextBlock();
+        DataBlock dataBlock = sweParser.parseNextBlock();
+        commit(event, DataBlockEvent.DECODE, dataBlock);
+        return dataBlock;
+    }
+
+    private void commit(DataBlockEvent event, String operation, DataBlock dataBlock) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.schema = resultSchema.getName();
+            event.values = dataBlock != null ? dataBlock.getAtomCount() : 0;
+            event.commit();
+        }
     }
 }
@@ -1,75 +1,122 @@
 package org.connectedsystems.serialization;
 
-import com.google.gson.*;
+import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import net.opengis.swe.v20.DataComponent;
 import net.opengis.swe.v20.DataRecord;
 import net.opengis.swe.v20.Time;
+import org.connectedsystems.jfr.SchemaEvent;
 import org.vast.data.ScalarIterator;
 import org.vast.swe.SWEHelper;
 import org.vast.swe.SWEJsonBindings;
 
 import java.io.IOException;
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.lang.reflect.Type;
 
 import static org.connectedsystems.util.SWECommonUtils.OM_COMPONENTS_DEF;
 import static org.connectedsystems.util.SWECommonUtils.OM_COMPONENTS_FILTER;
 
-public class DataComponentSerializer implements JsonSerializer<DataComponent>, JsonDeserializer<DataComponent> {
+/**
+ * Reads and writes result schemas in the SWE Common JSON encoding, streaming them
+ * between the Gson reader or writer and {@link SWEJsonBindings} without an intermediate JSON tree or string.
+ * <p>
+ * Time and feature of interest components, which are provided by the observation itself, are removed when writing
+ * and a time stamp is added when reading, if the schema has none.
+ * Parsed schemas are new instances owned by the caller, unless the serializer is created with a {@link SchemaRegistry}
+ * to intern them in, so that equal schemas share a single read-only instance.
+ */
+public class DataComponentSerializer extends TypeAdapter<DataComponent> {
+    private final SchemaRegistry schemaRegistry;
+
+    /**
+     * Create a serializer returning a new instance for every parsed schema.
+     */
+    public DataComponentSerializer() {
+        this(null);
+    }
+
+    /**
+     * @param schemaRegistry The registry to intern parsed schemas in, or null to return a new instance for every schema.
+     */
+    public DataComponentSerializer(SchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
     @Override
-    public JsonElement serialize(DataComponent src, Type typeOfSrc, JsonSerializationContext context) {
-        // Remove time and FOI components if any
-        var dataStruct = src.copy();
-        if (dataStruct instanceof DataRecord dataRecord) {
-            dataRecord.getFieldList().removeIf(dataComponent -> !OM_COMPONENTS_FILTER.accept(dataComponent));
+    public void write(JsonWriter out, DataComponent src) throws IOException {
+        if (src == null) {
+            out.nullValue();
+            return;
         }
 
-        SWEJsonBindings sweJsonBindings = new SWEJsonBindings();
-        StringWriter stringWriter = new StringWriter();
-        JsonWriter jsonWriter = new JsonWriter(stringWriter);
-        try {
-            sweJsonBindings.writeDataComponent(jsonWriter, dataStruct, false);
-            jsonWriter.flush();
-            jsonWriter.close();
-            stringWriter.flush();
-            stringWriter.close();
-            return JsonParser.parseString(stringWriter.toString());
-        } catch (IOException e) {
-            throw new JsonParseException("Error serializing DataComponent", e);
+        SchemaEvent event = new SchemaEvent();
+        event.begin();
+
+        // Remove time and FOI components if any, from a copy so that the schema is left as is
+        var dataStruct = src;
+        if (src instanceof DataRecord dataRecord && hasOMComponents(dataRecord)) {
+            DataRecord copy = (DataRecord) dataRecord.copy();
+            copy.getFieldList().removeIf(dataComponent -> !OM_COMPONENTS_FILTER.accept(dataComponent));
+            dataStruct = copy;
         }
+
+        new SWEJsonBindings().writeDataComponent(out, dataStruct, false);
+        commit(event, SchemaEvent.WRITE, dataStruct);
     }
 
     @Override
-    public DataComponent deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        SWEJsonBindings sweJsonBindings = new SWEJsonBindings();
-        JsonReader jsonReader = new JsonReader(new StringReader(json.toString()));
-        try {
-            var swe = new SWEHelper();
-            DataComponent resultStruct = sweJsonBindings.readDataComponent(jsonReader);
-
-            // Add a time component if not present
-            if (!hasTimeStamp(resultStruct)) {
-                if (resultStruct instanceof DataRecord dataRecord) {
-                    var ts = swe.createTime()
-                            .name("time")
-                            .asPhenomenonTimeIsoUTC()
-                            .build();
-                    dataRecord.getFieldList().add(0, ts);
-                } else {
-                    resultStruct = swe.createRecord()
-                            .name(resultStruct.getName() + "_rec")
-                            .addField("time", swe.createTime().asPhenomenonTimeIsoUTC())
-                            .addField(resultStruct.getName(), resultStruct)
-                            .build();
-                }
+    public DataComponent read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        SchemaEvent event = new SchemaEvent();
+        event.begin();
+        var swe = new SWEHelper();
+        DataComponent resultStruct = new SWEJsonBindings().readDataComponent(in);
+
+        // Add a time component if not present
+        if (!hasTimeStamp(resultStruct)) {
+            if (resultStruct instanceof DataRecord dataRecord) {
+                var ts = swe.createTime()
+                        .name("time")
+                        .asPhenomenonTimeIsoUTC()
+                        .build();
+                dataRecord.getFieldList().add(0, ts);
+            } else {
+                resultStruct = swe.createRecord()
+                        .name(resultStruct.getName() + "_rec")
+                        .addField("time", swe.createTime().asPhenomenonTimeIsoUTC())
+                        .addField(resultStruct.getName(), resultStruct)
+                        .build();
             }
-            return resultStruct;
-        } catch (IOException e) {
-            throw new JsonParseException("Error deserializing DataComponent", e);
         }
+        if (schemaRegistry != null) {
+            resultStruct = schemaRegistry.intern(resultStruct);
+        }
+        commit(event, SchemaEvent.PARSE, resultStruct);
+        return resultStruct;
+    }
+
+    private static void commit(SchemaEvent event, String operation, DataComponent schema) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.schema = schema.getName();
+            event.components = schema.getComponentCount();
+            event.commit();
+        }
+    }
+
+    private static boolean hasOMComponents(DataRecord dataRecord) {
+        for (DataComponent field : dataRecord.getFieldList()) {
+            if (!OM_COMPONENTS_FILTER.accept(field)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     protected boolean hasTimeStamp(DataComponent resultStruct) {
@@ -1,42 +1,56 @@
 package org.connectedsystems.serialization;
 
-import com.google.gson.*;
+import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import net.opengis.swe.v20.DataRecord;
 import org.vast.swe.SWEJsonBindings;
 
 import java.io.IOException;
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.lang.reflect.Type;
 
-public class DataRecordSerializer implements JsonSerializer<DataRecord>, JsonDeserializer<DataRecord> {
+/**
+ * Reads and writes data records, e.g., parameter schemas, in the SWE Common JSON encoding,
+ * streaming them between the Gson reader or writer and {@link SWEJsonBindings}.
+ * Parsed records are new instances owned by the caller, unless the serializer is created with a {@link SchemaRegistry}
+ * to intern them in, so that equal records share a single read-only instance.
+ */
+public class DataRecordSerializer extends TypeAdapter<DataRecord> {
+    private final SchemaRegistry schemaRegistry;
+
+    /**
+     * Create a serializer returning a new instance for every parsed record.
+     */
+    public DataRecordSerializer() {
+        this(null);
+    }
+
+    /**
+     * @param schemaRegistry The registry to intern parsed records in, or null to return a new instance for every record.
+     */
+    public DataRecordSerializer(SchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
     @Override
-    public JsonElement serialize(DataRecord src, Type typeOfSrc, JsonSerializationContext context) {
-        SWEJsonBindings sweJsonBindings = new SWEJsonBindings();
-        StringWriter stringWriter = new StringWriter();
-        JsonWriter jsonWriter = new JsonWriter(stringWriter);
-        try {
-            sweJsonBindings.writeDataComponent(jsonWriter, src, false);
-            jsonWriter.flush();
-            jsonWriter.close();
-            stringWriter.flush();
-            stringWriter.close();
-            return JsonParser.parseString(stringWriter.toString());
-        } catch (IOException e) {
-            throw new JsonParseException("Error serializing DataRecord", e);
+    public void write(JsonWriter out, DataRecord src) throws IOException {
+        if (src == null) {
+            out.nullValue();
+            return;
         }
+        new SWEJsonBindings().writeDataComponent(out, src, false);
     }
 
     @Override
-    public DataRecord deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        SWEJsonBindings sweJsonBindings = new SWEJsonBindings();
-        JsonReader jsonReader = new JsonReader(new StringReader(json.toString()));
-        try {
-            return sweJsonBindings.readDataRecord(jsonReader);
-        } catch (IOException e) {
-            throw new JsonParseException("Error deserializing DataRecord", e);
+    public DataRecord read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        DataRecord dataRecord = new SWEJsonBindings().readDataRecord(in);
+        if (schemaRegistry != null && schemaRegistry.intern(dataRecord) instanceof DataRecord interned) {
+            return interned;
         }
+        return dataRecord;
     }
 }
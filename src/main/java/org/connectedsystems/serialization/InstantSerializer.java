@@ -1,18 +1,39 @@
 package org.connectedsystems.serialization;
 
-import com.google.gson.*;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 
-public class InstantSerializer implements JsonSerializer<Instant>, JsonDeserializer<Instant> {
+/**
+ * Reads and writes Instant objects as RFC 3339 timestamps, streaming them with {@link Rfc3339}.
+ */
+public class InstantSerializer extends TypeAdapter<Instant> {
     @Override
-    public Instant deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        return Instant.parse(json.getAsString());
+    public void write(JsonWriter out, Instant instant) throws IOException {
+        if (instant == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(Rfc3339.format(instant));
     }
 
     @Override
-    public JsonElement serialize(Instant src, Type typeOfSrc, JsonSerializationContext context) {
-        return new JsonPrimitive(src.toString());
+    public Instant read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String path = in.getPath();
+        try {
+            return Rfc3339.parseInstant(in.nextString());
+        } catch (DateTimeParseException e) {
+            throw new JsonParseException("Invalid timestamp at path " + path, e);
+        }
     }
 }
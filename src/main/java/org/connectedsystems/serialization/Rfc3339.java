@@ -0,0 +1,290 @@
+package org.connectedsystems.serialization;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses and formats RFC 3339 timestamps, e.g., "2024-01-01T12:30:00.250Z", without regular expressions,
+ * {@link java.time.format.DateTimeFormatter}, or intermediate objects.
+ * <p>
+ * Parsing accepts a 4-digit year, an upper or lower case "T" and "Z", any number of fraction digits
+ * (truncated to nanoseconds), and numeric offsets such as "+02:00". A leap second, which must be at 23:59:60 UTC, is read as the second before it.
+ * Formatting produces the same text as {@link Instant#toString()}: UTC, with the fraction in groups of 3 digits.
+ * <p>
+ * The primitive API works on epoch nanoseconds, which cover the years 1677 to 2262.
+ * The {@link Instant} API covers all instants, falling back to the JDK for years outside 0000 to 9999.
+ */
+public final class Rfc3339 {
+    /**
+     * The length of the longest timestamp formatted by this class, with nanosecond precision.
+     */
+    public static final int MAX_LENGTH = 30;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final long DAYS_0000_TO_1970 = 719_468L;
+    /**
+     * Epoch seconds of 0000-01-01T00:00:00Z and 10000-01-01T00:00:00Z, the range formatted without the JDK.
+     */
+    private static final long MIN_FAST_SECOND = -62_167_219_200L;
+    private static final long MAX_FAST_SECOND = 253_402_300_800L;
+
+    private Rfc3339() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Parse a timestamp to nanoseconds since the epoch.
+     *
+     * @param text The timestamp.
+     * @return The nanoseconds since 1970-01-01T00:00:00Z.
+     * @throws DateTimeParseException if the text is not a valid timestamp, or is outside the range of epoch nanoseconds.
+     */
+    public static long parseEpochNanos(CharSequence text) {
+        return parseEpochNanos(text, 0, text.length());
+    }
+
+    /**
+     * Parse a timestamp within a larger text, e.g., a buffer, to nanoseconds since the epoch.
+     *
+     * @param text  The text containing the timestamp.
+     * @param start The index of the first character of the timestamp.
+     * @param end   The index after the last character of the timestamp.
+     * @return The nanoseconds since 1970-01-01T00:00:00Z.
+     * @throws DateTimeParseException if the text is not a valid timestamp, or is outside the range of epoch nanoseconds.
+     */
+    public static long parseEpochNanos(CharSequence text, int start, int end) {
+        int pos = start;
+        int year = digits(text, start, pos, 4, end);
+        pos = expect(text, start, pos + 4, '-', end);
+        int month = digits(text, start, pos, 2, end);
+        pos = expect(text, start, pos + 2, '-', end);
+        int day = digits(text, start, pos, 2, end);
+        pos += 2;
+        if (pos >= end || (text.charAt(pos) != 'T' && text.charAt(pos) != 't')) {
+            throw error(text, start, end, "Expected 'T'", pos);
+        }
+        int hour = digits(text, start, pos + 1, 2, end);
+        pos = expect(text, start, pos + 3, ':', end);
+        int minute = digits(text, start, pos, 2, end);
+        pos = expect(text, start, pos + 2, ':', end);
+        int second = digits(text, start, pos, 2, end);
+        pos += 2;
+
+        long nano = 0;
+        if (pos < end && text.charAt(pos) == '.') {
+            int fractionStart = ++pos;
+            long scale = NANOS_PER_SECOND;
+            while (pos < end && isDigit(text.charAt(pos))) {
+                if (scale > 1) {
+                    scale /= 10;
+                    nano += (text.charAt(pos) - '0') * scale;
+                }
+                pos++;
+            }
+            if (pos == fractionStart) {
+                throw error(text, start, end, "Expected fraction digits", pos);
+            }
+        }
+
+        int offsetSeconds;
+        if (pos < end && (text.charAt(pos) == 'Z' || text.charAt(pos) == 'z')) {
+            offsetSeconds = 0;
+            pos++;
+        } else if (pos < end && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) {
+            int sign = text.charAt(pos) == '-' ? -1 : 1;
+            int offsetHours = digits(text, start, pos + 1, 2, end);
+            pos = expect(text, start, pos + 3, ':', end);
+            int offsetMinutes = digits(text, start, pos, 2, end);
+            pos += 2;
+            if (offsetHours > 18 || offsetMinutes > 59) {
+                throw error(text, start, end, "Invalid offset", pos - 5);
+            }
+            offsetSeconds = sign * (offsetHours * 3600 + offsetMinutes * 60);
+        } else {
+            throw error(text, start, end, "Expected 'Z' or an offset", pos);
+        }
+        if (pos != end) {
+            throw error(text, start, end, "Unexpected trailing characters", pos);
+        }
+
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw error(text, start, end, "Invalid date", start);
+        }
+        if (hour > 23 || minute > 59 || second > 60) {
+            throw error(text, start, end, "Invalid time", start);
+        }
+        // Leap seconds are inserted at the end of a UTC day, whatever the local time
+        if (second == 60 && Math.floorMod(hour * 3600L + minute * 60L - offsetSeconds, SECONDS_PER_DAY) != SECONDS_PER_DAY - 60) {
+            throw error(text, start, end, "Invalid time", start);
+        }
+        if (second == 60) {
+            second = 59;
+        }
+
+        long epochSecond = epochDay(year, month, day) * SECONDS_PER_DAY
+                + hour * 3600L + minute * 60L + second - offsetSeconds;
+        try {
+            return Math.addExact(Math.multiplyExact(epochSecond, NANOS_PER_SECOND), nano);
+        } catch (ArithmeticException e) {
+            throw error(text, start, end, "Outside the range of epoch nanoseconds", start);
+        }
+    }
+
+    /**
+     * Parse a timestamp to an Instant.
+     *
+     * @param text The timestamp.
+     * @return The instant.
+     * @throws DateTimeParseException if the text is not a valid timestamp.
+     */
+    public static Instant parseInstant(CharSequence text) {
+        try {
+            long epochNanos = parseEpochNanos(text);
+            return Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND), Math.floorMod(epochNanos, NANOS_PER_SECOND));
+        } catch (DateTimeParseException e) {
+            // Out of range, or in a form only accepted by the JDK, e.g., with a 5-digit year
+            return Instant.parse(text);
+        }
+    }
+
+    /**
+     * Format nanoseconds since the epoch into a buffer.
+     *
+     * @param epochNanos The nanoseconds since 1970-01-01T00:00:00Z.
+     * @param buffer     The buffer, with at least {@link #MAX_LENGTH} characters from the offset.
+     * @param offset     The index of the first character to write.
+     * @return The number of characters written.
+     */
+    public static int formatEpochNanos(long epochNanos, char[] buffer, int offset) {
+        return format(Math.floorDiv(epochNanos, NANOS_PER_SECOND), (int) Math.floorMod(epochNanos, NANOS_PER_SECOND), buffer, offset);
+    }
+
+    /**
+     * Format nanoseconds since the epoch.
+     *
+     * @param epochNanos The nanoseconds since 1970-01-01T00:00:00Z.
+     * @return The timestamp.
+     */
+    public static String formatEpochNanos(long epochNanos) {
+        char[] buffer = new char[MAX_LENGTH];
+        return new String(buffer, 0, formatEpochNanos(epochNanos, buffer, 0));
+    }
+
+    /**
+     * Format an Instant, as {@link Instant#toString()} does.
+     *
+     * @param instant The instant.
+     * @return The timestamp.
+     */
+    public static String format(Instant instant) {
+        long epochSecond = instant.getEpochSecond();
+        if (epochSecond < MIN_FAST_SECOND || epochSecond >= MAX_FAST_SECOND) {
+            return instant.toString();
+        }
+        char[] buffer = new char[MAX_LENGTH];
+        return new String(buffer, 0, format(epochSecond, instant.getNano(), buffer, 0));
+    }
+
+    /**
+     * Format a timestamp in the years 0000 to 9999.
+     */
+    private static int format(long epochSecond, int nano, char[] buffer, int offset) {
+        long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+        // Civil date from the days since 0000-03-01, in 400-year eras
+        long days = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(days, 146_097L);
+        int dayOfEra = (int) (days - era * 146_097L);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = (int) (era * 400 + yearOfEra) + (month <= 2 ? 1 : 0);
+
+        int pos = offset;
+        pos = writeDigits(buffer, pos, year, 4);
+        buffer[pos++] = '-';
+        pos = writeDigits(buffer, pos, month, 2);
+        buffer[pos++] = '-';
+        pos = writeDigits(buffer, pos, day, 2);
+        buffer[pos++] = 'T';
+        pos = writeDigits(buffer, pos, secondOfDay / 3600, 2);
+        buffer[pos++] = ':';
+        pos = writeDigits(buffer, pos, secondOfDay / 60 % 60, 2);
+        buffer[pos++] = ':';
+        pos = writeDigits(buffer, pos, secondOfDay % 60, 2);
+        if (nano != 0) {
+            buffer[pos++] = '.';
+            if (nano % 1_000_000 == 0) {
+                pos = writeDigits(buffer, pos, nano / 1_000_000, 3);
+            } else if (nano % 1_000 == 0) {
+                pos = writeDigits(buffer, pos, nano / 1_000, 6);
+            } else {
+                pos = writeDigits(buffer, pos, nano, 9);
+            }
+        }
+        buffer[pos++] = 'Z';
+        return pos - offset;
+    }
+
+    private static int writeDigits(char[] buffer, int pos, int value, int count) {
+        for (int i = pos + count - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + count;
+    }
+
+    /**
+     * Days since the epoch of a date in the years 0000 to 9999.
+     */
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static int digits(CharSequence text, int start, int pos, int count, int end) {
+        if (pos + count > end) {
+            throw error(text, start, end, "Unexpected end of timestamp", end);
+        }
+        int value = 0;
+        for (int i = pos; i < pos + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                throw error(text, start, end, "Expected a digit", i);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int expect(CharSequence text, int start, int pos, char expected, int end) {
+        if (pos >= end || text.charAt(pos) != expected) {
+            throw error(text, start, end, "Expected '" + expected + "'", pos);
+        }
+        return pos + 1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static DateTimeParseException error(CharSequence text, int start, int end, String message, int index) {
+        return new DateTimeParseException(message + " at index " + (index - start), text.subSequence(start, end), index - start);
+    }
+}
@@ -0,0 +1,112 @@
+package org.connectedsystems.serialization;
+
+import com.google.gson.stream.JsonWriter;
+import net.opengis.swe.v20.DataComponent;
+import org.vast.swe.SWEJsonBindings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A structural fingerprint of a SWE Common schema: two schemas have the same fingerprint
+ * if and only if they have the same SWE Common JSON encoding, i.e., the same components, names, definitions,
+ * units, constraints, and so on, whatever their identity.
+ * <p>
+ * The fingerprint is the first 128 bits of the SHA-256 digest of the compact JSON encoding of the schema,
+ * so it can be used as the key of caches of anything derived from a schema, e.g., encoders and decoders.
+ */
+public final class SchemaFingerprint {
+    private final long high;
+    private final long low;
+
+    private SchemaFingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Compute the fingerprint of a schema.
+     *
+     * @param schema The schema.
+     * @return The fingerprint.
+     */
+    public static SchemaFingerprint of(DataComponent schema) {
+        if (schema == null) {
+            throw new IllegalArgumentException("schema cannot be null");
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        try (JsonWriter jsonWriter = new JsonWriter(new DigestWriter(digest))) {
+            new SWEJsonBindings().writeDataComponent(jsonWriter, schema, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error encoding schema " + schema.getName(), e);
+        }
+
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new SchemaFingerprint(hash.getLong(), hash.getLong());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SchemaFingerprint other && high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high ^ low);
+    }
+
+    /**
+     * @return The fingerprint as 32 hexadecimal digits.
+     */
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+
+    /**
+     * Feeds the UTF-16 code units written to it to a digest.
+     */
+    private static class DigestWriter extends Writer {
+        private final MessageDigest digest;
+        private final byte[] buffer = new byte[1024];
+
+        DigestWriter(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            int pos = 0;
+            for (int i = offset; i < offset + length; i++) {
+                if (pos == buffer.length) {
+                    digest.update(buffer, 0, pos);
+                    pos = 0;
+                }
+                buffer[pos++] = (byte) (chars[i] >> 8);
+                buffer[pos++] = (byte) chars[i];
+            }
+            digest.update(buffer, 0, pos);
+        }
+
+        @Override
+        public void flush() {
+            // Nothing is buffered between writes
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+    }
+}
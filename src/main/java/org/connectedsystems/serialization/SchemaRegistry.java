@@ -0,0 +1,124 @@
+package org.connectedsystems.serialization;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.opengis.swe.v20.DataComponent;
+import org.connectedsystems.jfr.CacheEvent;
+
+import java.util.function.Function;
+
+/**
+ * Interns SWE Common schemas by {@link SchemaFingerprint}, so that the many datastreams sharing
+ * the same result schema also share a single parsed DataComponent tree.
+ * <p>
+ * Interning is opt-in: schemas are only interned by serializers created with a registry,
+ * e.g., {@code new DataComponentSerializer(SchemaRegistry.DEFAULT)}, and by the {@link org.connectedsystems.ResultSchemaCache}.
+ * Interned schemas are shared by every resource they were parsed for, and by every thread:
+ * they must be treated as read-only, e.g., copied before assigning a data block to them.
+ * Schemas are held weakly, so a schema no longer referenced by any resource can be garbage collected.
+ * The fingerprint of an interned schema is computed once and remembered; the fingerprint of any other schema
+ * is computed on each call, so that schemas owned by callers may be modified between calls. The registry is thread-safe.
+ */
+public class SchemaRegistry {
+    /**
+     * The registry used by the Gson instances of {@link org.connectedsystems.GsonFactory}.
+     */
+    public static final SchemaRegistry DEFAULT = new SchemaRegistry();
+
+    private static final String SCHEMAS_CACHE = "schemas";
+
+    private final CacheStatistics statistics = new CacheStatistics();
+    private final Cache<SchemaFingerprint, DataComponent> schemas = CacheBuilder.newBuilder()
+            .weakValues()
+            .build();
+    /**
+     * Fingerprints by interned schema instance, compared by identity.
+     */
+    private final Cache<DataComponent, SchemaFingerprint> fingerprints = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    /**
+     * Get the fingerprint of a schema, remembered if the schema is interned, or else computed from its current state.
+     *
+     * @param schema The schema.
+     * @return The fingerprint.
+     */
+    public SchemaFingerprint fingerprint(DataComponent schema) {
+        if (schema == null) {
+            throw new IllegalArgumentException("schema cannot be null");
+        }
+        SchemaFingerprint fingerprint = fingerprints.getIfPresent(schema);
+        return fingerprint != null ? fingerprint : SchemaFingerprint.of(schema);
+    }
+
+    /**
+     * Get the interned schema equal to the given one, registering the given one if there is none.
+     *
+     * @param schema The schema, e.g., just parsed.
+     * @return The interned schema, which is the given schema if it is the first one with its fingerprint.
+     */
+    public DataComponent intern(DataComponent schema) {
+        SchemaFingerprint fingerprint = fingerprint(schema);
+        DataComponent interned = lookup(schemas, SCHEMAS_CACHE, fingerprint, key -> schema, statistics);
+        if (interned == schema) {
+            // The registry now owns the schema, which must no longer be modified
+            fingerprints.put(schema, fingerprint);
+        }
+        return interned;
+    }
+
+    /**
+     * @return The number of distinct schemas currently interned.
+     */
+    public long size() {
+        return schemas.size();
+    }
+
+    /**
+     * @return The hit and miss counts of {@link #intern(DataComponent)}, a miss being the first schema with its fingerprint.
+     */
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Look up a cache keyed by schema fingerprint, or by a key derived from one, loading the value on a miss,
+     * and record the lookup as a {@link CacheEvent}.
+     *
+     * @param cache     The cache.
+     * @param cacheName The name of the cache in the event.
+     * @param key       The fingerprint, or a key including it, whose string representation identifies it in the event.
+     * @param loader    Loads the value on a miss.
+     * @return The cached or loaded value.
+     */
+    public static <K, V> V lookup(Cache<K, V> cache, String cacheName, K key, Function<K, V> loader) {
+        return lookup(cache, cacheName, key, loader, null);
+    }
+
+    /**
+     * Look up a cache as {@link #lookup(Cache, String, Object, Function)} does, also counting the lookup as a hit or a miss.
+     *
+     * @param statistics The counts to update, or null to not count the lookup.
+     */
+    public static <K, V> V lookup(Cache<K, V> cache, String cacheName, K key, Function<K, V> loader, CacheStatistics statistics) {
+        CacheEvent event = new CacheEvent();
+        event.begin();
+        V value = cache.getIfPresent(key);
+        boolean hit = value != null;
+        if (!hit) {
+            value = cache.asMap().computeIfAbsent(key, loader);
+        }
+        event.end();
+        if (statistics != null) {
+            statistics.record(hit);
+        }
+        if (event.shouldCommit()) {
+            event.cache = cacheName;
+            event.key = key.toString();
+            event.hit = hit;
+            event.commit();
+        }
+        return value;
+    }
+}
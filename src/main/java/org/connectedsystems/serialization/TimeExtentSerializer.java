@@ -1,33 +1,81 @@
 package org.connectedsystems.serialization;
 
-import com.google.gson.*;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import org.vast.util.TimeExtent;
 
-import java.lang.reflect.Type;
-import java.util.List;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 
-public class TimeExtentSerializer implements JsonSerializer<TimeExtent>, JsonDeserializer<TimeExtent> {
+/**
+ * Reads and writes TimeExtent objects as an array of 2 RFC 3339 timestamps, or a single one for a time instant.
+ * An unbounded end is written as "..".
+ * Timestamps are handled by {@link Rfc3339}; other values, such as "now" or ".." for an open end,
+ * are left to {@link TimeExtent#parse(String)}.
+ */
+public class TimeExtentSerializer extends TypeAdapter<TimeExtent> {
     @Override
-    public JsonElement serialize(TimeExtent timeExtent, Type type, JsonSerializationContext context) {
-        List<String> validTimeList = List.of(timeExtent.begin().toString(), timeExtent.end().toString());
-        return context.serialize(validTimeList);
+    public void write(JsonWriter out, TimeExtent timeExtent) throws IOException {
+        if (timeExtent == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        out.value(timeExtent.hasBegin() ? Rfc3339.format(timeExtent.begin()) : "..");
+        out.value(timeExtent.hasEnd() ? Rfc3339.format(timeExtent.end()) : "..");
+        out.endArray();
     }
 
     @Override
-    public TimeExtent deserialize(JsonElement json, Type type, JsonDeserializationContext context) throws JsonParseException {
-        if (json.isJsonArray()) {
-            // Time extent
-            List<String> validTimeList = context.deserialize(json, List.class);
-            if (validTimeList.size() != 2) {
-                throw new JsonParseException("Invalid validTime array, expected exactly 2 elements.");
+    public TimeExtent read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String path = in.getPath();
+        try {
+            if (token == JsonToken.BEGIN_ARRAY) {
+                // Time extent
+                in.beginArray();
+                String begin = in.hasNext() ? in.nextString() : null;
+                String end = in.hasNext() ? in.nextString() : null;
+                if (end == null || in.hasNext()) {
+                    throw new JsonParseException("Invalid validTime array, expected exactly 2 elements.");
+                }
+                in.endArray();
+
+                Instant beginInstant = parseTimestamp(begin);
+                Instant endInstant = parseTimestamp(end);
+                if (beginInstant != null && endInstant != null) {
+                    return TimeExtent.period(beginInstant, endInstant);
+                }
+                return TimeExtent.parse(begin + "/" + end);
+            } else if (token == JsonToken.STRING) {
+                // Time instant
+                String validTime = in.nextString();
+                Instant instant = parseTimestamp(validTime);
+                return instant != null ? TimeExtent.instant(instant) : TimeExtent.parse(validTime);
+            } else {
+                throw new JsonParseException("Invalid validTime, expected an array or a string.");
             }
-            return TimeExtent.parse(validTimeList.get(0) + "/" + validTimeList.get(1));
-        } else if (json.isJsonPrimitive()) {
-            // Time instant
-            String validTime = context.deserialize(json, String.class);
-            return TimeExtent.parse(validTime);
-        } else {
-            throw new JsonParseException("Invalid validTime, expected an array or a string.");
+        } catch (DateTimeParseException e) {
+            throw new JsonParseException("Invalid time extent at path " + path, e);
+        }
+    }
+
+    /**
+     * Parse a timestamp, or return null if it is a special value such as "now".
+     */
+    private static Instant parseTimestamp(String value) {
+        if (value.isEmpty() || !Character.isDigit(value.charAt(0))) {
+            return null;
         }
+        return Rfc3339.parseInstant(value);
     }
 }
@@ -48,4 +48,13 @@ public class DataStreamsOfSystemQueryBuilder extends QueryStringBuilder {
     public void limit(int limit) {
         addParameter("limit", limit);
     }
+
+    /**
+     * List of the properties to include in the datastreams of the response.
+     * <p>
+     * See {@link DataStreamsQueryBuilder#select(List)}.
+     */
+    public void select(List<String> select) {
+        addParameter(SELECT, select);
+    }
 }
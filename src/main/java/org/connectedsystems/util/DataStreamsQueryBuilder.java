@@ -80,4 +80,13 @@ public class DataStreamsQueryBuilder extends QueryStringBuilder {
     public void limit(int limit) {
         addParameter("limit", limit);
     }
+
+    /**
+     * List of the properties to include in the datastreams of the response, e.g., "id", "name", or "outputName".
+     * Servers that support it leave out the other properties, such as the links and the observed properties;
+     * the client skips them when deserializing either way.
+     */
+    public void select(List<String> select) {
+        addParameter(SELECT, select);
+    }
 }
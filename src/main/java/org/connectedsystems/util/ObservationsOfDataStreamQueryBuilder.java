@@ -59,4 +59,13 @@ public class ObservationsOfDataStreamQueryBuilder extends QueryStringBuilder {
     public void limit(int limit) {
         addParameter("limit", limit);
     }
+
+    /**
+     * List of the properties to include in the observations of the response, e.g., "id", "phenomenonTime", or "result".
+     * <p>
+     * See {@link ObservationsQueryBuilder#select(List)}.
+     */
+    public void select(List<String> select) {
+        addParameter(SELECT, select);
+    }
 }
@@ -74,4 +74,15 @@ public class ObservationsQueryBuilder extends QueryStringBuilder {
     public void limit(int limit) {
         addParameter("limit", limit);
     }
+
+    /**
+     * List of the properties to include in the items of the response, e.g., "id", "phenomenonTime", or "result".
+     * Servers that support it only return the selected properties, reducing the size of the response,
+     * and the client only deserializes the selected properties in any case.
+     * Nested properties are selected with a dot, e.g., "result.temperature", if the server supports it;
+     * the client then deserializes the whole top-level property.
+     */
+    public void select(List<String> select) {
+        addParameter(SELECT, select);
+    }
 }
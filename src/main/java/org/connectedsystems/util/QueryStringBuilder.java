@@ -2,9 +2,12 @@ package org.connectedsystems.util;
 
 import org.vast.util.TimeExtent;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A utility class for building query strings for Connected Systems API requests.
@@ -14,14 +17,43 @@ import java.util.Map;
  * <p>
  * The resulting query string may be obtained by calling {@link #getQueryString()},
  * and may be an empty string if no or null parameters were added.
+ * <p>
+ * A query with long lists of values, e.g., hundreds of IDs, can be split into several queries
+ * that each fit in a URL with {@link #getChunkedParameters(int)}.
  */
 public class QueryStringBuilder {
+    /**
+     * The name of the parameter selecting the properties of the items returned by the server.
+     */
+    protected static final String SELECT = "select";
+    /**
+     * The name of the parameter limiting the number of items returned by the server.
+     */
+    protected static final String LIMIT = "limit";
+    /**
+     * The default maximum length of a query string, below the URL length limit of most servers and proxies.
+     */
+    public static final int DEFAULT_MAX_QUERY_LENGTH = 4000;
+    private static final String HEX_DIGITS = "0123456789ABCDEF";
+    /**
+     * List parameters whose values are combined rather than alternatives, so they cannot be spread over several queries.
+     */
+    private static final Set<String> UNSPLITTABLE_PARAMETERS = Set.of(SELECT, "bbox");
+    /**
+     * List parameters of which every item has a single value, so the queries they are split into return distinct items.
+     */
+    private static final Set<String> PARTITIONING_PARAMETERS = Set.of("id", "parent", "system", "datastream");
+
     /**
      * The map of parameters.
      * The key is the parameter name, and the value is the parameter value.
      * This will not contain any parameters with null or empty values.
      */
     private final Map<String, String> parameters = new HashMap<>();
+    /**
+     * The encoded values of the parameters added as lists, by parameter name.
+     */
+    private final Map<String, List<String>> listParameters = new HashMap<>();
 
     /**
      * Create a new QueryStringBuilder from a map of parameters.
@@ -48,6 +80,7 @@ public class QueryStringBuilder {
         if (key == null || key.isEmpty()) return;
         if (value == null || value.isEmpty()) return;
         parameters.put(key, value);
+        listParameters.remove(key);
     }
 
     /**
@@ -64,18 +97,22 @@ public class QueryStringBuilder {
     }
 
     /**
-     * Add a parameter with a list of values. The values will be joined with commas.
+     * Add a parameter with a list of values.
+     * The values will be percent-encoded, so that they may contain commas or spaces, and joined with commas.
+     * Null values are skipped.
      */
     protected <T> void addParameter(String key, List<T> values) {
         if (values == null || values.isEmpty()) return;
-        StringBuilder csv = new StringBuilder();
+        List<String> encoded = new ArrayList<>(values.size());
         for (T value : values) {
             if (value == null) continue;
-            csv.append(value);
-            csv.append(',');
+            encoded.add(encode(value.toString()));
+        }
+        if (encoded.isEmpty()) return;
+        addParameter(key, String.join(",", encoded));
+        if (parameters.containsKey(key)) {
+            listParameters.put(key, encoded);
         }
-        csv.deleteCharAt(csv.length() - 1); // Remove trailing comma
-        addParameter(key, csv.toString());
     }
 
     /**
@@ -126,4 +163,128 @@ public class QueryStringBuilder {
     public Map<String, String> getParameters() {
         return parameters;
     }
-}
\ No newline at end of file
+
+    /**
+     * Split the parameters into as few sets of parameters as needed for each query string to fit in the given length,
+     * by spreading the values of the longest list filter over several queries, e.g., a long list of IDs.
+     * Other parameters are repeated in every query.
+     * <p>
+     * The queries must be sent separately and their results merged. Unless the values of the split parameter
+     * partition the results, e.g., IDs, the same item may be returned by several queries, see {@link #hasDisjointChunks(int)}.
+     * A limit applies to each query separately, see {@link #getLimit()}.
+     *
+     * @param maxQueryLength The maximum length of each query string, including the leading '?'.
+     * @return The parameters of each query; a single set, equal to {@link #getParameters()}, if the query string fits,
+     * or if it has no list filter to split. A query whose other parameters are too long on their own still exceeds the length.
+     * @throws IllegalArgumentException if maxQueryLength is not positive.
+     */
+    public List<Map<String, String>> getChunkedParameters(int maxQueryLength) {
+        String splitKey = getSplitKey(maxQueryLength);
+        if (splitKey == null) {
+            return List.of(parameters);
+        }
+        int queryLength = getQueryString().length();
+
+        // The length of the query without the values of the split parameter
+        int baseLength = queryLength - parameters.get(splitKey).length();
+        List<Map<String, String>> chunks = new ArrayList<>();
+        StringBuilder chunk = new StringBuilder();
+        for (String value : listParameters.get(splitKey)) {
+            if (chunk.length() > 0 && baseLength + chunk.length() + 1 + value.length() > maxQueryLength) {
+                chunks.add(withParameter(splitKey, chunk.toString()));
+                chunk.setLength(0);
+            }
+            if (chunk.length() > 0) chunk.append(',');
+            chunk.append(value);
+        }
+        chunks.add(withParameter(splitKey, chunk.toString()));
+        return chunks;
+    }
+
+    /**
+     * Whether the queries of {@link #getChunkedParameters(int)} return distinct items, so their results need not be deduplicated.
+     *
+     * @param maxQueryLength The maximum length of each query string, including the leading '?'.
+     * @return True if the query is not split, or if it is split on a filter of which every item has a single value, e.g., IDs.
+     * @throws IllegalArgumentException if maxQueryLength is not positive.
+     */
+    public boolean hasDisjointChunks(int maxQueryLength) {
+        String splitKey = getSplitKey(maxQueryLength);
+        return splitKey == null || PARTITIONING_PARAMETERS.contains(splitKey);
+    }
+
+    /**
+     * @return The name of the list parameter to spread over several queries, or null if the query string fits or cannot be split.
+     */
+    private String getSplitKey(int maxQueryLength) {
+        if (maxQueryLength < 1) {
+            throw new IllegalArgumentException("maxQueryLength must be positive");
+        }
+        if (getQueryString().length() <= maxQueryLength) {
+            return null;
+        }
+        String splitKey = null;
+        for (Map.Entry<String, List<String>> entry : listParameters.entrySet()) {
+            if (entry.getValue().size() > 1 && !UNSPLITTABLE_PARAMETERS.contains(entry.getKey())
+                    && (splitKey == null || parameters.get(entry.getKey()).length() > parameters.get(splitKey).length())) {
+                splitKey = entry.getKey();
+            }
+        }
+        return splitKey;
+    }
+
+    private Map<String, String> withParameter(String key, String value) {
+        Map<String, String> chunk = new HashMap<>(parameters);
+        chunk.put(key, value);
+        return chunk;
+    }
+
+    /**
+     * Percent-encode a value of a list parameter.
+     * Unreserved characters are kept, as well as ':', '/', and '@', which are allowed in a query and common in IDs and URIs.
+     */
+    private static String encode(String value) {
+        StringBuilder encoded = null;
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xFF;
+            boolean keep = (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                    || b == '-' || b == '.' || b == '_' || b == '~' || b == ':' || b == '/' || b == '@';
+            if (keep) {
+                if (encoded != null) encoded.append((char) b);
+            } else {
+                if (encoded == null) {
+                    encoded = new StringBuilder(bytes.length + 16);
+                    encoded.append(new String(bytes, 0, i, StandardCharsets.US_ASCII));
+                }
+                encoded.append('%').append(HEX_DIGITS.charAt(b >> 4)).append(HEX_DIGITS.charAt(b & 0xF));
+            }
+        }
+        return encoded != null ? encoded.toString() : value;
+    }
+
+    /**
+     * The properties selected with the {@code select} parameter, used to deserialize only those properties of the items.
+     *
+     * @return The names of the selected properties, or null if the parameter was not set, i.e., all properties are selected.
+     */
+    public Set<String> getSelectedProperties() {
+        String select = parameters.get(SELECT);
+        return select != null ? Set.of(select.split(",")) : null;
+    }
+
+    /**
+     * The maximum number of items to return, set with the {@code limit} parameter.
+     *
+     * @return The limit, or null if the parameter was not set or is not a number.
+     */
+    public Integer getLimit() {
+        String limit = parameters.get(LIMIT);
+        if (limit == null) return null;
+        try {
+            return Integer.valueOf(limit);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.connectedsystems.net;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class APIResponseTest {
+    static class Item {
+        String id;
+    }
+
+    private static final Gson GSON = new Gson();
+    private static final Map<String, List<String>> HEADERS = Map.of("Content-Type", List.of("application/json"));
+
+    @Test
+    void concatenatesTheItemsOfAllResponsesInOrder() {
+        APIResponse<Item> merged = APIResponse.merge(List.of(response("a", "b"), response(), response("c")), null, Integer.MAX_VALUE);
+
+        assertEquals(List.of("a", "b", "c"), ids(merged));
+        assertTrue(merged.isSuccessful());
+        assertEquals(200, merged.getResponseCode());
+        assertEquals(HEADERS, merged.getHeaders());
+        assertFalse(merged.isSingleItem());
+        assertNull(merged.getNextLink());
+    }
+
+    @Test
+    void stopsAtTheLimit() {
+        List<APIResponse<Item>> responses = List.of(response("a", "b"), response("c", "d"));
+
+        assertEquals(List.of("a", "b", "c"), ids(APIResponse.merge(responses, null, 3)));
+        assertEquals(List.of("a", "b", "c"), ids(APIResponse.merge(responses, item -> item.id, 3)));
+        assertEquals(List.of(), ids(APIResponse.merge(responses, null, 0)));
+    }
+
+    @Test
+    void dropsItemsWhoseKeyWasAlreadySeen() {
+        List<APIResponse<Item>> responses = List.of(response("a", "b", null), response("b", "c", null, "a"));
+
+        assertEquals(Arrays.asList("a", "b", null, "c", null), ids(APIResponse.merge(responses, item -> item.id, 100)));
+        // The limit counts the items kept, not the duplicates
+        assertEquals(List.of("a", "b"), ids(APIResponse.merge(List.of(response("a", "a", "a", "b")), item -> item.id, 2)));
+    }
+
+    @Test
+    void keepsLazyItemsLazyWithoutAKey() {
+        AtomicInteger decoded = new AtomicInteger();
+        Gson countingGson = new GsonBuilder()
+                .registerTypeAdapter(Item.class, (JsonDeserializer<Item>) (json, type, context) -> {
+                    decoded.incrementAndGet();
+                    return GSON.fromJson(json, Item.class);
+                })
+                .create();
+        APIResponse<Item> first = new APIResponse<>(Item.class, 200, "OK", body("a", "b"), HEADERS, countingGson, true);
+        APIResponse<Item> second = new APIResponse<>(Item.class, 200, "OK", body("c", "d"), HEADERS, countingGson, true);
+
+        APIResponse<Item> merged = APIResponse.merge(List.of(first, second), null, Integer.MAX_VALUE);
+        assertEquals(4, merged.getItems().size());
+        assertEquals(0, decoded.get());
+        assertEquals("c", merged.getItems().get(2).id);
+        assertEquals(1, decoded.get());
+    }
+
+    @Test
+    void returnsTheFirstUnsuccessfulResponse() {
+        APIResponse<Item> unavailable = new APIResponse<>(Item.class, 503, "Service Unavailable", "", HEADERS, GSON);
+        APIResponse<Item> notFound = new APIResponse<>(Item.class, 404, "Not Found", "", HEADERS, GSON);
+
+        assertSame(unavailable, APIResponse.merge(List.of(response("a"), unavailable, notFound), null, 10));
+        assertSame(unavailable, APIResponse.merge(List.of(response("a"), unavailable), item -> item.id, 10));
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> APIResponse.merge(List.<APIResponse<Item>>of(), null, 10));
+        assertThrows(IllegalArgumentException.class, () -> APIResponse.merge(null, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> APIResponse.merge(List.of(response("a")), null, -1));
+    }
+
+    private static APIResponse<Item> response(String... ids) {
+        return new APIResponse<>(Item.class, 200, "OK", body(ids), HEADERS, GSON);
+    }
+
+    private static String body(String... ids) {
+        StringBuilder body = new StringBuilder("{\"items\": [");
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) body.append(',');
+            body.append(ids[i] != null ? "{\"id\": \"" + ids[i] + "\"}" : "{}");
+        }
+        return body.append("]}").toString();
+    }
+
+    private static List<String> ids(APIResponse<Item> response) {
+        return response.getItems().stream().map(item -> item.id).toList();
+    }
+}
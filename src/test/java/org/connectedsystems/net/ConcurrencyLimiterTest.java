@@ -0,0 +1,176 @@
+package org.connectedsystems.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTest {
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void rejectsInconsistentLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter(10, 0, 20));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter(10, 5, 4));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter(2, 5, 20));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimiter(30, 5, 20));
+    }
+
+    @Test
+    void allowsAtMostTheLimitInFlight() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire(1, TimeUnit.MILLISECONDS));
+        assertFalse(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire(10, TimeUnit.MILLISECONDS));
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.releaseIgnored();
+        assertTrue(limiter.tryAcquire());
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void wakesUpAWaitingRequestOnRelease() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 10);
+        limiter.acquire();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        while (limiter.getQueueLength() == 0) {
+            Thread.onSpinWait();
+        }
+        assertFalse(acquired.await(50, TimeUnit.MILLISECONDS));
+
+        limiter.releaseIgnored();
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join();
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(0, limiter.getQueueLength());
+    }
+
+    @Test
+    void backsOffOnDroppedRequests() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 2, 20);
+        limiter.setBackoffRatio(0.5);
+
+        limiter.acquire();
+        limiter.release(MILLISECOND, true);
+        assertEquals(5, limiter.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release(MILLISECOND, true);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffWhenLatencyExceedsTheBaselineOfTheSameEndpoint() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 20);
+
+        limiter.acquire();
+        limiter.release("systems", MILLISECOND, false);
+        // A slow endpoint is compared with itself, not with the fast one
+        limiter.acquire();
+        limiter.release("observations", 50 * MILLISECOND, false);
+        assertEquals(10, limiter.getLimit());
+        assertEquals(1, limiter.getMinRtt("systems", TimeUnit.MILLISECONDS));
+        assertEquals(50, limiter.getMinRtt("observations", TimeUnit.MILLISECONDS));
+
+        limiter.acquire();
+        limiter.release("systems", 5 * MILLISECOND, false);
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void growsOnlyWhileTheLimitIsUsed() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 5);
+
+        // A single request at a time never uses half the limit
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.release(MILLISECOND, false);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < limiter.getLimit(); j++) {
+                limiter.acquire();
+            }
+            while (limiter.getInFlight() > 0) {
+                limiter.release(MILLISECOND, false);
+            }
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void neverBlocksWhileDisabled() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+        limiter.setEnabled(false);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertEquals(10, limiter.getInFlight());
+        limiter.release(MILLISECOND, true);
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void keepsRequestsInFlightWithinTheMaximumUnderContention() throws InterruptedException {
+        int maxLimit = 8;
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, maxLimit);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 32; t++) {
+            boolean dropping = t % 8 == 0;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 500; i++) {
+                        limiter.acquire();
+                        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        Thread.yield();
+                        inFlight.decrementAndGet();
+                        limiter.release(MILLISECOND, dropping && i % 10 == 0);
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(error.get());
+        assertTrue(maxInFlight.get() <= maxLimit, "Up to " + maxInFlight.get() + " requests were in flight");
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getQueueLength());
+    }
+}
@@ -0,0 +1,97 @@
+package org.connectedsystems.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgingPolicyTest {
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void rejectsOutOfRangeSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new HedgingPolicy(0, Duration.ZERO, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new HedgingPolicy(1, Duration.ZERO, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new HedgingPolicy(0.9, Duration.ofMillis(-1), 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new HedgingPolicy(0.9, null, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new HedgingPolicy(0.9, Duration.ZERO, 1.5));
+    }
+
+    @Test
+    void waitsForEnoughSamplesBeforeHedging() {
+        HedgingPolicy policy = new HedgingPolicy(0.95, Duration.ZERO, 0.1);
+        assertEquals(-1, policy.getHedgeDelayNanos("systems"));
+
+        for (int i = 0; i < 19; i++) {
+            policy.recordLatency("systems", MILLISECOND);
+        }
+        assertEquals(-1, policy.getHedgeDelayNanos("systems"));
+
+        policy.recordLatency("systems", MILLISECOND);
+        assertEquals(MILLISECOND, policy.getHedgeDelayNanos("systems"));
+        // Each endpoint has its own latencies
+        assertEquals(-1, policy.getHedgeDelayNanos("observations"));
+    }
+
+    @Test
+    void hedgesAtThePercentileOfRecentLatencies() {
+        HedgingPolicy policy = new HedgingPolicy(0.95, Duration.ZERO, 0.1);
+        // Recorded out of order, from 1 to 100 ms
+        for (int i = 0; i < 100; i++) {
+            policy.recordLatency("systems", (i * 37 % 100 + 1) * MILLISECOND);
+        }
+        assertEquals(96 * MILLISECOND, policy.getHedgeDelayNanos("systems"));
+
+        // Only the most recent latencies are kept
+        for (int i = 0; i < 1000; i++) {
+            policy.recordLatency("systems", 2 * MILLISECOND);
+        }
+        assertEquals(2 * MILLISECOND, policy.getHedgeDelayNanos("systems"));
+    }
+
+    @Test
+    void neverHedgesBeforeTheMinimumDelay() {
+        HedgingPolicy policy = new HedgingPolicy(0.5, Duration.ofMillis(10), 0.1);
+        for (int i = 0; i < 50; i++) {
+            policy.recordLatency("systems", MILLISECOND);
+        }
+        assertEquals(10 * MILLISECOND, policy.getHedgeDelayNanos("systems"));
+    }
+
+    @Test
+    void paysForHedgesFromTheBudget() {
+        HedgingPolicy policy = new HedgingPolicy(0.95, Duration.ZERO, 0.25);
+        assertFalse(policy.tryAcquireHedge());
+
+        for (int i = 0; i < 3; i++) {
+            policy.onRequest();
+        }
+        assertFalse(policy.tryAcquireHedge());
+        policy.onRequest();
+        assertTrue(policy.tryAcquireHedge());
+        assertFalse(policy.tryAcquireHedge());
+
+        policy.onHedgeWon();
+        assertEquals(1, policy.getHedgesSent());
+        assertEquals(1, policy.getHedgesWon());
+    }
+
+    @Test
+    void capsTheSavedUpBudget() {
+        HedgingPolicy policy = new HedgingPolicy(0.95, Duration.ZERO, 1);
+        for (int i = 0; i < 1000; i++) {
+            policy.onRequest();
+        }
+
+        int hedges = 0;
+        while (policy.tryAcquireHedge()) {
+            hedges++;
+        }
+        assertEquals(10, hedges);
+    }
+}
@@ -0,0 +1,155 @@
+package org.connectedsystems.net;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyItemListTest {
+    static class Item {
+        String id;
+        String decodedBy;
+    }
+
+    private final AtomicInteger decoded = new AtomicInteger();
+    private final Set<String> decodingThreads = ConcurrentHashMap.newKeySet();
+
+    @Test
+    void indexesItemsWithoutDecodingThem() {
+        LazyItemList<Item> items = LazyItemList.ofItems(body(100), Item.class, countingGson("default"));
+
+        assertEquals(100, items.size());
+        assertEquals(0, decoded.get());
+        assertEquals("item-42", items.get(42).id);
+        assertEquals(1, decoded.get());
+        // Decoded items are kept
+        assertEquals("item-42", items.get(42).id);
+        assertEquals(1, decoded.get());
+        assertThrows(IndexOutOfBoundsException.class, () -> items.get(100));
+    }
+
+    @Test
+    void findsTheItemsArrayAmongOtherMembers() {
+        String body = "{ \"type\" : \"FeatureCollection\", \"items\" : [ {\"id\": \"a],[b\", \"nested\": {\"items\": [1, 2]}} ,"
+                + " {\"id\": \"c\\\"}\"} ], \"links\": [{\"rel\": \"next\", \"href\": \"x\"}] }";
+        LazyItemList<Item> items = LazyItemList.ofItems(body, Item.class, new Gson());
+
+        assertEquals(2, items.size());
+        assertEquals("a],[b", items.get(0).id);
+        assertEquals("c\"}", items.get(1).id);
+    }
+
+    @Test
+    void treatsABodyWithoutItemsAsASingleItem() {
+        String body = "{\"id\": \"system-1\"}";
+        assertNull(LazyItemList.ofItems(body, Item.class, new Gson()));
+        assertEquals(0, LazyItemList.ofItems("{\"items\": []}", Item.class, new Gson()).size());
+
+        LazyItemList<Item> single = LazyItemList.ofSingleItem(body, Item.class, new Gson());
+        assertEquals(1, single.size());
+        assertEquals("system-1", single.get(0).id);
+    }
+
+    @Test
+    void rejectsMalformedBodies() {
+        assertThrows(JsonParseException.class, () -> LazyItemList.ofItems("{\"items\": [{\"id\": 1}", Item.class, new Gson()));
+        assertThrows(JsonParseException.class, () -> LazyItemList.ofItems("{\"items\": [{\"id\": 1} {}]}", Item.class, new Gson()));
+    }
+
+    @Test
+    void decodesAllItemsInOrderOnTheCallingThread() {
+        LazyItemList<Item> items = LazyItemList.ofItems(body(500), Item.class, countingGson("default"));
+
+        List<Item> all = items.decodeAll(Integer.MAX_VALUE, null);
+        assertIds(500, all);
+        assertEquals(Set.of(Thread.currentThread().getName()), decodingThreads);
+        // The list is a new mutable list
+        all.add(new Item());
+    }
+
+    @Test
+    void decodesLargePagesInParallelOnTheGivenPool() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            LazyItemList<Item> items = LazyItemList.ofItems(body(5000), Item.class, countingGson("default"));
+
+            assertIds(5000, items.decodeAll(1000, pool));
+            assertEquals(5000, decoded.get());
+            // Only the workers of the pool decode, never the calling thread
+            for (String thread : decodingThreads) {
+                assertTrue(thread.startsWith("ForkJoinPool-"), thread);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void decodesEachItemWithTheGsonResolvedFromItsKey() throws IOException {
+        String body = "{\"items\": [{\"id\": \"1\", \"datastream@id\": \"a\"}, {\"id\": \"2\", \"datastream@id\": \"b\"},"
+                + " {\"id\": \"3\", \"datastream@id\": \"a\"}]}";
+        LazyItemList<Item> items = LazyItemList.ofItems(body, Item.class, null);
+        List<Set<String>> resolvedKeys = new ArrayList<>();
+        items.resolveGsons("datastream@id", keys -> {
+            resolvedKeys.add(keys);
+            return Map.of("a", countingGson("a"), "b", countingGson("b"));
+        });
+
+        assertEquals(List.of(Set.of("a", "b")), resolvedKeys);
+        assertEquals(List.of("a", "b", "a"), items.decodeAll(Integer.MAX_VALUE, null).stream().map(item -> item.decodedBy).toList());
+    }
+
+    @Test
+    void failsToDecodeAnItemWithoutAResolvedGson() throws IOException {
+        String body = "{\"items\": [{\"id\": \"1\", \"datastream@id\": \"a\"}, {\"id\": \"2\"}]}";
+        LazyItemList<Item> items = LazyItemList.ofItems(body, Item.class, null);
+        items.resolveGsons("datastream@id", keys -> Map.of("a", countingGson("a")));
+
+        assertEquals("a", items.get(0).decodedBy);
+        assertThrows(JsonParseException.class, () -> items.get(1));
+    }
+
+    private Gson countingGson(String name) {
+        Gson plain = new Gson();
+        return new GsonBuilder()
+                .registerTypeAdapter(Item.class, (JsonDeserializer<Item>) (json, type, context) -> {
+                    decoded.incrementAndGet();
+                    decodingThreads.add(Thread.currentThread().getName());
+                    Item item = plain.fromJson(json, Item.class);
+                    item.decodedBy = name;
+                    return item;
+                })
+                .create();
+    }
+
+    private static String body(int count) {
+        StringBuilder body = new StringBuilder("{\"type\": \"FeatureCollection\", \"items\": [");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) body.append(',');
+            body.append("{\"id\": \"item-").append(i).append("\"}");
+        }
+        return body.append("]}").toString();
+    }
+
+    private static void assertIds(int count, List<Item> items) {
+        assertEquals(count, items.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("item-" + i, items.get(i).id);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.connectedsystems.replay;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExchangeArchiveTest {
+    @Test
+    void readsBackTheExchangesInOrder() throws IOException {
+        RecordedExchange first = exchange("/api/systems?limit=10", "OK", Map.of("Content-Type", List.of("application/json")));
+        RecordedExchange second = exchange("/api/systems/caf\u00e9", null, Map.of());
+
+        List<RecordedExchange> exchanges = writeAndRead(first, second);
+        assertEquals(2, exchanges.size());
+        assertExchange(first, exchanges.get(0));
+        assertExchange(second, exchanges.get(1));
+        assertNull(exchanges.get(1).getResponseMessage());
+    }
+
+    @Test
+    void storesStringsOverSixtyFourKilobytes() throws IOException {
+        String longQuery = "/api/observations?id=" + "\u00e9".repeat(70_000);
+        String longHeader = "x".repeat(100_000);
+        RecordedExchange exchange = exchange(longQuery, "OK", Map.of("Link", List.of(longHeader, "<next>")));
+
+        List<RecordedExchange> exchanges = writeAndRead(exchange, exchange("/api/systems", "OK", Map.of()));
+        assertEquals(2, exchanges.size());
+        assertExchange(exchange, exchanges.get(0));
+    }
+
+    @Test
+    void readsVersionOneArchives() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(ExchangeArchive.MAGIC);
+            out.writeInt(1);
+            out.writeBoolean(true);
+            out.writeLong(5);
+            out.writeUTF("GET");
+            out.writeUTF("/api/systems/caf\u00e9");
+            out.writeLong(0);
+            out.writeInt(200);
+            out.writeBoolean(true);
+            out.writeUTF("OK");
+            out.writeInt(1);
+            out.writeUTF("Content-Type");
+            out.writeInt(1);
+            out.writeUTF("application/json");
+            out.writeInt(2);
+            out.write(new byte[]{'{', '}'});
+            out.writeLong(1);
+            out.writeLong(2);
+            out.writeLong(3);
+            out.writeBoolean(false);
+        }
+
+        List<RecordedExchange> exchanges = ExchangeArchive.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(1, exchanges.size());
+        assertEquals("/api/systems/caf\u00e9", exchanges.get(0).getPathAndQuery());
+        assertEquals(List.of("application/json"), exchanges.get(0).getResponseHeaders().get("content-type"));
+        assertArrayEquals(new byte[]{'{', '}'}, exchanges.get(0).getResponseBody());
+    }
+
+    @Test
+    void rejectsUnclosedAndForeignArchives() throws IOException {
+        Path path = Files.createTempFile("exchanges", ".csax");
+        try {
+            ExchangeArchive.Writer writer = ExchangeArchive.create(path);
+            writer.write(exchange("/api/systems", "OK", Map.of()));
+            writer.close();
+            byte[] archive = Files.readAllBytes(path);
+
+            ByteArrayOutputStream unclosed = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(unclosed)) {
+                byte[] content = new GZIPInputStream(new ByteArrayInputStream(archive)).readAllBytes();
+                out.write(Arrays.copyOf(content, content.length - 1));
+            }
+            assertThrows(EOFException.class, () -> ExchangeArchive.read(new ByteArrayInputStream(unclosed.toByteArray())));
+
+            ByteArrayOutputStream foreign = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(foreign))) {
+                out.writeInt(0x12345678);
+            }
+            assertThrows(IOException.class, () -> ExchangeArchive.read(new ByteArrayInputStream(foreign.toByteArray())));
+            assertThrows(IllegalStateException.class, () -> writer.write(exchange("/api/systems", "OK", Map.of())));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static List<RecordedExchange> writeAndRead(RecordedExchange... exchanges) throws IOException {
+        Path path = Files.createTempFile("exchanges", ".csax");
+        try {
+            try (ExchangeArchive.Writer writer = ExchangeArchive.create(path)) {
+                for (RecordedExchange exchange : exchanges) {
+                    writer.write(exchange);
+                }
+            }
+            return ExchangeArchive.read(path);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static RecordedExchange exchange(String pathAndQuery, String responseMessage, Map<String, List<String>> headers) {
+        return new RecordedExchange(1_000, "GET", pathAndQuery, 0, 200, responseMessage, headers,
+                "{\"items\": []}".getBytes(), 10, 20, 30);
+    }
+
+    private static void assertExchange(RecordedExchange expected, RecordedExchange actual) {
+        assertEquals(expected.getStartOffsetNanos(), actual.getStartOffsetNanos());
+        assertEquals(expected.getMethod(), actual.getMethod());
+        assertEquals(expected.getPathAndQuery(), actual.getPathAndQuery());
+        assertEquals(expected.getRequestBodyLength(), actual.getRequestBodyLength());
+        assertEquals(expected.getResponseCode(), actual.getResponseCode());
+        assertEquals(expected.getResponseMessage(), actual.getResponseMessage());
+        assertEquals(expected.getResponseHeaders(), actual.getResponseHeaders());
+        assertArrayEquals(expected.getResponseBody(), actual.getResponseBody());
+        assertEquals(expected.getConnectNanos(), actual.getConnectNanos());
+        assertEquals(expected.getServerNanos(), actual.getServerNanos());
+        assertEquals(expected.getTransferNanos(), actual.getTransferNanos());
+    }
+}
@@ -0,0 +1,114 @@
+package org.connectedsystems.serialization;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Rfc3339Test {
+    @Test
+    void parsesUtcTimestamps() {
+        assertEquals(Instant.parse("2024-01-01T12:30:00.250Z"), Rfc3339.parseInstant("2024-01-01T12:30:00.250Z"));
+        assertEquals(Instant.parse("2024-01-01T12:30:00Z"), Rfc3339.parseInstant("2024-01-01t12:30:00z"));
+        assertEquals(Instant.parse("1969-12-31T23:59:59.999999999Z"), Rfc3339.parseInstant("1969-12-31T23:59:59.999999999Z"));
+    }
+
+    @Test
+    void appliesOffsets() {
+        assertEquals(Instant.parse("2024-01-01T12:30:00Z"), Rfc3339.parseInstant("2024-01-01T14:30:00+02:00"));
+        assertEquals(Instant.parse("2024-01-01T12:30:00Z"), Rfc3339.parseInstant("2024-01-01T03:00:00-09:30"));
+        assertEquals(Instant.parse("2023-12-31T23:00:00Z"), Rfc3339.parseInstant("2024-01-01T00:00:00+01:00"));
+    }
+
+    @Test
+    void truncatesFractionToNanoseconds() {
+        assertEquals(123_456_789, Rfc3339.parseInstant("2024-01-01T00:00:00.1234567891234Z").getNano());
+        assertEquals(500_000_000, Rfc3339.parseInstant("2024-01-01T00:00:00.5Z").getNano());
+    }
+
+    @Test
+    void readsLeapSecondAsTheSecondBeforeIt() {
+        Instant lastSecond = Instant.parse("2016-12-31T23:59:59Z");
+        assertEquals(lastSecond, Rfc3339.parseInstant("2016-12-31T23:59:60Z"));
+        assertEquals(lastSecond.plusMillis(500), Rfc3339.parseInstant("2016-12-31T23:59:60.5Z"));
+        // The same leap second, in local times on either side of UTC midnight
+        assertEquals(lastSecond, Rfc3339.parseInstant("2017-01-01T00:59:60+01:00"));
+        assertEquals(lastSecond, Rfc3339.parseInstant("2016-12-31T18:59:60-05:00"));
+    }
+
+    @Test
+    void rejectsLeapSecondsOutsideTheLastMinuteOfTheUtcDay() {
+        assertThrows(DateTimeParseException.class, () -> Rfc3339.parseEpochNanos("2016-12-31T12:00:60Z"));
+        assertThrows(DateTimeParseException.class, () -> Rfc3339.parseEpochNanos("2016-12-31T23:59:60+01:00"));
+        assertThrows(DateTimeParseException.class, () -> Rfc3339.parseEpochNanos("2016-12-31T23:58:60Z"));
+    }
+
+    @Test
+    void rejectsInvalidTimestamps() {
+        String[] invalid = {
+                "", "2024-01-01", "2024-01-01T12:30:00", "2024-01-01 12:30:00Z", "2024-1-01T12:30:00Z",
+                "2023-02-29T00:00:00Z", "2024-13-01T00:00:00Z", "2024-04-31T00:00:00Z", "2024-01-01T24:00:00Z",
+                "2024-01-01T12:60:00Z", "2024-01-01T12:30:61Z", "2024-01-01T12:30:00.Z", "2024-01-01T12:30:00+19:00",
+                "2024-01-01T12:30:00+0200", "2024-01-01T12:30:00Zx",
+        };
+        for (String text : invalid) {
+            assertThrows(DateTimeParseException.class, () -> Rfc3339.parseEpochNanos(text), text);
+        }
+    }
+
+    @Test
+    void acceptsLeapDays() {
+        assertEquals(Instant.parse("2024-02-29T00:00:00Z"), Rfc3339.parseInstant("2024-02-29T00:00:00Z"));
+        assertEquals(Instant.parse("2000-02-29T00:00:00Z"), Rfc3339.parseInstant("2000-02-29T00:00:00Z"));
+        assertThrows(DateTimeParseException.class, () -> Rfc3339.parseEpochNanos("1900-02-29T00:00:00Z"));
+    }
+
+    @Test
+    void parsesWithinALargerText() {
+        String text = "[\"2024-01-01T12:30:00Z\"]";
+        assertEquals(Instant.parse("2024-01-01T12:30:00Z").getEpochSecond() * 1_000_000_000L,
+                Rfc3339.parseEpochNanos(text, 2, text.length() - 2));
+    }
+
+    @Test
+    void rejectsTimestampsOutsideTheRangeOfEpochNanos() {
+        assertThrows(DateTimeParseException.class, () -> Rfc3339.parseEpochNanos("2300-01-01T00:00:00Z"));
+        // The Instant API still accepts them
+        assertEquals(Instant.parse("2300-01-01T00:00:00Z"), Rfc3339.parseInstant("2300-01-01T00:00:00Z"));
+        assertEquals(Instant.parse("+10000-01-01T00:00:00Z"), Rfc3339.parseInstant("+10000-01-01T00:00:00Z"));
+    }
+
+    @Test
+    void formatsLikeInstantToString() {
+        Instant[] instants = {
+                Instant.EPOCH, Instant.parse("2024-01-01T12:30:00.250Z"), Instant.parse("2024-01-01T12:30:00.000250Z"),
+                Instant.parse("2024-01-01T12:30:00.000000250Z"), Instant.parse("1969-12-31T23:59:59.999Z"),
+                Instant.parse("0000-01-01T00:00:00Z"), Instant.parse("9999-12-31T23:59:59.999999999Z"),
+                Instant.parse("+10000-01-01T00:00:00Z"), Instant.MIN, Instant.MAX,
+        };
+        for (Instant instant : instants) {
+            assertEquals(instant.toString(), Rfc3339.format(instant));
+        }
+    }
+
+    @Test
+    void roundTripsRandomInstants() {
+        SplittableRandom random = new SplittableRandom(42);
+        long min = Instant.parse("1678-01-01T00:00:00Z").getEpochSecond();
+        long max = Instant.parse("2261-12-31T00:00:00Z").getEpochSecond();
+        for (int i = 0; i < 10_000; i++) {
+            Instant instant = Instant.ofEpochSecond(random.nextLong(min, max), random.nextInt(1_000_000_000));
+            String text = Rfc3339.format(instant);
+            assertEquals(instant.toString(), text);
+            assertEquals(instant, Rfc3339.parseInstant(text));
+
+            long epochNanos = instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+            assertEquals(text, Rfc3339.formatEpochNanos(epochNanos));
+            assertEquals(epochNanos, Rfc3339.parseEpochNanos(text));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.connectedsystems.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryStringBuilderTest {
+    @Test
+    void percentEncodesListValues() {
+        QueryStringBuilder builder = new QueryStringBuilder();
+        builder.addParameter("id", List.of("a,b", "c d", "\u00e9", "urn:osh:sensor/1@x", "100%"));
+
+        assertEquals("a%2Cb,c%20d,%C3%A9,urn:osh:sensor/1@x,100%25", builder.getParameters().get("id"));
+    }
+
+    @Test
+    void skipsNullAndEmptyValues() {
+        QueryStringBuilder builder = new QueryStringBuilder();
+        builder.addParameter("name", (String) null);
+        builder.addParameter("q", "");
+        builder.addParameter("id", Arrays.asList(null, "a", null));
+
+        assertEquals(Map.of("id", "a"), builder.getParameters());
+        assertEquals("?id=a", builder.getQueryString());
+    }
+
+    @Test
+    void keepsAQueryThatFitsWhole() {
+        QueryStringBuilder builder = new QueryStringBuilder();
+        builder.addParameter("id", ids(10));
+
+        List<Map<String, String>> chunks = builder.getChunkedParameters(QueryStringBuilder.DEFAULT_MAX_QUERY_LENGTH);
+        assertEquals(List.of(builder.getParameters()), chunks);
+        assertTrue(builder.hasDisjointChunks(QueryStringBuilder.DEFAULT_MAX_QUERY_LENGTH));
+    }
+
+    @Test
+    void spreadsALongListOverQueriesThatFit() {
+        QueryStringBuilder builder = new QueryStringBuilder();
+        List<String> ids = ids(500);
+        builder.addParameter("id", ids);
+        builder.addParameter("limit", 10);
+        builder.addParameter("select", List.of("id", "name"));
+        int maxQueryLength = 200;
+
+        List<Map<String, String>> chunks = builder.getChunkedParameters(maxQueryLength);
+        assertTrue(chunks.size() > 1);
+
+        List<String> chunkedIds = new ArrayList<>();
+        for (Map<String, String> chunk : chunks) {
+            assertTrue(QueryStringBuilder.fromMap(chunk).getQueryString().length() <= maxQueryLength, chunk.toString());
+            assertEquals("10", chunk.get("limit"));
+            assertEquals("id,name", chunk.get("select"));
+            chunkedIds.addAll(List.of(chunk.get("id").split(",")));
+        }
+        assertEquals(ids, chunkedIds);
+        assertTrue(builder.hasDisjointChunks(maxQueryLength));
+        // The parameters of the builder itself are left whole
+        assertEquals(String.join(",", ids), builder.getParameters().get("id"));
+    }
+
+    @Test
+    void splitsTheLongestSplittableList() {
+        QueryStringBuilder builder = new QueryStringBuilder();
+        builder.addParameter("foi", ids(100));
+        builder.addParameter("observedProperty", List.of("temperature", "pressure"));
+
+        for (Map<String, String> chunk : builder.getChunkedParameters(300)) {
+            assertEquals("temperature,pressure", chunk.get("observedProperty"));
+        }
+        // Features of interest do not partition the results, so the chunks may overlap
+        assertFalse(builder.hasDisjointChunks(300));
+    }
+
+    @Test
+    void neverSplitsSelectedProperties() {
+        QueryStringBuilder builder = new QueryStringBuilder();
+        builder.addParameter("select", ids(100));
+
+        assertEquals(List.of(builder.getParameters()), builder.getChunkedParameters(100));
+        assertTrue(builder.hasDisjointChunks(100));
+    }
+
+    @Test
+    void keepsAValueLongerThanTheMaximumInItsOwnQuery() {
+        QueryStringBuilder builder = new QueryStringBuilder();
+        String longId = "x".repeat(300);
+        builder.addParameter("id", List.of("a", longId, "b"));
+
+        List<Map<String, String>> chunks = builder.getChunkedParameters(100);
+        assertEquals(List.of("a", longId, "b"), chunks.stream().map(chunk -> chunk.get("id")).toList());
+    }
+
+    @Test
+    void rejectsANonPositiveMaximumLength() {
+        QueryStringBuilder builder = new QueryStringBuilder();
+        assertThrows(IllegalArgumentException.class, () -> builder.getChunkedParameters(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.hasDisjointChunks(-1));
+    }
+
+    @Test
+    void readsTheLimit() {
+        QueryStringBuilder builder = new QueryStringBuilder();
+        assertNull(builder.getLimit());
+        builder.addParameter("limit", 25);
+        assertEquals(25, builder.getLimit());
+        builder.addParameter("limit", "many");
+        assertNull(builder.getLimit());
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("system-" + i);
+        }
+        return ids;
+    }
+}